@@ -1,22 +1,37 @@
 package com.surveyor.tracking.api
 
 import android.util.Log
+import com.surveyor.tracking.model.LoginRequest
 import okhttp3.Credentials
 import okhttp3.Interceptor
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
 import retrofit2.converter.gson.GsonConverterFactory
+import java.text.ParseException
+import java.text.SimpleDateFormat
+import java.util.Locale
+import java.util.TimeZone
 import java.util.concurrent.TimeUnit
 
 // --- We create a separate, dynamic interceptor class for authentication ---
 // This class will hold the credentials and add them to every API call.
 class AuthInterceptor : Interceptor {
 
-    // This variable will store the authentication token for the logged-in user.
-    // It is 'volatile' to ensure it's safe to use across different threads.
+    // Basic credentials from the login screen; kept so the app can log in again or fall back to them.
+    // They are 'volatile' to ensure they're safe to use across different threads.
     @Volatile
-    private var authToken: String? = null
+    private var username: String? = null
+    @Volatile
+    private var password: String? = null
+    @Volatile
+    private var basicToken: String? = null
+
+    // Signed session token from the login call, preferred over Basic while it is valid
+    @Volatile
+    private var bearerToken: String? = null
+    @Volatile
+    private var bearerExpiresAtMs: Long = 0L
 
     /**
      * This function will be called from your Login screen to set the
@@ -24,32 +39,94 @@ class AuthInterceptor : Interceptor {
      * It creates the "Basic" token (e.g., "Basic dXNlcjpwYXNzd29yZA==").
      */
     fun setToken(username: String, password: String) {
-        this.authToken = Credentials.basic(username, password)
+        this.username = username
+        this.password = password
+        this.basicToken = Credentials.basic(username, password)
         Log.d("AuthInterceptor", "Auth token has been set for user: $username")
     }
 
+    /**
+     * Switches to the signed session token returned by the login or refresh call.
+     * The server verifies it without a database lookup on every location update.
+     * @param expiresAt ISO-8601 instant from the server; if missing, the token is refreshed after an hour
+     */
+    fun setBearerToken(token: String, expiresAt: String?) {
+        this.bearerExpiresAtMs = parseInstant(expiresAt) ?: (System.currentTimeMillis() + DEFAULT_TOKEN_LIFETIME_MS)
+        this.bearerToken = token
+        Log.d("AuthInterceptor", "Session token has been set.")
+    }
+
+    fun clearBearerToken() {
+        this.bearerToken = null
+        this.bearerExpiresAtMs = 0L
+    }
+
+    fun hasBearerToken(): Boolean = bearerToken != null
+
+    fun hasCredentials(): Boolean = username != null && password != null
+
+    fun credentials(): Pair<String, String>? {
+        val user = username ?: return null
+        val pass = password ?: return null
+        return user to pass
+    }
+
+    /**
+     * True when there is no usable session token, or it expires within [marginMs].
+     */
+    fun bearerExpiresWithin(marginMs: Long): Boolean =
+        bearerToken == null || System.currentTimeMillis() + marginMs >= bearerExpiresAtMs
+
     /**
      * This function will be called on logout to clear the credentials.
      */
     fun clearToken() {
-        this.authToken = null
+        this.username = null
+        this.password = null
+        this.basicToken = null
+        clearBearerToken()
         Log.d("AuthInterceptor", "Auth token has been cleared.")
     }
 
     override fun intercept(chain: Interceptor.Chain): okhttp3.Response {
-        var request = chain.request()
-
-        // Check if we have a token stored.
-        authToken?.let { token ->
-            // If a token exists, create a new request and add the
-            // "Authorization" header to it. This happens for every API call.
-            request = request.newBuilder()
-                .header("Authorization", token)
-                .build()
+        val original = chain.request()
+        // An expired session token would only earn a 401, so Basic is used instead
+        val bearer = bearerToken?.takeIf { System.currentTimeMillis() < bearerExpiresAtMs }
+        val token = bearer?.let { "Bearer $it" } ?: basicToken
+            ?: return chain.proceed(original)
+
+        // If a token exists, create a new request and add the
+        // "Authorization" header to it. This happens for every API call.
+        val response = chain.proceed(original.newBuilder().header("Authorization", token).build())
+
+        // The server forgets tokens when it restarts without a fixed secret; retry once with Basic
+        val basic = basicToken
+        if (response.code == 401 && bearer != null && basic != null) {
+            Log.w("AuthInterceptor", "Session token rejected, retrying with Basic credentials.")
+            if (bearerToken == bearer) {
+                clearBearerToken()
+            }
+            response.close()
+            return chain.proceed(original.newBuilder().header("Authorization", basic).build())
         }
+        return response
+    }
 
-        // Proceed with the request (either the original or the one with the auth header).
-        return chain.proceed(request)
+    private fun parseInstant(value: String?): Long? {
+        if (value == null) return null
+        val format = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US)
+        format.timeZone = TimeZone.getTimeZone("UTC")
+        // Instant.toString(): "2025-05-31T03:30:00Z", possibly with fractional seconds
+        return try {
+            format.parse(value.substringBefore('.').removeSuffix("Z"))?.time
+        } catch (e: ParseException) {
+            Log.w("AuthInterceptor", "Unparseable token expiry: $value")
+            null
+        }
+    }
+
+    companion object {
+        private const val DEFAULT_TOKEN_LIFETIME_MS = 60 * 60_000L
     }
 }
 
@@ -86,4 +163,61 @@ object ApiClient {
         .build()
 
     val apiService: ApiService = retrofit.create(ApiService::class.java)
-}
\ No newline at end of file
+
+    // Refresh the session token this long before it expires
+    private const val TOKEN_REFRESH_MARGIN_MS = 30 * 60_000L
+    // Do not retry a failed login more often than this; older servers issue no token at all
+    private const val LOGIN_RETRY_MS = 5 * 60_000L
+
+    @Volatile
+    private var lastLoginAttemptMs = 0L
+
+    /**
+     * Keeps a valid session token before location uploads: refreshes it when it is about to
+     * expire, and logs in again with the saved credentials when it has expired, was revoked, or
+     * was lost when the server restarted. Until then requests fall back to Basic credentials.
+     */
+    suspend fun ensureSession() {
+        if (!authInterceptor.bearerExpiresWithin(TOKEN_REFRESH_MARGIN_MS)) {
+            return
+        }
+        try {
+            if (authInterceptor.hasBearerToken() && !authInterceptor.bearerExpiresWithin(0L)) {
+                val response = apiService.refreshToken()
+                val body = response.body()
+                if (response.isSuccessful && body?.token != null) {
+                    authInterceptor.setBearerToken(body.token, body.expiresAt)
+                    Log.d("ApiClient", "Session token refreshed.")
+                    return
+                }
+                Log.w("ApiClient", "Token refresh failed with ${response.code()}, logging in again.")
+            }
+            authInterceptor.clearBearerToken()
+            reauthenticate()
+        } catch (e: Exception) {
+            Log.e("ApiClient", "Could not renew the session token", e)
+        }
+    }
+
+    /**
+     * Logs in again with the saved credentials to get a fresh session token.
+     * @return true if a new token was set
+     */
+    suspend fun reauthenticate(): Boolean {
+        val (username, password) = authInterceptor.credentials() ?: return false
+        val now = System.currentTimeMillis()
+        if (now - lastLoginAttemptMs < LOGIN_RETRY_MS) {
+            return false
+        }
+        lastLoginAttemptMs = now
+        val response = apiService.login(LoginRequest(username, password))
+        val body = response.body()
+        if (response.isSuccessful && body?.success == true && body.token != null) {
+            authInterceptor.setBearerToken(body.token, body.expiresAt)
+            Log.i("ApiClient", "Logged in again, new session token set.")
+            return true
+        }
+        Log.w("ApiClient", "Re-login failed with ${response.code()}; using Basic credentials.")
+        return false
+    }
+}
@@ -4,7 +4,9 @@ import com.surveyor.tracking.model.LoginRequest
 import com.surveyor.tracking.model.LoginResponse
 import com.surveyor.tracking.model.LocationData
 import com.surveyor.tracking.model.LiveLocationMessage
+import com.surveyor.tracking.model.LocationAck
 import com.surveyor.tracking.model.Surveyor
+import com.surveyor.tracking.model.TokenResponse
 import retrofit2.Response
 import retrofit2.http.*
 
@@ -12,6 +14,10 @@ interface ApiService {
     
     @POST("surveyors/login")
     suspend fun login(@Body loginRequest: LoginRequest): Response<LoginResponse>
+
+    // Exchanges the current Bearer token for a new one
+    @POST("surveyors/token/refresh")
+    suspend fun refreshToken(): Response<TokenResponse>
     
     @GET("surveyors")
     suspend fun getAllSurveyors(): Response<List<Surveyor>>
@@ -19,7 +25,7 @@ interface ApiService {
     @POST("live/location")
     suspend fun updateLocation(
         @Body location: LiveLocationMessage
-    ): Response<okhttp3.ResponseBody>
+    ): Response<LocationAck>
     
     @GET("location/{surveyorId}/track")
     suspend fun getLocationHistory(
@@ -8,5 +8,27 @@ data class LoginRequest(
 data class LoginResponse(
     val success: Boolean,
     val message: String,
-    val surveyor: Surveyor?
+    val surveyor: Surveyor?,
+    // Signed session token; sent as "Bearer <token>" so pings skip the credential lookup
+    val token: String? = null,
+    // ISO-8601 instant after which the token is refused
+    val expiresAt: String? = null
+)
+
+// Response to POST surveyors/token/refresh
+data class TokenResponse(
+    val token: String?,
+    val tokenType: String? = null,
+    val expiresAt: String? = null
+)
+
+
+// Response to a location update; points up to durableSequence are stored and need not be resent
+data class LocationAck(
+    val status: String,
+    val sequence: Long? = null,
+    val durableSequence: Long? = null,
+    val recommendedIntervalMs: Long? = null,
+    val minDisplacementM: Float? = null,
+    val message: String? = null
 )
@@ -4,5 +4,7 @@ data class LiveLocationMessage(
     val surveyorId: String,
     val latitude: Double,
     val longitude: Double,
-    val timestamp: String // ISO 8601 format string to match backend
+    val timestamp: String, // ISO 8601 format string to match backend
+    val accuracy: Float? = null, // Horizontal accuracy in metres; lets the backend drop poor fixes
+    val sequence: Long? = null // Increasing per device; lets the backend ignore retried points
 )
@@ -13,7 +13,11 @@ import com.google.android.gms.location.*
 import com.surveyor.tracking.R // Make sure you have an ic_location icon in your res/drawable folder
 import com.surveyor.tracking.api.ApiClient
 import com.surveyor.tracking.model.LiveLocationMessage
+import com.surveyor.tracking.model.LocationAck
+import com.surveyor.tracking.utils.PreferencesManager
 import kotlinx.coroutines.*
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import java.text.SimpleDateFormat
 import java.util.*
 
@@ -23,11 +27,35 @@ class LocationTrackingService : Service() {
     private lateinit var locationCallback: LocationCallback
     private val serviceScope = CoroutineScope(Dispatchers.IO + SupervisorJob())
     private var currentSurveyorId: String? = null
+    private lateinit var preferencesManager: PreferencesManager
+
+    // Points the server has not yet reported as stored, oldest first
+    private val pendingLocations = ArrayDeque<PendingLocation>()
+    private val sendMutex = Mutex()
+
+    // Current location request interval and send-side displacement, adjusted from the server's hints
+    @Volatile private var requestIntervalMs = DEFAULT_INTERVAL_MS
+    @Volatile private var requestDisplacementM = 0f
+    // Last fix handed to the send path; only touched on the main looper
+    private var lastQueuedLocation: Location? = null
+
+    private class PendingLocation(val message: LiveLocationMessage, var acceptedAt: Long = 0L)
 
     companion object {
         private const val CHANNEL_ID = "LocationTrackingChannel"
         private const val NOTIFICATION_ID = 1
         const val EXTRA_SURVEYOR_ID = "surveyor_id"
+        private const val MAX_PENDING_LOCATIONS = 500
+        // An accepted point that is still not durable after this long is sent again
+        private const val RESEND_AFTER_MS = 120_000L
+        private const val DEFAULT_INTERVAL_MS = 30_000L
+        private const val MIN_INTERVAL_MS = 2_000L
+        // Below the server's 5-minute online timeout, so a stationary surveyor stays online
+        private const val MAX_INTERVAL_MS = 240_000L
+        // A fix is sent at least this often even when it has not moved minDisplacementM
+        private const val HEARTBEAT_MS = 240_000L
+        // Hints closer than this to the current request are not worth re-registering for
+        private const val HINT_CHANGE_RATIO = 0.2
 
         fun startService(context: Context, surveyorId: String) {
             val intent = Intent(context, LocationTrackingService::class.java).apply {
@@ -49,6 +77,7 @@ class LocationTrackingService : Service() {
     override fun onCreate() {
         super.onCreate()
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this)
+        preferencesManager = PreferencesManager(this)
         setupLocationCallback()
     }
 
@@ -100,7 +129,7 @@ class LocationTrackingService : Service() {
 
         return NotificationCompat.Builder(this, CHANNEL_ID)
             .setContentTitle("Surveyor Tracking Active")
-            .setContentText("Sending location updates every 30 seconds. $surveyorInfo")
+            .setContentText("Sending location updates. $surveyorInfo")
             .setSmallIcon(R.drawable.ic_location)
             .setPriority(NotificationCompat.PRIORITY_DEFAULT)
             .setOngoing(true)
@@ -119,12 +148,16 @@ class LocationTrackingService : Service() {
     }
 
     // --- THE FIX: The function no longer needs a parameter ---
+    // Calling it again with the same callback replaces the running request
     private fun startLocationUpdates() {
         val locationRequest = LocationRequest.Builder(
             Priority.PRIORITY_HIGH_ACCURACY,
-            30000L // 30 seconds
+            requestIntervalMs
         ).apply {
-            setMinUpdateIntervalMillis(15000L) // Minimum update interval of 15 seconds
+            setMinUpdateIntervalMillis(requestIntervalMs / 2)
+            // No OS-level distance gate: it would stop callbacks, and with them the heartbeat,
+            // for a surveyor standing still. Displacement is applied in handleLocationUpdate.
+            setMinUpdateDistanceMeters(0f)
         }.build()
 
         try {
@@ -133,7 +166,7 @@ class LocationTrackingService : Service() {
                 locationCallback,
                 Looper.getMainLooper()
             )
-            Log.i("LocationService", "Location updates have been started successfully.")
+            Log.i("LocationService", "Location updates started: every ${requestIntervalMs} ms, sending after ${requestDisplacementM} m.")
         } catch (e: SecurityException) {
             Log.e("LocationService", "Location permission not granted. Cannot start updates.", e)
             stopSelf()
@@ -148,30 +181,98 @@ class LocationTrackingService : Service() {
     private fun handleLocationUpdate(location: Location) {
         val surveyorId = currentSurveyorId ?: return
 
+        // Skip fixes within the hinted displacement, but still send one every HEARTBEAT_MS
+        val last = lastQueuedLocation
+        if (last != null && requestDisplacementM > 0f &&
+            location.distanceTo(last) < requestDisplacementM &&
+            location.time - last.time < HEARTBEAT_MS) {
+            Log.d("LocationService", "Fix within ${requestDisplacementM} m of the last one sent, skipped.")
+            return
+        }
+        lastQueuedLocation = location
+
+        val isoFormat = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.UK)
+        isoFormat.timeZone = TimeZone.getTimeZone("UTC")
+        val timestamp = isoFormat.format(Date(location.time))
+
+        val liveLocationMessage = LiveLocationMessage(
+            surveyorId = surveyorId,
+            latitude = location.latitude,
+            longitude = location.longitude,
+            timestamp = timestamp,
+            accuracy = if (location.hasAccuracy()) location.accuracy else null,
+            sequence = preferencesManager.nextLocationSequence()
+        )
+
         serviceScope.launch {
+            sendMutex.withLock {
+                pendingLocations.addLast(PendingLocation(liveLocationMessage))
+                while (pendingLocations.size > MAX_PENDING_LOCATIONS) {
+                    pendingLocations.removeFirst()
+                }
+                flushPendingLocations()
+            }
+        }
+    }
+
+    /**
+     * Sends buffered points in order. The server ignores retried sequences, so a point whose
+     * response was lost can safely be sent again; points are dropped once the server's
+     * durableSequence covers them.
+     */
+    private suspend fun flushPendingLocations() {
+        // Renew the session token before it expires rather than after uploads start failing
+        ApiClient.ensureSession()
+        val now = System.currentTimeMillis()
+        for (pending in pendingLocations.toList()) {
+            if (pending.acceptedAt != 0L && now - pending.acceptedAt < RESEND_AFTER_MS) {
+                continue
+            }
             try {
-                val isoFormat = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.UK)
-                isoFormat.timeZone = TimeZone.getTimeZone("UTC")
-                val timestamp = isoFormat.format(Date(location.time))
-
-                val liveLocationMessage = LiveLocationMessage(
-                    surveyorId = surveyorId,
-                    latitude = location.latitude,
-                    longitude = location.longitude,
-                    timestamp = timestamp
-                )
-
-                Log.d("LocationService", "Sending to backend: $liveLocationMessage")
-                val response = ApiClient.apiService.updateLocation(liveLocationMessage)
-
-                if (response.isSuccessful) {
-                    Log.i("LocationService", "Location update sent successfully.")
-                } else {
+                Log.d("LocationService", "Sending to backend: ${pending.message}")
+                val response = ApiClient.apiService.updateLocation(pending.message)
+                val ack = response.body()
+                if (!response.isSuccessful || ack == null) {
                     Log.e("LocationService", "Failed to send update. Code: ${response.code()}, Message: ${response.errorBody()?.string()}")
+                    // The session was refused; log in again (at most every few minutes) and retry on the next flush
+                    if (response.code() == 401) {
+                        ApiClient.authInterceptor.clearBearerToken()
+                        ApiClient.reauthenticate()
+                    }
+                    return
+                }
+
+                Log.i("LocationService", "Location update ${ack.status}.")
+                pending.acceptedAt = now
+                applyIntervalHint(ack)
+                ack.durableSequence?.let { durable ->
+                    pendingLocations.removeAll { (it.message.sequence ?: Long.MAX_VALUE) <= durable }
                 }
             } catch (e: Exception) {
                 Log.e("LocationService", "Exception while sending location update", e)
+                return
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Follows the server's recommended interval and displacement, which grow when the
+     * surveyor is stationary, nobody is watching, or the server is under load. Only a changed
+     * interval re-registers the location request; displacement is checked before sending.
+     */
+    private fun applyIntervalHint(ack: LocationAck) {
+        val interval = ack.recommendedIntervalMs?.coerceIn(MIN_INTERVAL_MS, MAX_INTERVAL_MS) ?: return
+        val displacement = ack.minDisplacementM ?: requestDisplacementM
+        val intervalChange = Math.abs(interval - requestIntervalMs).toDouble() / requestIntervalMs
+        val displacementChange = Math.abs(displacement - requestDisplacementM) / Math.max(displacement, 1f)
+        if (intervalChange < HINT_CHANGE_RATIO && displacementChange < HINT_CHANGE_RATIO) {
+            return
+        }
+        val intervalChanged = intervalChange >= HINT_CHANGE_RATIO
+        requestIntervalMs = interval
+        requestDisplacementM = displacement
+        if (intervalChanged) {
+            startLocationUpdates()
+        }
+    }
+}
@@ -19,6 +19,7 @@ class PreferencesManager(context: Context) {
         private const val KEY_USER_ID = "key_user_id"
         private const val KEY_USERNAME = "key_username"
         private const val KEY_IS_LOGGED_IN = "key_is_logged_in"
+        private const val KEY_LOCATION_SEQUENCE = "key_location_sequence"
     }
 
     // Initialize the SharedPreferences instance.
@@ -60,6 +61,18 @@ class PreferencesManager(context: Context) {
      */
     fun isLoggedIn(): Boolean = prefs.getBoolean(KEY_IS_LOGGED_IN, false)
 
+    /**
+     * Returns the next location sequence number for this device. The counter starts at the
+     * current epoch millis, so it keeps increasing even after the preferences are cleared.
+     */
+    @Synchronized
+    fun nextLocationSequence(): Long {
+        val last = prefs.getLong(KEY_LOCATION_SEQUENCE, 0L)
+        val next = if (last == 0L) System.currentTimeMillis() else last + 1
+        prefs.edit().putLong(KEY_LOCATION_SEQUENCE, next).apply()
+        return next
+    }
+
     /**
      * Clears all user data from SharedPreferences. This is typically
      * called on logout.
@@ -84,7 +84,11 @@ class AuthViewModel(application: Application) : AndroidViewModel(application) {
                         _currentSurveyor.value = surveyor
                         // We pass the password here so it can be saved for the next session
                         saveSurveyorToPrefs(surveyor, password)
-                        // The token is already set, so we don't need to set it again here.
+                        // Prefer the session token over Basic credentials when the server issues one
+                        // (LocationTrackingService renews it before it expires)
+                        response.body()?.token?.let {
+                            ApiClient.authInterceptor.setBearerToken(it, response.body()?.expiresAt)
+                        }
                         _loginState.value = LoginState.Success
                     } else {
                         _loginState.value = LoginState.Error("Invalid response data")
@@ -0,0 +1,30 @@
+package com.neogeo.tracking;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import com.neogeo.tracking.service.BinaryLocationWebSocketHandler;
+
+// Opt-in native endpoint for the binary location protocol, next to the STOMP endpoints
+@Configuration
+@EnableWebSocket
+@ConditionalOnProperty(name = "tracking.websocket.binary.enabled", havingValue = "true")
+public class BinaryWebSocketConfig implements WebSocketConfigurer {
+
+    private final BinaryLocationWebSocketHandler binaryLocationHandler;
+
+    public BinaryWebSocketConfig(BinaryLocationWebSocketHandler binaryLocationHandler) {
+        this.binaryLocationHandler = binaryLocationHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
+        registry.addHandler(binaryLocationHandler, "/ws/location-binary")
+                .setAllowedOriginPatterns("*");
+        System.out.println("Binary location WebSocket endpoint enabled at /ws/location-binary");
+    }
+}
@@ -4,19 +4,20 @@ import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationAck;
+import com.neogeo.tracking.dto.TrackTailResponse;
 import com.neogeo.tracking.model.LocationTrack;
 import com.neogeo.tracking.model.Surveyor;
-import com.neogeo.tracking.repository.LocationTrackRepository;
 import com.neogeo.tracking.service.*;
 
 import io.swagger.v3.oas.annotations.*;
@@ -28,27 +29,32 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Location Tracking", description = "APIs for tracking surveyor locations")
 public class LocationTrackController {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private final LocationTrackRepository repository;
     private final SurveyorService surveyorService;
     private final TracingService tracingService;
-    private final ObjectMapper objectMapper;
     private final LocationTrackService locationTrackService;
+    private final LatestLocationStore latestLocationStore;
+    private final SessionTokenService sessionTokenService;
+    private final IngestDispatcher ingestDispatcher;
+    private final LocationIngestService locationIngestService;
+    private final IngestRateLimiter ingestRateLimiter;
 
     @Autowired
-    public LocationTrackController(SimpMessagingTemplate messagingTemplate,
-                                 LocationTrackRepository repository,
-                                 SurveyorService surveyorService,
+    public LocationTrackController(SurveyorService surveyorService,
                                  TracingService tracingService,
-                                 LocationTrackService locationTrackService) {
-        this.messagingTemplate = messagingTemplate;
-        this.repository = repository;
+                                 LocationTrackService locationTrackService,
+                                 LatestLocationStore latestLocationStore,
+                                 SessionTokenService sessionTokenService,
+                                 IngestDispatcher ingestDispatcher,
+                                 LocationIngestService locationIngestService,
+                                 IngestRateLimiter ingestRateLimiter) {
         this.surveyorService = surveyorService;
         this.tracingService = tracingService;
         this.locationTrackService = locationTrackService;
-        this.objectMapper = new ObjectMapper()
-            .registerModule(new com.fasterxml.jackson.datatype.jsr310.JavaTimeModule())
-            .configure(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        this.latestLocationStore = latestLocationStore;
+        this.sessionTokenService = sessionTokenService;
+        this.ingestDispatcher = ingestDispatcher;
+        this.locationIngestService = locationIngestService;
+        this.ingestRateLimiter = ingestRateLimiter;
     }
 
     @Operation(summary = "Filter surveyors")
@@ -67,7 +73,14 @@ public class LocationTrackController {
         return locationTrackService.getLatestLocation(surveyorId);
     }
 
-    @Operation(summary = "Get location history")
+    @Operation(summary = "Get latest location of every surveyor", description = "Served from memory, no database access")
+    @GetMapping("/location/latest/all")
+    public List<LiveLocationMessage> getAllLatestLocations() {
+        return latestLocationStore.getAll();
+    }
+
+    @Operation(summary = "Get location history", description = "Low priority: may answer 503 while the server is under load")
+    @LowPriority
     @GetMapping("/location/{surveyorId}/track")
     public ResponseEntity<List<LocationTrack>> getTrackHistory(
             @PathVariable String surveyorId,
@@ -82,30 +95,88 @@ public class LocationTrackController {
         return tracks.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(tracks);
     }
 
+    @Operation(summary = "Get new track points", description = "Returns only the points after a (timestamp, id) cursor, for extending a live trail")
+    @GetMapping("/location/{surveyorId}/tail")
+    public TrackTailResponse getTrackTail(
+            @PathVariable String surveyorId,
+            @Parameter(description = "Cursor timestamp; points strictly after it are returned")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant after,
+            @Parameter(description = "Cursor id from the previous response") @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Maximum points to return") @RequestParam(defaultValue = "500") int limit) {
+        return locationTrackService.getTrackTail(surveyorId, after, afterId, limit);
+    }
+
     @GetMapping("/surveyors/status")
     public Map<String, String> getSurveyorStatus() {
         return locationTrackService.getSurveyorStatusesExcludingAdmin();
     }
 
-    @Operation(summary = "Update live location")
+    @Operation(summary = "Update live location",
+              description = "Accepted updates are processed in order per surveyor; 429 means the surveyor is over its rate limit " +
+                            "and 503 that the ingest pipeline is full. " +
+                            "The JSON acknowledgement carries the highest durable device sequence.")
     @PostMapping("/live/location")
-    public ResponseEntity<String> publishLiveLocation(
+    public CompletableFuture<ResponseEntity<LocationAck>> publishLiveLocation(
             @RequestBody LiveLocationMessage message,
             @RequestHeader(value = "Authorization", required = false) String authHeader) {
         
-        return tracingService.traceGpsOperation("location-update", message.getSurveyorId(), 1, () -> {
-            if (!validateAuth(authHeader)) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
-            }
+        ResponseEntity<LocationAck> rejection = authorize(authHeader, message);
+        if (rejection != null) {
+            return CompletableFuture.completedFuture(rejection);
+        }
+
+        long retryAfterMs = ingestRateLimiter.tryAcquire(message.getSurveyorId());
+        if (retryAfterMs > 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMs + 999) / 1000))
+                .body(errorAck(LocationAck.RATE_LIMITED, message, "Too many updates, retry later")));
+        }
 
-            try {
-                broadcastLocation(message);
-                saveLocation(message);
-                return ResponseEntity.ok("Location updated");
-            } catch (JsonProcessingException e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Processing error");
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Instant.now());
+        }
+
+        try {
+            return ingestDispatcher.submit(message.getSurveyorId(), () ->
+                tracingService.traceGpsOperation("location-update", message.getSurveyorId(), 1, () -> {
+                    LocationAck ack = locationIngestService.process(message);
+                    return LocationAck.REJECTED.equals(ack.getStatus())
+                        ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ack)
+                        : ResponseEntity.ok(ack);
+                }));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(errorAck(LocationAck.REJECTED, message, "Ingest queue full, retry later")));
+        }
+    }
+
+    /**
+     * Bearer tokens are verified in memory and must belong to the reporting surveyor;
+     * Basic credentials from older clients are still checked against the database.
+     * @return null when the request may proceed, otherwise the error response
+     */
+    private ResponseEntity<LocationAck> authorize(String authHeader, LiveLocationMessage message) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String surveyorId = sessionTokenService.verify(authHeader.substring("Bearer ".length()).trim());
+            if (surveyorId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(errorAck(LocationAck.UNAUTHORIZED, message, "Invalid or expired token"));
             }
-        });
+            if (!surveyorId.equals(message.getSurveyorId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(errorAck(LocationAck.UNAUTHORIZED, message, "Token does not belong to this surveyor"));
+            }
+            return null;
+        }
+        return validateAuth(authHeader) ? null
+            : ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(errorAck(LocationAck.UNAUTHORIZED, message, "Invalid credentials"));
+    }
+
+    private static LocationAck errorAck(String status, LiveLocationMessage message, String reason) {
+        LocationAck ack = new LocationAck(status, message.getSurveyorId(), message.getTimestamp(), null, reason);
+        ack.setSequence(message.getSequence());
+        return ack;
     }
 
     private boolean validateAuth(String authHeader) {
@@ -120,19 +191,4 @@ public class LocationTrackController {
             return false;
         }
     }
-
-    private void broadcastLocation(LiveLocationMessage message) throws JsonProcessingException {
-        String json = objectMapper.writeValueAsString(message);
-        messagingTemplate.convertAndSend("/topic/location/" + message.getSurveyorId(), json);
-    }
-
-    private void saveLocation(LiveLocationMessage message) {
-        repository.save(new LocationTrack(
-            message.getSurveyorId(),
-            message.getLatitude(),
-            message.getLongitude(),
-            message.getTimestamp() != null ? message.getTimestamp() : Instant.now(),
-            null
-        ));
-    }
-}
\ No newline at end of file
+}
@@ -10,28 +10,34 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.neogeo.tracking.dto.TrackTailResponse;
 import com.neogeo.tracking.model.LocationTrack;
 import com.neogeo.tracking.model.Surveyor;
 import com.neogeo.tracking.repository.LocationTrackRepository;
 import com.neogeo.tracking.repository.SurveyorRepository;
+import com.neogeo.tracking.service.RecentTrackBuffer;
 import com.neogeo.tracking.service.SurveyorService;
 
 @Service
 public class LocationTrackService {
 
     private static final int OFFLINE_THRESHOLD_MINUTES = 5;
+    public static final int MAX_TAIL_LIMIT = 5000;
 
     private final LocationTrackRepository locationTrackRepository;
     private final SurveyorRepository surveyorRepository;
     private final SurveyorService surveyorService;
+    private final RecentTrackBuffer recentTrackBuffer;
 
     @Autowired
     public LocationTrackService(LocationTrackRepository locationTrackRepository,
                               SurveyorRepository surveyorRepository,
-                              SurveyorService surveyorService) {
+                              SurveyorService surveyorService,
+                              RecentTrackBuffer recentTrackBuffer) {
         this.locationTrackRepository = locationTrackRepository;
         this.surveyorRepository = surveyorRepository;
         this.surveyorService = surveyorService;
+        this.recentTrackBuffer = recentTrackBuffer;
     }
 
     public List<Surveyor> getAllSurveyorsExcludingAdmin() {
@@ -73,6 +79,32 @@ public class LocationTrackService {
         return results;
     }
 
+    /**
+     * Points after the (timestamp, id) cursor, from memory when the recent buffer
+     * covers the cursor and from an index range scan otherwise.
+     * Without {@code afterId} the cursor excludes every point at {@code afterTimestamp}.
+     */
+    public TrackTailResponse getTrackTail(String surveyorId, Instant afterTimestamp, Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_TAIL_LIMIT));
+        long cursorId = afterId != null ? afterId : Long.MAX_VALUE;
+
+        // One extra row tells whether another page follows
+        List<LocationTrack> points = recentTrackBuffer.after(surveyorId, afterTimestamp, cursorId, pageSize);
+        if (points == null) {
+            points = locationTrackRepository.findTail(surveyorId, afterTimestamp, cursorId, pageSize + 1);
+        }
+
+        boolean hasMore = points.size() > pageSize;
+        if (hasMore) {
+            points = points.subList(0, pageSize);
+        }
+        if (points.isEmpty()) {
+            return new TrackTailResponse(points, afterTimestamp, afterId, false);
+        }
+        LocationTrack last = points.get(points.size() - 1);
+        return new TrackTailResponse(points, last.getTimestamp(), last.getId(), hasMore);
+    }
+
     private boolean isValidSurveyor(Surveyor surveyor) {
         return surveyor.getId() != null &&
                surveyor.getId().startsWith("SUR") &&
@@ -112,6 +144,13 @@ public class LocationTrackService {
     }
 
     private List<LocationTrack> fetchLocationTracks(String surveyorId, Instant start, Instant end) {
+        // Recent windows ("last 30 minutes") are served from memory
+        if (start != null) {
+            List<LocationTrack> recent = recentTrackBuffer.between(surveyorId, start, end);
+            if (recent != null) {
+                return recent;
+            }
+        }
         if (start != null && end != null) {
             return locationTrackRepository.findBySurveyorIdAndTimestampBetweenOrderByTimestampAsc(
                 surveyorId, start, end);
@@ -5,15 +5,27 @@ import org.springframework.web.socket.server.standard.ServletServerContainerFact
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
-import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
 
+import com.neogeo.tracking.config.VirtualThreadChannelExecutor;
+import com.neogeo.tracking.service.StompAuthInterceptor;
+import com.neogeo.tracking.service.WebSocketSessionMonitor;
+
+// Extends the configuration @EnableWebSocketMessageBroker imports, so the STOMP handler can use
+// WebSocketSessionMonitor's session decorator instead of Spring's
 @Configuration
-@EnableWebSocketMessageBroker
-public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+public class WebSocketConfig extends DelegatingWebSocketMessageBrokerConfiguration {
 
     @Value("${spring.websocket.max-text-message-size:8192}")
     private int maxTextMessageSize;
@@ -24,15 +36,123 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${spring.websocket.max-binary-message-size:65536}")
     private int maxBinaryMessageSize;
 
+    @Value("${tracking.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${tracking.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${tracking.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${tracking.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${tracking.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${tracking.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${tracking.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${tracking.websocket.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
+    @Value("${tracking.threads.virtual:false}")
+    private boolean virtualThreads;
+
+    private final WebSocketSessionMonitor sessionMonitor;
+    private final StompAuthInterceptor stompAuthInterceptor;
+
+    public WebSocketConfig(WebSocketSessionMonitor sessionMonitor, StompAuthInterceptor stompAuthInterceptor) {
+        this.sessionMonitor = sessionMonitor;
+        this.stompAuthInterceptor = stompAuthInterceptor;
+    }
+
     // Production configuration remains unchanged
     @Override
-    public void configureMessageBroker(@NonNull MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+    protected void configureMessageBroker(@NonNull MessageBrokerRegistry config) {
+        super.configureMessageBroker(config);
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    // Bound how long and how much a single slow session may hold on the outbound side
+    @Override
+    protected void configureWebSocketTransport(@NonNull WebSocketTransportRegistration registration) {
+        super.configureWebSocketTransport(registration);
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit);
+    }
+
+    // Sessions buffer outbound frames in WebSocketSessionMonitor's decorator, which applies the overflow policy
+    @Override
+    @Bean
+    @NonNull
+    public WebSocketHandler subProtocolWebSocketHandler(@NonNull AbstractSubscribableChannel clientInboundChannel,
+                                                        @NonNull AbstractSubscribableChannel clientOutboundChannel) {
+        return new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            @Override
+            @NonNull
+            protected WebSocketSession decorateSession(@NonNull WebSocketSession session) {
+                return sessionMonitor.decorate(session, getSendTimeLimit(), getSendBufferSizeLimit());
+            }
+
+            @Override
+            public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
+                sessionMonitor.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    protected void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
+        super.configureClientInboundChannel(registration);
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        // Authenticates CONNECT frames so /app/location can trust the session principal
+        registration.interceptors(stompAuthInterceptor);
+    }
+
+    @Override
+    protected void configureClientOutboundChannel(@NonNull ChannelRegistration registration) {
+        super.configureClientOutboundChannel(registration);
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    // In virtual-thread mode a pool of virtual threads would only cap them again; start one per
+    // message instead, with max-pool-size running and queue-capacity waiting
+    @Override
+    @Bean
+    @NonNull
+    public TaskExecutor clientInboundChannelExecutor() {
+        if (!virtualThreads) {
+            return super.clientInboundChannelExecutor();
+        }
+        return new VirtualThreadChannelExecutor("clientInboundChannel-", inboundMaxPoolSize, inboundQueueCapacity);
+    }
+
+    @Override
+    @Bean
+    @NonNull
+    public TaskExecutor clientOutboundChannelExecutor() {
+        if (!virtualThreads) {
+            return super.clientOutboundChannelExecutor();
+        }
+        return new VirtualThreadChannelExecutor("clientOutboundChannel-", outboundMaxPoolSize, outboundQueueCapacity);
+    }
+
     @Override
-    public void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
+    protected void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
+        super.registerStompEndpoints(registry);
         registry.addEndpoint("/ws/location").withSockJS();
 
         // Additional non-production endpoints can be added conditionally
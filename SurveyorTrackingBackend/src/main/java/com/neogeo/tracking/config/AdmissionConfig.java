@@ -0,0 +1,24 @@
+package com.neogeo.tracking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.neogeo.tracking.service.AdmissionGate;
+
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionGate admissionGate;
+
+    public AdmissionConfig(AdmissionGate admissionGate) {
+        this.admissionGate = admissionGate;
+    }
+
+    // Sheds @LowPriority handlers while the database pool or ingest lanes are saturated
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(admissionGate).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,19 @@
+package com.neogeo.tracking.config;
+
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    // Migrations that build indexes CONCURRENTLY wait for every open transaction, including the one
+    // holding Flyway's default transaction-scoped advisory lock, so startup would hang. Take the
+    // session-level lock instead. Spring Boot 3.1 has no property for this, hence the raw Flyway key.
+    @Bean
+    public FlywayConfigurationCustomizer sessionLevelMigrationLock() {
+        return configuration -> configuration.configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
+    }
+}
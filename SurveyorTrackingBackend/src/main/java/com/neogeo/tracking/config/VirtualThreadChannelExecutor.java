@@ -0,0 +1,65 @@
+package com.neogeo.tracking.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.NonNull;
+
+/**
+ * STOMP channel executor for virtual-thread mode. Every message gets its own virtual thread rather
+ * than a pooled one; a semaphore keeps the limits of the platform pool it replaces: at most
+ * {@code maxConcurrent} messages are handled at once, up to {@code maxWaiting} more wait (parked,
+ * in arrival order) for a slot, and anything beyond that is rejected as a full pool queue would be.
+ */
+public class VirtualThreadChannelExecutor implements TaskExecutor, DisposableBean {
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+
+    public VirtualThreadChannelExecutor(String threadNamePrefix, int maxConcurrent, int maxWaiting) {
+        this.name = threadNamePrefix;
+        this.executor = VirtualThreadConfig.newThreadPerTaskExecutor(threadNamePrefix);
+        this.running = new Semaphore(maxConcurrent, true);
+        this.admitted = new Semaphore(maxConcurrent + maxWaiting);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new TaskRejectedException(name + " executor is full (" + maxConcurrent + " running, "
+                + maxWaiting + " waiting)");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    running.acquireUninterruptibly();
+                    try {
+                        task.run();
+                    } finally {
+                        running.release();
+                    }
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            throw new TaskRejectedException(name + " executor has been shut down", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,120 @@
+package com.neogeo.tracking.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+/**
+ * Virtual-thread execution mode, enabled with {@code tracking.threads.virtual=true}
+ * (the {@code virtual} Spring profile) on a Java 21 runtime.
+ * <ul>
+ *   <li>Tomcat runs every request on its own virtual thread instead of the {@code server.tomcat.threads.*} pool</li>
+ *   <li>{@code applicationTaskExecutor} (MVC async, {@code @Async}) starts a virtual thread per task, named {@code location-tracking-N}</li>
+ *   <li>The STOMP channels start a virtual thread per message, with the pool limits enforced by a semaphore
+ *       (see {@link VirtualThreadChannelExecutor})</li>
+ * </ul>
+ * The application is still compiled for Java 17, so the Java 21 API is reached through reflection,
+ * and startup fails with a clear message if the runtime does not have it.
+ * Concurrency against the database stays bounded by the Hikari pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracking.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig implements DisposableBean {
+
+    private final List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+
+    public VirtualThreadConfig() {
+        if (!isSupported()) {
+            throw new IllegalStateException("tracking.threads.virtual=true requires Java 21 or newer (running "
+                + System.getProperty("java.version") + ")");
+        }
+        System.out.println("Virtual-thread execution mode enabled");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(newExecutor("http-vt-"));
+    }
+
+    @Bean(name = {
+        TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+    })
+    public AsyncTaskExecutor applicationTaskExecutor(
+            @Value("${spring.task.execution.thread-name-prefix:location-tracking-}") String threadNamePrefix) {
+        return new TaskExecutorAdapter(newExecutor(threadNamePrefix));
+    }
+
+    @Override
+    public void destroy() {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * True if the running JVM can create virtual threads.
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Factory for virtual threads named {@code prefix0}, {@code prefix1}, ...
+     * Equivalent to {@code Thread.ofVirtual().name(prefix, 0).factory()}.
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available on this JVM", unwrap(e));
+        }
+    }
+
+    /**
+     * Executor starting one virtual thread per task, named as by {@link #threadFactory(String)}.
+     * Equivalent to {@code Executors.newThreadPerTaskExecutor(threadFactory(prefix))}.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        try {
+            Method factoryMethod = Executors.class
+                .getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) factoryMethod.invoke(null, threadFactory(prefix));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available on this JVM", unwrap(e));
+        }
+    }
+
+    private ExecutorService newExecutor(String prefix) {
+        ExecutorService executor = newThreadPerTaskExecutor(prefix);
+        executors.add(executor);
+        return executor;
+    }
+
+    private static Throwable unwrap(ReflectiveOperationException e) {
+        return e instanceof InvocationTargetException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,97 @@
+package com.neogeo.tracking.controller;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.neogeo.tracking.service.CoverageService;
+import com.neogeo.tracking.service.LowPriority;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/coverage")
+@Tag(name = "Coverage", description = "Share of a project area covered by surveyors, from per-day grid bitmaps")
+public class CoverageController {
+
+    private final CoverageService coverageService;
+
+    public CoverageController(CoverageService coverageService) {
+        this.coverageService = coverageService;
+    }
+
+    @Operation(summary = "Set the area coverage is measured against",
+              description = "GeoJSON Polygon, MultiPolygon or Feature; returns the number of grid cells inside it.")
+    @PutMapping("/{project}/area")
+    public ResponseEntity<?> setArea(@PathVariable String project, @RequestBody JsonNode area) {
+        try {
+            return ResponseEntity.ok(Map.of("project", project, "areaCells", coverageService.setArea(project, area)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Covered cells and percentage of the project area",
+              description = "Union of the days from..to (default today). Low priority: may answer 503 while the server is under load.")
+    @LowPriority
+    @GetMapping("/{project}")
+    public ResponseEntity<?> coverage(
+            @PathVariable String project,
+            @Parameter(description = "First day (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate first = from != null ? from : coverageService.today();
+        try {
+            return ResponseEntity.ok(coverageService.coverage(project, first, to != null ? to : first));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Compare the coverage of two days",
+              description = "Cells first covered on 'day' compared with 'base' (default the day before). " +
+                            "Low priority: may answer 503 while the server is under load.")
+    @LowPriority
+    @GetMapping("/{project}/diff")
+    public ResponseEntity<?> diff(
+            @PathVariable String project,
+            @Parameter(description = "Day to compare (ISO date)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate day,
+            @Parameter(description = "Day compared against (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate base) {
+        try {
+            return ResponseEntity.ok(coverageService.diff(project, day, base != null ? base : day.minusDays(1)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Covered cells inside a map tile",
+              description = "GeoJSON Feature with one rectangle per run of covered cells, for z/x/y web-map tiles. " +
+                            "Low priority: may answer 503 while the server is under load.")
+    @LowPriority
+    @GetMapping("/{project}/tiles/{z}/{x}/{y}")
+    public ResponseEntity<?> tile(
+            @PathVariable String project,
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            @Parameter(description = "First day (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day, inclusive (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate first = from != null ? from : coverageService.today();
+        try {
+            return ResponseEntity.ok(coverageService.tile(project, first, to != null ? to : first, z, x, y));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
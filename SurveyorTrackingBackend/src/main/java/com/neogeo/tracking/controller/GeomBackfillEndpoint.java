@@ -0,0 +1,30 @@
+package com.neogeo.tracking.controller;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.service.GeomBackfillService;
+
+/**
+ * Actuator endpoint ({@code /internal/geombackfill}) reporting progress of the
+ * {@code location_track.geom} backfill. Read-only: the actuator paths are not authenticated,
+ * so the job is started with {@code tracking.geom-backfill.auto-start} instead.
+ */
+@Component
+@Endpoint(id = "geombackfill")
+public class GeomBackfillEndpoint {
+
+    private final GeomBackfillService backfillService;
+
+    public GeomBackfillEndpoint(GeomBackfillService backfillService) {
+        this.backfillService = backfillService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return backfillService.status();
+    }
+}
@@ -0,0 +1,112 @@
+package com.neogeo.tracking.controller;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationAck;
+import com.neogeo.tracking.service.IngestDispatcher;
+import com.neogeo.tracking.service.IngestRateLimiter;
+import com.neogeo.tracking.service.LocationBroadcaster;
+import com.neogeo.tracking.service.LocationIngestService;
+import com.neogeo.tracking.service.StompAuthInterceptor;
+import com.neogeo.tracking.service.TracingService;
+
+/**
+ * STOMP ingest on the existing {@code /ws/location} connection.
+ * A session that authenticated at CONNECT sends positions to {@code /app/location};
+ * they take the same ordered lane and event bus as {@code POST /api/live/location},
+ * without a new HTTP request or credential check per point.
+ * <p>
+ * Accepted positions are acknowledged on {@code /user/queue/location-ack} only when the
+ * SEND frame carries a {@code receipt} header; rejections are always reported there.
+ */
+@Controller
+public class LocationIngestController {
+
+    public static final String ACK_QUEUE = "/queue/location-ack";
+
+    private final IngestDispatcher ingestDispatcher;
+    private final LocationIngestService locationIngestService;
+    private final TracingService tracingService;
+    private final LocationBroadcaster locationBroadcaster;
+    private final IngestRateLimiter ingestRateLimiter;
+
+    public LocationIngestController(IngestDispatcher ingestDispatcher,
+                                    LocationIngestService locationIngestService,
+                                    TracingService tracingService,
+                                    LocationBroadcaster locationBroadcaster,
+                                    IngestRateLimiter ingestRateLimiter) {
+        this.ingestDispatcher = ingestDispatcher;
+        this.locationIngestService = locationIngestService;
+        this.tracingService = tracingService;
+        this.locationBroadcaster = locationBroadcaster;
+        this.ingestRateLimiter = ingestRateLimiter;
+    }
+
+    @MessageMapping("/location")
+    public void ingest(@Payload LiveLocationMessage message, SimpMessageHeaderAccessor headers) {
+        String sessionId = headers.getSessionId();
+        String receiptId = headers.getFirstNativeHeader("receipt");
+
+        Principal user = headers.getUser();
+        if (!(user instanceof StompAuthInterceptor.SurveyorPrincipal principal)) {
+            reply(sessionId, message, receiptId, LocationAck.UNAUTHORIZED, "Connect with an Authorization header to send locations");
+            return;
+        }
+        if (principal.isExpired()) {
+            reply(sessionId, message, receiptId, LocationAck.UNAUTHORIZED, "Session token expired, reconnect with a new token");
+            return;
+        }
+        if (message.getSurveyorId() == null) {
+            message.setSurveyorId(principal.getName());
+        } else if (!principal.getName().equals(message.getSurveyorId())) {
+            reply(sessionId, message, receiptId, LocationAck.UNAUTHORIZED, "Session does not belong to this surveyor");
+            return;
+        }
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(Instant.now());
+        }
+        if (ingestRateLimiter.tryAcquire(message.getSurveyorId()) > 0) {
+            reply(sessionId, message, receiptId, LocationAck.RATE_LIMITED, "Too many updates, retry later");
+            return;
+        }
+
+        try {
+            ingestDispatcher.submit(message.getSurveyorId(), () ->
+                tracingService.traceGpsOperation("location-update-stomp", message.getSurveyorId(), 1, () ->
+                    locationIngestService.process(message)))
+                .whenComplete((ack, error) -> {
+                    if (error != null) {
+                        reply(sessionId, message, receiptId, LocationAck.REJECTED, "Ingest queue full, retry later");
+                    } else if (receiptId != null || LocationAck.REJECTED.equals(ack.getStatus())) {
+                        ack.setReceiptId(receiptId);
+                        send(sessionId, ack);
+                    }
+                });
+        } catch (RejectedExecutionException e) {
+            reply(sessionId, message, receiptId, LocationAck.REJECTED, "Ingest queue full, retry later");
+        }
+    }
+
+    private void reply(String sessionId, LiveLocationMessage message, String receiptId, String status, String reason) {
+        LocationAck ack = new LocationAck(status, message.getSurveyorId(), message.getTimestamp(), receiptId, reason);
+        ack.setSequence(message.getSequence());
+        send(sessionId, ack);
+    }
+
+    private void send(String sessionId, LocationAck ack) {
+        try {
+            locationBroadcaster.sendToSession(sessionId, ACK_QUEUE, locationBroadcaster.encode(ack));
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to encode location ack: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.neogeo.tracking.controller;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.neogeo.tracking.dto.AreaSearchRequest;
+import com.neogeo.tracking.service.AreaSearchService;
+import com.neogeo.tracking.service.FleetSnapshotService;
+import com.neogeo.tracking.service.NearestSurveyorService;
+import com.neogeo.tracking.service.LowPriority;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/location")
+@Tag(name = "Location Search", description = "Spatio-temporal queries over stored location history")
+public class LocationSearchController {
+
+    private final AreaSearchService areaSearchService;
+    private final FleetSnapshotService fleetSnapshotService;
+    private final NearestSurveyorService nearestSurveyorService;
+
+    public LocationSearchController(AreaSearchService areaSearchService,
+                                    FleetSnapshotService fleetSnapshotService,
+                                    NearestSurveyorService nearestSurveyorService) {
+        this.areaSearchService = areaSearchService;
+        this.fleetSnapshotService = fleetSnapshotService;
+        this.nearestSurveyorService = nearestSurveyorService;
+    }
+
+    @Operation(summary = "Find surveyors who were inside an area",
+              description = "Takes a GeoJSON Polygon/MultiPolygon or a bbox and a time range; returns each surveyor with " +
+                            "points inside, with first and last time seen, paginated by surveyor id. " +
+                            "Low priority: may answer 503 while the server is under load.")
+    @LowPriority
+    @PostMapping("/search")
+    public ResponseEntity<?> search(@RequestBody AreaSearchRequest request) {
+        try {
+            return ResponseEntity.ok(areaSearchService.search(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (QueryTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Search took too long; narrow the area or time range"));
+        }
+    }
+
+    @Operation(summary = "Positions of all surveyors at a past instant",
+              description = "One index probe per surveyor for the last fix at or before 'at', optionally interpolated " +
+                            "towards the next fix. Low priority: may answer 503 while the server is under load.")
+    @LowPriority
+    @GetMapping("/snapshot")
+    public ResponseEntity<?> snapshot(
+            @Parameter(description = "Instant to reconstruct") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at,
+            @Parameter(description = "Interpolate between the fixes around 'at'") @RequestParam(defaultValue = "false") boolean interpolate,
+            @Parameter(description = "Ignore fixes older than this many minutes before 'at'") @RequestParam(required = false) Long maxAgeMinutes,
+            @Parameter(description = "Project to filter by") @RequestParam(required = false) String project,
+            @Parameter(description = "City to filter by") @RequestParam(required = false) String city) {
+        try {
+            return ResponseEntity.ok(fleetSnapshotService.snapshot(at, interpolate, maxAgeMinutes, project, city));
+        } catch (QueryTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Snapshot took too long; filter by project or city"));
+        }
+    }
+
+    @Operation(summary = "Closest surveyors to a point",
+              description = "Ranks latest positions by great-circle distance from memory; no database access.")
+    @GetMapping("/nearest")
+    public ResponseEntity<?> nearest(
+            @Parameter(description = "Latitude of the incident") @RequestParam double lat,
+            @Parameter(description = "Longitude of the incident") @RequestParam double lon,
+            @Parameter(description = "Number of surveyors to return") @RequestParam(defaultValue = "5") int k,
+            @Parameter(description = "Project to filter by") @RequestParam(required = false) String project,
+            @Parameter(description = "Only surveyors currently online") @RequestParam(defaultValue = "false") boolean online) {
+        try {
+            return ResponseEntity.ok(nearestSurveyorService.nearest(lat, lon, k, project, online));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
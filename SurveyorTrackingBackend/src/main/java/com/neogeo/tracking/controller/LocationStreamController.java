@@ -0,0 +1,36 @@
+package com.neogeo.tracking.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.neogeo.tracking.service.LocationEventStream;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/location")
+@Tag(name = "Location Stream", description = "Server-Sent Events feed of live positions and online status")
+public class LocationStreamController {
+
+    private final LocationEventStream locationEventStream;
+
+    public LocationStreamController(LocationEventStream locationEventStream) {
+        this.locationEventStream = locationEventStream;
+    }
+
+    @Operation(summary = "Stream live positions",
+              description = "Sends a snapshot event with every latest position and status, then delta events with changes only. " +
+                            "Reconnecting with Last-Event-ID (or ?lastEventId=) resumes without a new snapshot while the same server run still holds that range.")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                             @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return locationEventStream.open(lastEventId);
+    }
+}
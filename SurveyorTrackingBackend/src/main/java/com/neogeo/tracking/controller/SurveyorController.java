@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.service.SessionTokenService;
 import com.neogeo.tracking.service.SurveyorService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,10 +24,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Surveyor Management", description = "APIs for managing surveyors and authentication")
 public class SurveyorController {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final SurveyorService surveyorService;
+    private final SessionTokenService sessionTokenService;
 
-    public SurveyorController(SurveyorService surveyorService) {
+    public SurveyorController(SurveyorService surveyorService, SessionTokenService sessionTokenService) {
         this.surveyorService = surveyorService;
+        this.sessionTokenService = sessionTokenService;
     }
 
     @Operation(summary = "Get all surveyors", description = "Retrieves a list of all registered surveyors with online status")
@@ -73,9 +78,61 @@ public class SurveyorController {
             credentials.get("password")
         );
         
+        if (Boolean.TRUE.equals(response.get("authenticated"))) {
+            Surveyor surveyor = (Surveyor) response.get("surveyor");
+            putToken(response, sessionTokenService.issue(surveyor.getId()));
+        }
+        
         return ResponseEntity.status((int) response.get("status"))
                .body(response);
     }
+
+    @Operation(summary = "Refresh session token", 
+              description = "Exchanges a valid Bearer token for a new one; the presented token is revoked")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "New token issued"),
+        @ApiResponse(responseCode = "401", description = "Token missing, invalid, expired or revoked")
+    })
+    @PostMapping("/token/refresh")
+    public ResponseEntity<Map<String, Object>> refreshToken(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        SessionTokenService.IssuedToken refreshed = sessionTokenService.refresh(bearerToken(authHeader));
+        if (refreshed == null) {
+            return ResponseEntity.status(401).body(Map.of("status", 401, "message", "Invalid or expired token"));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", 200);
+        putToken(response, refreshed);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Log out", 
+              description = "Revokes the presented Bearer token")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Token revoked"),
+        @ApiResponse(responseCode = "401", description = "Token missing, invalid, expired or revoked")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        return sessionTokenService.revoke(bearerToken(authHeader))
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.status(401).build();
+    }
+
+    private static String bearerToken(String authHeader) {
+        return authHeader != null && authHeader.startsWith(BEARER_PREFIX)
+            ? authHeader.substring(BEARER_PREFIX.length()).trim()
+            : null;
+    }
+
+    private static void putToken(Map<String, Object> response, SessionTokenService.IssuedToken issued) {
+        response.put("token", issued.getToken());
+        response.put("tokenType", "Bearer");
+        response.put("expiresAt", issued.getExpiresAt().toString());
+    }
     
     @Operation(summary = "Check username availability", 
               description = "Checks if a username is available for registration")
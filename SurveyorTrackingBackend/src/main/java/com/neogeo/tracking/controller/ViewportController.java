@@ -0,0 +1,38 @@
+package com.neogeo.tracking.controller;
+
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+import com.neogeo.tracking.dto.ViewportRequest;
+import com.neogeo.tracking.service.ViewportSubscriptionRegistry;
+
+/**
+ * STOMP endpoints for viewport-filtered live updates.
+ * Clients subscribe to {@code /user/queue/viewport} and send their map bounds to
+ * {@code /app/viewport}; positions inside the bounds are then delivered to that session only.
+ */
+@Controller
+public class ViewportController {
+
+    public static final String VIEWPORT_QUEUE = "/queue/viewport";
+
+    private final ViewportSubscriptionRegistry viewportRegistry;
+
+    public ViewportController(ViewportSubscriptionRegistry viewportRegistry) {
+        this.viewportRegistry = viewportRegistry;
+    }
+
+    @MessageMapping("/viewport")
+    public void updateViewport(@Payload ViewportRequest viewport,
+                               @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        viewportRegistry.register(sessionId, viewport);
+    }
+
+    @MessageMapping("/viewport/clear")
+    public void clearViewport(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        viewportRegistry.unregister(sessionId);
+    }
+}
@@ -0,0 +1,36 @@
+package com.neogeo.tracking.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.neogeo.tracking.service.WebSocketSessionMonitor;
+
+/**
+ * Actuator endpoint ({@code /internal/websocketsessions}) listing per-session send buffer
+ * queue depth, send latency and dropped frames, deepest queues first.
+ */
+@Component
+@Endpoint(id = "websocketsessions")
+public class WebSocketSessionsEndpoint {
+
+    private final WebSocketSessionMonitor sessionMonitor;
+
+    public WebSocketSessionsEndpoint(WebSocketSessionMonitor sessionMonitor) {
+        this.sessionMonitor = sessionMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> sessions() {
+        List<Map<String, Object>> sessions = sessionMonitor.sessionSnapshot();
+        return Map.of(
+            "overflowPolicy", sessionMonitor.getOverflowPolicy().name(),
+            "sessionQueueLimit", sessionMonitor.getSessionQueueLimit(),
+            "sessionCount", sessions.size(),
+            "sessions", sessions
+        );
+    }
+}
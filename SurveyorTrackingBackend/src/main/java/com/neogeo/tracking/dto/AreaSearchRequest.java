@@ -0,0 +1,73 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Body of {@code POST /api/location/search}. The area is either a GeoJSON {@code Polygon} or
+ * {@code MultiPolygon} (bare or inside a {@code Feature}) in {@code area}, or a
+ * {@code bbox} of {@code [minLongitude, minLatitude, maxLongitude, maxLatitude]}.
+ * {@code after} is the {@code nextAfter} of the previous page.
+ */
+public class AreaSearchRequest {
+    private JsonNode area;
+    private List<Double> bbox;
+    private Instant start;
+    private Instant end;
+    private Integer limit;
+    private String after;
+
+    public AreaSearchRequest() {
+    }
+
+    // Getters and Setters
+    public JsonNode getArea() {
+        return area;
+    }
+
+    public void setArea(JsonNode area) {
+        this.area = area;
+    }
+
+    public List<Double> getBbox() {
+        return bbox;
+    }
+
+    public void setBbox(List<Double> bbox) {
+        this.bbox = bbox;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public void setStart(Instant start) {
+        this.start = start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    public void setEnd(Instant end) {
+        this.end = end;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+}
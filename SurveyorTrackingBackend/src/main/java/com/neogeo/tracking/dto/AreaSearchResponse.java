@@ -0,0 +1,98 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Surveyors with at least one point inside the searched area and time range, ordered by id.
+ * {@code firstSeen} and {@code lastSeen} are the first and last recorded points inside the area.
+ * When {@code hasMore} is set, send {@code nextAfter} back as {@code after} for the next page.
+ */
+public class AreaSearchResponse {
+    private List<Visit> surveyors;
+    private String nextAfter;
+    private boolean hasMore;
+
+    public AreaSearchResponse() {
+    }
+
+    public AreaSearchResponse(List<Visit> surveyors, String nextAfter, boolean hasMore) {
+        this.surveyors = surveyors;
+        this.nextAfter = nextAfter;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<Visit> getSurveyors() {
+        return surveyors;
+    }
+
+    public void setSurveyors(List<Visit> surveyors) {
+        this.surveyors = surveyors;
+    }
+
+    public String getNextAfter() {
+        return nextAfter;
+    }
+
+    public void setNextAfter(String nextAfter) {
+        this.nextAfter = nextAfter;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public static class Visit {
+        private String surveyorId;
+        private Instant firstSeen;
+        private Instant lastSeen;
+        private long points;
+
+        public Visit() {
+        }
+
+        public Visit(String surveyorId, Instant firstSeen, Instant lastSeen, long points) {
+            this.surveyorId = surveyorId;
+            this.firstSeen = firstSeen;
+            this.lastSeen = lastSeen;
+            this.points = points;
+        }
+
+        public String getSurveyorId() {
+            return surveyorId;
+        }
+
+        public void setSurveyorId(String surveyorId) {
+            this.surveyorId = surveyorId;
+        }
+
+        public Instant getFirstSeen() {
+            return firstSeen;
+        }
+
+        public void setFirstSeen(Instant firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+
+        public Instant getLastSeen() {
+            return lastSeen;
+        }
+
+        public void setLastSeen(Instant lastSeen) {
+            this.lastSeen = lastSeen;
+        }
+
+        public long getPoints() {
+            return points;
+        }
+
+        public void setPoints(long points) {
+            this.points = points;
+        }
+    }
+}
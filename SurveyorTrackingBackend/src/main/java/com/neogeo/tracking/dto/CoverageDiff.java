@@ -0,0 +1,77 @@
+package com.neogeo.tracking.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Cell counts comparing a project's coverage on {@code day} with {@code base}:
+ * cells first covered on {@code day}, cells covered on both, and cells only covered on {@code base}.
+ */
+public class CoverageDiff {
+    private String project;
+    private LocalDate day;
+    private LocalDate base;
+    private long newCells;
+    private long repeatedCells;
+    private long baseOnlyCells;
+
+    public CoverageDiff() {
+    }
+
+    public CoverageDiff(String project, LocalDate day, LocalDate base, long newCells, long repeatedCells, long baseOnlyCells) {
+        this.project = project;
+        this.day = day;
+        this.base = base;
+        this.newCells = newCells;
+        this.repeatedCells = repeatedCells;
+        this.baseOnlyCells = baseOnlyCells;
+    }
+
+    // Getters and Setters
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public LocalDate getBase() {
+        return base;
+    }
+
+    public void setBase(LocalDate base) {
+        this.base = base;
+    }
+
+    public long getNewCells() {
+        return newCells;
+    }
+
+    public void setNewCells(long newCells) {
+        this.newCells = newCells;
+    }
+
+    public long getRepeatedCells() {
+        return repeatedCells;
+    }
+
+    public void setRepeatedCells(long repeatedCells) {
+        this.repeatedCells = repeatedCells;
+    }
+
+    public long getBaseOnlyCells() {
+        return baseOnlyCells;
+    }
+
+    public void setBaseOnlyCells(long baseOnlyCells) {
+        this.baseOnlyCells = baseOnlyCells;
+    }
+}
@@ -0,0 +1,99 @@
+package com.neogeo.tracking.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Grid cells of a project covered on the days {@code from}..{@code to}. The area figures are
+ * null until a project area has been set; {@code percent} is then the share of area cells
+ * with at least one point.
+ */
+public class CoverageSummary {
+    private String project;
+    private LocalDate from;
+    private LocalDate to;
+    private double cellDegrees;
+    private long coveredCells;
+    private Long areaCells;
+    private Long coveredAreaCells;
+    private Double percent;
+
+    public CoverageSummary() {
+    }
+
+    public CoverageSummary(String project, LocalDate from, LocalDate to, double cellDegrees, long coveredCells,
+                           Long areaCells, Long coveredAreaCells, Double percent) {
+        this.project = project;
+        this.from = from;
+        this.to = to;
+        this.cellDegrees = cellDegrees;
+        this.coveredCells = coveredCells;
+        this.areaCells = areaCells;
+        this.coveredAreaCells = coveredAreaCells;
+        this.percent = percent;
+    }
+
+    // Getters and Setters
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    public void setCellDegrees(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public long getCoveredCells() {
+        return coveredCells;
+    }
+
+    public void setCoveredCells(long coveredCells) {
+        this.coveredCells = coveredCells;
+    }
+
+    public Long getAreaCells() {
+        return areaCells;
+    }
+
+    public void setAreaCells(Long areaCells) {
+        this.areaCells = areaCells;
+    }
+
+    public Long getCoveredAreaCells() {
+        return coveredAreaCells;
+    }
+
+    public void setCoveredAreaCells(Long coveredAreaCells) {
+        this.coveredAreaCells = coveredAreaCells;
+    }
+
+    public Double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(Double percent) {
+        this.percent = percent;
+    }
+}
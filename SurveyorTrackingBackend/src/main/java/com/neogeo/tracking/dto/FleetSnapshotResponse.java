@@ -0,0 +1,99 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Position of every matching surveyor at one instant. Each position is the last fix at or
+ * before {@code at}, or, when interpolation was requested and a later fix follows closely,
+ * a point on the straight line between the two ({@code interpolated = true}).
+ * {@code fixTimestamp} is the time of the fix at or before {@code at}.
+ */
+public class FleetSnapshotResponse {
+    private Instant at;
+    private List<Position> surveyors;
+
+    public FleetSnapshotResponse() {
+    }
+
+    public FleetSnapshotResponse(Instant at, List<Position> surveyors) {
+        this.at = at;
+        this.surveyors = surveyors;
+    }
+
+    // Getters and Setters
+    public Instant getAt() {
+        return at;
+    }
+
+    public void setAt(Instant at) {
+        this.at = at;
+    }
+
+    public List<Position> getSurveyors() {
+        return surveyors;
+    }
+
+    public void setSurveyors(List<Position> surveyors) {
+        this.surveyors = surveyors;
+    }
+
+    public static class Position {
+        private String surveyorId;
+        private double latitude;
+        private double longitude;
+        private Instant fixTimestamp;
+        private boolean interpolated;
+
+        public Position() {
+        }
+
+        public Position(String surveyorId, double latitude, double longitude, Instant fixTimestamp, boolean interpolated) {
+            this.surveyorId = surveyorId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.fixTimestamp = fixTimestamp;
+            this.interpolated = interpolated;
+        }
+
+        public String getSurveyorId() {
+            return surveyorId;
+        }
+
+        public void setSurveyorId(String surveyorId) {
+            this.surveyorId = surveyorId;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public void setLatitude(double latitude) {
+            this.latitude = latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public void setLongitude(double longitude) {
+            this.longitude = longitude;
+        }
+
+        public Instant getFixTimestamp() {
+            return fixTimestamp;
+        }
+
+        public void setFixTimestamp(Instant fixTimestamp) {
+            this.fixTimestamp = fixTimestamp;
+        }
+
+        public boolean isInterpolated() {
+            return interpolated;
+        }
+
+        public void setInterpolated(boolean interpolated) {
+            this.interpolated = interpolated;
+        }
+    }
+}
@@ -3,11 +3,19 @@ package com.neogeo.tracking.dto;
 import java.time.Instant;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Optional device fields are left out of broadcast frames when absent
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class LiveLocationMessage {
     private String surveyorId;
     private double latitude;
     private double longitude;
     private Instant timestamp;
+    // Horizontal accuracy reported by the device, in metres (optional)
+    private Double accuracy;
+    // Per-device increasing sequence number, used to drop retried duplicates (optional)
+    private Long sequence;
 
     public LiveLocationMessage() {
     }
@@ -52,6 +60,22 @@ public class LiveLocationMessage {
         this.timestamp = timestamp;
     }
 
+    public Double getAccuracy() {
+        return accuracy;
+    }
+
+    public void setAccuracy(Double accuracy) {
+        this.accuracy = accuracy;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
     @Override
     public String toString() {
         return "LiveLocationMessage{" +
@@ -59,6 +83,8 @@ public class LiveLocationMessage {
                 ", latitude=" + latitude +
                 ", longitude=" + longitude +
                 ", timestamp=" + timestamp +
+                ", accuracy=" + accuracy +
+                ", sequence=" + sequence +
                 '}';
     }
 
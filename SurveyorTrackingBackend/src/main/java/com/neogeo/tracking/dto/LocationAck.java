@@ -0,0 +1,117 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a live location, returned by {@code POST /api/live/location} and delivered on
+ * {@code /user/queue/location-ack} for {@code /app/location}. {@code receiptId} echoes the
+ * STOMP {@code receipt} header of the SEND frame; {@code message} explains a rejection.
+ * {@code durableSequence} is the highest device sequence the client may drop from its buffer.
+ * {@code recommendedIntervalMs} and {@code minDisplacementM} tell the device how often and
+ * after how much movement to report next.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LocationAck {
+
+    public static final String ACCEPTED = "accepted";
+    public static final String DUPLICATE = "duplicate";
+    public static final String REJECTED = "rejected";
+    public static final String RATE_LIMITED = "rate_limited";
+    public static final String UNAUTHORIZED = "unauthorized";
+
+    private String status;
+    private String surveyorId;
+    private Instant timestamp;
+    private Long sequence;
+    private Long durableSequence;
+    private Long recommendedIntervalMs;
+    private Double minDisplacementM;
+    private String receiptId;
+    private String message;
+
+    public LocationAck() {
+    }
+
+    public LocationAck(String status, String surveyorId, Instant timestamp, String receiptId, String message) {
+        this.status = status;
+        this.surveyorId = surveyorId;
+        this.timestamp = timestamp;
+        this.receiptId = receiptId;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getSurveyorId() {
+        return surveyorId;
+    }
+
+    public void setSurveyorId(String surveyorId) {
+        this.surveyorId = surveyorId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public void setDurableSequence(Long durableSequence) {
+        this.durableSequence = durableSequence;
+    }
+
+    public Long getRecommendedIntervalMs() {
+        return recommendedIntervalMs;
+    }
+
+    public void setRecommendedIntervalMs(Long recommendedIntervalMs) {
+        this.recommendedIntervalMs = recommendedIntervalMs;
+    }
+
+    public Double getMinDisplacementM() {
+        return minDisplacementM;
+    }
+
+    public void setMinDisplacementM(Double minDisplacementM) {
+        this.minDisplacementM = minDisplacementM;
+    }
+
+    public String getReceiptId() {
+        return receiptId;
+    }
+
+    public void setReceiptId(String receiptId) {
+        this.receiptId = receiptId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,46 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Coalesced frame sent on the fleet-wide location topics.
+ * Carries the latest position of every surveyor that moved since the previous frame.
+ */
+public class LocationBatchMessage {
+    private Instant generatedAt;
+    private List<LiveLocationMessage> locations;
+
+    public LocationBatchMessage() {
+    }
+
+    public LocationBatchMessage(Instant generatedAt, List<LiveLocationMessage> locations) {
+        this.generatedAt = generatedAt;
+        this.locations = locations;
+    }
+
+    // Getters and Setters
+    public Instant getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(Instant generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public List<LiveLocationMessage> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<LiveLocationMessage> locations) {
+        this.locations = locations;
+    }
+
+    @Override
+    public String toString() {
+        return "LocationBatchMessage{" +
+                "generatedAt=" + generatedAt +
+                ", locations=" + (locations != null ? locations.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.neogeo.tracking.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Payload of a {@code snapshot} or {@code delta} event on the Server-Sent Events feed.
+ * Positions and statuses are coalesced, so each surveyor appears at most once per frame.
+ * {@code sequence} is the change-log position the frame is current up to; the SSE event id is
+ * {@code <epoch>-<sequence>}.
+ */
+public class LocationStreamFrame {
+    private long sequence;
+    private List<LiveLocationMessage> locations;
+    private Map<String, String> statuses;
+
+    public LocationStreamFrame() {
+    }
+
+    public LocationStreamFrame(long sequence, List<LiveLocationMessage> locations, Map<String, String> statuses) {
+        this.sequence = sequence;
+        this.locations = locations;
+        this.statuses = statuses;
+    }
+
+    // Getters and Setters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public List<LiveLocationMessage> getLocations() {
+        return locations;
+    }
+
+    public void setLocations(List<LiveLocationMessage> locations) {
+        this.locations = locations;
+    }
+
+    public Map<String, String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(Map<String, String> statuses) {
+        this.statuses = statuses;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return (locations == null || locations.isEmpty()) && (statuses == null || statuses.isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+
+/**
+ * One result of {@code GET /api/location/nearest}: a surveyor's latest position and its
+ * great-circle distance from the query point.
+ */
+public class NearbySurveyor {
+    private String surveyorId;
+    private double latitude;
+    private double longitude;
+    private Instant timestamp;
+    private double distanceMeters;
+    private boolean online;
+    private String projectName;
+
+    public NearbySurveyor() {
+    }
+
+    public NearbySurveyor(String surveyorId, double latitude, double longitude, Instant timestamp,
+                          double distanceMeters, boolean online, String projectName) {
+        this.surveyorId = surveyorId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.timestamp = timestamp;
+        this.distanceMeters = distanceMeters;
+        this.online = online;
+        this.projectName = projectName;
+    }
+
+    // Getters and Setters
+    public String getSurveyorId() {
+        return surveyorId;
+    }
+
+    public void setSurveyorId(String surveyorId) {
+        this.surveyorId = surveyorId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+}
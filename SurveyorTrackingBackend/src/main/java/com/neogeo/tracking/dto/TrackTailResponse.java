@@ -0,0 +1,61 @@
+package com.neogeo.tracking.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.neogeo.tracking.model.LocationTrack;
+
+/**
+ * Points recorded after a cursor, in (timestamp, id) order.
+ * Pass {@code cursorTimestamp} and {@code cursorId} back as {@code after} and
+ * {@code afterId} to fetch the next points; when nothing is new they echo the request.
+ */
+public class TrackTailResponse {
+    private List<LocationTrack> points;
+    private Instant cursorTimestamp;
+    private Long cursorId;
+    private boolean hasMore;
+
+    public TrackTailResponse() {
+    }
+
+    public TrackTailResponse(List<LocationTrack> points, Instant cursorTimestamp, Long cursorId, boolean hasMore) {
+        this.points = points;
+        this.cursorTimestamp = cursorTimestamp;
+        this.cursorId = cursorId;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<LocationTrack> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<LocationTrack> points) {
+        this.points = points;
+    }
+
+    public Instant getCursorTimestamp() {
+        return cursorTimestamp;
+    }
+
+    public void setCursorTimestamp(Instant cursorTimestamp) {
+        this.cursorTimestamp = cursorTimestamp;
+    }
+
+    public Long getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(Long cursorId) {
+        this.cursorId = cursorId;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,71 @@
+package com.neogeo.tracking.dto;
+
+/**
+ * Bounding box sent by a dashboard to {@code /app/viewport} whenever the map is panned or zoomed.
+ * A box with {@code minLongitude > maxLongitude} crosses the antimeridian.
+ */
+public class ViewportRequest {
+    private double minLatitude;
+    private double minLongitude;
+    private double maxLatitude;
+    private double maxLongitude;
+
+    public ViewportRequest() {
+    }
+
+    public ViewportRequest(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    // Getters and Setters
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public void setMinLatitude(double minLatitude) {
+        this.minLatitude = minLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public void setMinLongitude(double minLongitude) {
+        this.minLongitude = minLongitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public void setMaxLatitude(double maxLatitude) {
+        this.maxLatitude = maxLatitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    public void setMaxLongitude(double maxLongitude) {
+        this.maxLongitude = maxLongitude;
+    }
+
+    public boolean isValid() {
+        return minLatitude >= -90 && maxLatitude <= 90 && minLatitude <= maxLatitude &&
+               minLongitude >= -180 && minLongitude <= 180 &&
+               maxLongitude >= -180 && maxLongitude <= 180;
+    }
+
+    @Override
+    public String toString() {
+        return "ViewportRequest{" +
+                "minLatitude=" + minLatitude +
+                ", minLongitude=" + minLongitude +
+                ", maxLatitude=" + maxLatitude +
+                ", maxLongitude=" + maxLongitude +
+                '}';
+    }
+}
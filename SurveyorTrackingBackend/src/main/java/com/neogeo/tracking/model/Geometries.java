@@ -0,0 +1,102 @@
+package com.neogeo.tracking.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Shared JTS factory for WGS84 geometries. {@link GeometryFactory} is immutable, so one
+ * instance serves every ingest lane; geometries it creates carry SRID 4326 and match the
+ * {@code geometry(Point, 4326)} column of {@code location_track}.
+ */
+public final class Geometries {
+
+    public static final int WGS84_SRID = 4326;
+
+    public static final GeometryFactory WGS84 = new GeometryFactory(new PrecisionModel(), WGS84_SRID);
+
+    private Geometries() {
+    }
+
+    /**
+     * Point for a GPS position; JTS coordinates are (x, y), i.e. (longitude, latitude).
+     */
+    public static Point point(double latitude, double longitude) {
+        return WGS84.createPoint(new Coordinate(longitude, latitude));
+    }
+
+    /**
+     * Reads a GeoJSON {@code Polygon} or {@code MultiPolygon}, bare or inside a {@code Feature}.
+     * @throws IllegalArgumentException if it is another type, malformed, invalid or has more than {@code maxVertices} positions
+     */
+    public static Geometry fromGeoJson(JsonNode node, int maxVertices) {
+        Geometry area = parseGeoJson(node, maxVertices);
+        if (area.getNumPoints() > maxVertices) {
+            throw new IllegalArgumentException("Area is limited to " + maxVertices + " vertices");
+        }
+        if (!area.isValid()) {
+            throw new IllegalArgumentException("Area polygon is not valid (self-intersecting or badly nested rings)");
+        }
+        return area;
+    }
+
+    private static Geometry parseGeoJson(JsonNode node, int maxVertices) {
+        String type = node.path("type").asText();
+        switch (type) {
+            case "Feature":
+                return parseGeoJson(node.path("geometry"), maxVertices);
+            case "Polygon":
+                return polygon(node.path("coordinates"), maxVertices);
+            case "MultiPolygon":
+                List<Polygon> polygons = new ArrayList<>();
+                for (JsonNode coordinates : node.path("coordinates")) {
+                    polygons.add(polygon(coordinates, maxVertices));
+                }
+                if (polygons.isEmpty()) {
+                    throw new IllegalArgumentException("MultiPolygon has no polygons");
+                }
+                return WGS84.createMultiPolygon(polygons.toArray(new Polygon[0]));
+            default:
+                throw new IllegalArgumentException("Area must be a GeoJSON Polygon, MultiPolygon or Feature, not '" + type + "'");
+        }
+    }
+
+    private static Polygon polygon(JsonNode rings, int maxVertices) {
+        if (!rings.isArray() || rings.isEmpty()) {
+            throw new IllegalArgumentException("Polygon has no rings");
+        }
+        LinearRing shell = ring(rings.get(0), maxVertices);
+        LinearRing[] holes = new LinearRing[rings.size() - 1];
+        for (int i = 1; i < rings.size(); i++) {
+            holes[i - 1] = ring(rings.get(i), maxVertices);
+        }
+        return WGS84.createPolygon(shell, holes);
+    }
+
+    private static LinearRing ring(JsonNode positions, int maxVertices) {
+        if (!positions.isArray() || positions.size() < 4 || positions.size() > maxVertices) {
+            throw new IllegalArgumentException("A polygon ring needs between 4 and " + maxVertices + " positions");
+        }
+        Coordinate[] coordinates = new Coordinate[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            JsonNode position = positions.get(i);
+            if (!position.isArray() || position.size() < 2 || !position.get(0).isNumber() || !position.get(1).isNumber()) {
+                throw new IllegalArgumentException("Positions must be [longitude, latitude]");
+            }
+            coordinates[i] = new Coordinate(position.get(0).asDouble(), position.get(1).asDouble());
+        }
+        if (!coordinates[0].equals2D(coordinates[coordinates.length - 1])) {
+            throw new IllegalArgumentException("Polygon rings must be closed");
+        }
+        return WGS84.createLinearRing(coordinates);
+    }
+}
@@ -1,6 +1,8 @@
 
 package com.neogeo.tracking.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import org.locationtech.jts.geom.Point;
 import java.time.Instant;
@@ -25,9 +27,15 @@ public class LocationTrack {
     @Column(nullable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
     private Instant timestamp;
 
+    // Set on ingest from latitude/longitude (SRID 4326); API clients use the plain coordinates
+    @JsonIgnore
     @Column(columnDefinition = "geometry(Point, 4326)")
     private Point geom;
 
+    // Sequence number sent by the device; unique per surveyor when present (V3 and V4 migrations)
+    @Column(name = "device_sequence")
+    private Long deviceSequence;
+
     // Constructors
     public LocationTrack() {}
 
@@ -44,6 +52,10 @@ public class LocationTrack {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getSurveyorId() {
         return surveyorId;
     }
@@ -83,4 +95,12 @@ public class LocationTrack {
     public void setGeom(Point geom) {
         this.geom = geom;
     }
+
+    public Long getDeviceSequence() {
+        return deviceSequence;
+    }
+
+    public void setDeviceSequence(Long deviceSequence) {
+        this.deviceSequence = deviceSequence;
+    }
 }
\ No newline at end of file
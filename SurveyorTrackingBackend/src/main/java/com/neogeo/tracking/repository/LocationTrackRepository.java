@@ -28,6 +28,9 @@ public interface LocationTrackRepository extends JpaRepository<LocationTrack, Lo
     List<LocationTrack> findBySurveyorIdAndTimestampAfterOrderByTimestampAsc(
         String surveyorId, Instant start);  // Changed parameter type
     
+    // Every surveyor's points after a date, used to seed the recent-track buffer
+    List<LocationTrack> findByTimestampAfterOrderByTimestampAsc(Instant start);
+    
     // Find locations before a specific date (changed to Instant)
     List<LocationTrack> findBySurveyorIdAndTimestampBeforeOrderByTimestampAsc(
         String surveyorId, Instant end);  // Changed parameter type
@@ -46,6 +49,21 @@ public interface LocationTrackRepository extends JpaRepository<LocationTrack, Lo
     @Query("SELECT COUNT(lt) FROM LocationTrack lt WHERE lt.surveyorId = :surveyorId")
     long countBySurveyorId(@Param("surveyorId") String surveyorId);
     
+    // Latest point of every surveyor in one pass, used to warm the in-memory latest-position store
+    @Query(value = "SELECT DISTINCT ON (surveyor_id) * FROM location_track " +
+                   "ORDER BY surveyor_id, timestamp DESC", nativeQuery = true)
+    List<LocationTrack> findLatestForEachSurveyor();
+    
+    // Keyset page of points after a (timestamp, id) cursor; served by idx_location_track_surveyor_timestamp_id
+    @Query(value = "SELECT * FROM location_track WHERE surveyor_id = :surveyorId " +
+                   "AND (timestamp, id) > (:afterTimestamp, :afterId) " +
+                   "ORDER BY timestamp ASC, id ASC LIMIT :limit", nativeQuery = true)
+    List<LocationTrack> findTail(
+        @Param("surveyorId") String surveyorId,
+        @Param("afterTimestamp") Instant afterTimestamp,
+        @Param("afterId") long afterId,
+        @Param("limit") int limit);
+    
     // Find all surveyor IDs (unchanged)
     @Query("SELECT DISTINCT lt.surveyorId FROM LocationTrack lt")
     List<String> findAllSurveyorIds();
@@ -0,0 +1,135 @@
+package com.neogeo.tracking.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Global admission control. Every {@code tracking.admission.sample-ms} the gate checks
+ * <ul>
+ *   <li>threads waiting for a database connection ({@code hikaricp.connections.pending})</li>
+ *   <li>the mean connection wait since the previous sample ({@code hikaricp.connections.acquire})</li>
+ *   <li>the fullest ingest lane queue</li>
+ * </ul>
+ * While any of them is over its threshold, handlers marked {@link LowPriority} are answered
+ * with 503 and {@code Retry-After} before they touch the database, leaving connections and
+ * threads to live ingest. Ingest itself is only refused by its own lane, bus and rate limits.
+ * Requests only read a volatile flag; the sampling runs on the scheduler.
+ */
+@Service
+public class AdmissionGate implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final IngestDispatcher ingestDispatcher;
+    private final boolean enabled;
+    private final double maxPendingConnections;
+    private final double maxAcquireMs;
+    private final double maxLaneFill;
+    private final int retryAfterSeconds;
+    private final Counter shedCounter;
+
+    private volatile boolean overloaded;
+    private volatile String reason = "";
+    private long lastAcquireCount;
+    private double lastAcquireMs;
+
+    public AdmissionGate(MeterRegistry meterRegistry,
+                         IngestDispatcher ingestDispatcher,
+                         @Value("${tracking.admission.enabled:true}") boolean enabled,
+                         @Value("${tracking.admission.max-pending-connections:5}") double maxPendingConnections,
+                         @Value("${tracking.admission.max-acquire-ms:100}") double maxAcquireMs,
+                         @Value("${tracking.admission.max-lane-fill:0.5}") double maxLaneFill,
+                         @Value("${tracking.admission.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.ingestDispatcher = ingestDispatcher;
+        this.enabled = enabled;
+        this.maxPendingConnections = maxPendingConnections;
+        this.maxAcquireMs = maxAcquireMs;
+        this.maxLaneFill = maxLaneFill;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.shedCounter = Counter.builder("tracking.admission.shed")
+            .description("Low-priority requests refused while the server was under pressure")
+            .register(meterRegistry);
+        Gauge.builder("tracking.admission.overloaded", this, gate -> gate.overloaded ? 1 : 0)
+            .description("1 while low-priority requests are being shed")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        if (!overloaded || !(handler instanceof HandlerMethod method) || !method.hasMethodAnnotation(LowPriority.class)) {
+            return true;
+        }
+        shedCounter.increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Server busy (" + reason + "), retry later");
+        return false;
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.admission.sample-ms:500}")
+    public void sample() {
+        if (!enabled) {
+            return;
+        }
+        String cause = null;
+
+        double pending = 0;
+        for (Gauge gauge : meterRegistry.find("hikaricp.connections.pending").gauges()) {
+            pending += gauge.value();
+        }
+        if (pending > maxPendingConnections) {
+            cause = "database pool";
+        }
+
+        long acquireCount = 0;
+        double acquireMs = 0;
+        for (Timer timer : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            acquireCount += timer.count();
+            acquireMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        long acquired = acquireCount - lastAcquireCount;
+        if (acquired > 0 && (acquireMs - lastAcquireMs) / acquired > maxAcquireMs) {
+            cause = "database wait";
+        }
+        lastAcquireCount = acquireCount;
+        lastAcquireMs = acquireMs;
+
+        if (ingestDispatcher.maxQueueFill() > maxLaneFill) {
+            cause = "ingest backlog";
+        }
+
+        boolean wasOverloaded = overloaded;
+        if (cause != null) {
+            reason = cause;
+        }
+        overloaded = cause != null;
+        if (overloaded != wasOverloaded) {
+            System.out.println(overloaded
+                ? "Admission control: shedding low-priority requests (" + cause + ")"
+                : "Admission control: load back to normal");
+        }
+    }
+}
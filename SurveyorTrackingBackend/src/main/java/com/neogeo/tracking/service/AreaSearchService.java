@@ -0,0 +1,131 @@
+package com.neogeo.tracking.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.dto.AreaSearchRequest;
+import com.neogeo.tracking.dto.AreaSearchResponse;
+import com.neogeo.tracking.model.Geometries;
+
+/**
+ * "Which surveyors were inside this area between these times?"
+ * <p>
+ * One grouped query over {@code location_track}: the spatial predicate is served by the GiST
+ * index on {@code geom} (V5) and the time predicate by the BRIN index on {@code timestamp} (V7),
+ * which PostgreSQL can combine in a bitmap scan. Pages are keyed on surveyor id. Every search runs
+ * in a read-only transaction with {@code statement_timeout}, and the time range and polygon size
+ * are capped, so a careless request cannot tie up a connection for minutes.
+ */
+@Service
+public class AreaSearchService {
+
+    private static final String SEARCH =
+        "SELECT surveyor_id, min(timestamp) AS first_seen, max(timestamp) AS last_seen, count(*) AS points " +
+        "FROM location_track " +
+        "WHERE timestamp >= ? AND timestamp <= ? " +
+        "AND ST_Intersects(geom, ST_GeomFromText(?, " + Geometries.WGS84_SRID + ")) " +
+        "AND surveyor_id > ? " +
+        "GROUP BY surveyor_id ORDER BY surveyor_id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long statementTimeoutMs;
+    private final Duration maxRange;
+    private final int maxVertices;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public AreaSearchService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${tracking.search.statement-timeout-ms:5000}") long statementTimeoutMs,
+                             @Value("${tracking.search.max-range-hours:744}") long maxRangeHours,
+                             @Value("${tracking.search.max-vertices:5000}") int maxVertices,
+                             @Value("${tracking.search.default-limit:100}") int defaultLimit,
+                             @Value("${tracking.search.max-limit:1000}") int maxLimit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.statementTimeoutMs = statementTimeoutMs;
+        this.maxRange = Duration.ofHours(maxRangeHours);
+        this.maxVertices = maxVertices;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the area or time range is missing or invalid
+     * @throws org.springframework.dao.QueryTimeoutException if the query exceeds the statement timeout
+     *         (translated from PostgreSQL's SQLState 57014 by {@link StatementTimeouts})
+     */
+    public AreaSearchResponse search(AreaSearchRequest request) {
+        Instant start = request.getStart();
+        Instant end = request.getEnd();
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("start and end are required");
+        }
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Start time must be before end time");
+        }
+        if (Duration.between(start, end).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException("Time range is limited to " + maxRange.toHours() + " hours");
+        }
+        Geometry area = parseArea(request);
+        int pageSize = Math.max(1, Math.min(request.getLimit() != null ? request.getLimit() : defaultLimit, maxLimit));
+        String after = request.getAfter() != null ? request.getAfter() : "";
+
+        // One extra row tells whether another page follows
+        List<AreaSearchResponse.Visit> visits;
+        try {
+            visits = readOnlyTransaction.execute(tx -> {
+                jdbcTemplate.execute("SET LOCAL statement_timeout = " + statementTimeoutMs);
+                return jdbcTemplate.query(SEARCH, (rs, row) -> new AreaSearchResponse.Visit(
+                        rs.getString("surveyor_id"),
+                        rs.getTimestamp("first_seen").toInstant(),
+                        rs.getTimestamp("last_seen").toInstant(),
+                        rs.getLong("points")),
+                    Timestamp.from(start), Timestamp.from(end), area.toText(), after, pageSize + 1);
+            });
+        } catch (DataAccessException e) {
+            throw StatementTimeouts.translate(e);
+        }
+        if (visits == null) {
+            visits = List.of();
+        }
+
+        boolean hasMore = visits.size() > pageSize;
+        if (hasMore) {
+            visits = visits.subList(0, pageSize);
+        }
+        String nextAfter = hasMore ? visits.get(visits.size() - 1).getSurveyorId() : null;
+        return new AreaSearchResponse(visits, nextAfter, hasMore);
+    }
+
+    private Geometry parseArea(AreaSearchRequest request) {
+        if (request.getArea() != null && !request.getArea().isNull()) {
+            return Geometries.fromGeoJson(request.getArea(), maxVertices);
+        }
+        List<Double> bbox = request.getBbox();
+        if (bbox != null && bbox.size() == 4 && !bbox.contains(null)) {
+            double minLon = bbox.get(0);
+            double minLat = bbox.get(1);
+            double maxLon = bbox.get(2);
+            double maxLat = bbox.get(3);
+            if (minLon > maxLon || minLat > maxLat) {
+                throw new IllegalArgumentException("bbox must be [minLongitude, minLatitude, maxLongitude, maxLatitude]");
+            }
+            return Geometries.WGS84.toGeometry(new Envelope(minLon, maxLon, minLat, maxLat));
+        }
+        throw new IllegalArgumentException("Either a GeoJSON area or a 4-number bbox is required");
+    }
+}
@@ -0,0 +1,355 @@
+package com.neogeo.tracking.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+/**
+ * Native WebSocket handler for the opt-in binary location protocol on {@code /ws/location-binary}.
+ * <p>
+ * On connect the client receives a JSON text frame with the surveyor dictionary
+ * ({@code {"type":"dictionary","entries":{"SURV001":0,...}}}); new surveyors are announced
+ * the same way before the first binary frame that refers to them.
+ * <p>
+ * Frames are built under the dictionary lock and appended, in that order, to a bounded queue per
+ * session, so the fleet flush never waits on a socket. {@code tracking.websocket.binary.send-threads}
+ * threads drain the queues, at most one thread per session, so a slow client only holds up its
+ * own frames. A queue over {@code tracking.websocket.binary.send-queue-capacity} frames or
+ * {@code tracking.websocket.send-buffer-size-limit} bytes drops its oldest frames, dictionary frames
+ * included, so a client that meets an index it does not know sends {@code {"type":"resync"}} and
+ * receives the full dictionary again. A session whose write has been blocked for longer than
+ * {@code tracking.websocket.send-time-limit-ms} is closed.
+ * <p>
+ * Position frames are big-endian:
+ * <pre>
+ *   uint8  type (1 = positions)
+ *   uint8  version (1)
+ *   uint16 record count
+ *   count x { int32 surveyor index, int32 latitude (micro-degrees),
+ *             int32 longitude (micro-degrees), int64 epoch millis }
+ * </pre>
+ * Each record is 20 bytes, against roughly 110 bytes for the JSON text frame.
+ */
+@Service
+public class BinaryLocationWebSocketHandler extends BinaryWebSocketHandler implements DisposableBean {
+
+    public static final byte FRAME_POSITIONS = 1;
+    public static final byte PROTOCOL_VERSION = 1;
+    public static final int HEADER_BYTES = 4;
+    public static final int RECORD_BYTES = 20;
+    private static final int MAX_RECORDS_PER_FRAME = 0xFFFF;
+
+    private final Map<String, Integer> indexBySurveyor = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final Map<String, BinarySession> sessions = new ConcurrentHashMap<>();
+    // Orders dictionary snapshots and deltas with the frames queued for sending; never held during a send
+    private final ReentrantLock dictionaryLock = new ReentrantLock();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Queue length is bounded by the session count: each has at most one pending drain
+    private final ThreadPoolExecutor sender;
+
+    private final int sendTimeLimitMs;
+    private final int sendBufferSizeLimit;
+    private final int sendQueueCapacity;
+
+    public BinaryLocationWebSocketHandler(@Value("${tracking.websocket.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                                          @Value("${tracking.websocket.send-buffer-size-limit:524288}") int sendBufferSizeLimit,
+                                          @Value("${tracking.websocket.binary.send-queue-capacity:100}") int sendQueueCapacity,
+                                          @Value("${tracking.websocket.binary.send-threads:4}") int sendThreads) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.sendQueueCapacity = sendQueueCapacity;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "binary-ws-send-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+        BinarySession binarySession = new BinarySession(session);
+        dictionaryLock.lock();
+        try {
+            sessions.put(session.getId(), binarySession);
+            enqueue(binarySession, dictionaryFrame(new LinkedHashMap<>(indexBySurveyor)));
+        } finally {
+            dictionaryLock.unlock();
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+        BinarySession binarySession = sessions.get(session.getId());
+        if (binarySession == null || !isResync(message)) {
+            return;
+        }
+        dictionaryLock.lock();
+        try {
+            enqueue(binarySession, dictionaryFrame(new LinkedHashMap<>(indexBySurveyor)));
+        } finally {
+            dictionaryLock.unlock();
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        BinarySession binarySession = sessions.remove(session.getId());
+        if (binarySession != null) {
+            binarySession.clear();
+        }
+    }
+
+    /**
+     * Publishes a set of position updates to every binary session.
+     */
+    public void publish(List<LiveLocationMessage> locations) {
+        if (sessions.isEmpty() || locations.isEmpty()) {
+            return;
+        }
+
+        dictionaryLock.lock();
+        try {
+            Map<String, Integer> added = new LinkedHashMap<>();
+            int[] indexes = new int[locations.size()];
+            for (int i = 0; i < locations.size(); i++) {
+                indexes[i] = indexOf(locations.get(i).getSurveyorId(), added);
+            }
+            TextMessage dictionary = added.isEmpty() ? null : dictionaryFrame(added);
+            List<ByteBuffer> frames = encode(locations, indexes);
+            for (BinarySession session : sessions.values()) {
+                if (dictionary != null) {
+                    enqueue(session, dictionary);
+                }
+                for (ByteBuffer frame : frames) {
+                    // Each session reads through its own view of the shared bytes
+                    enqueue(session, new BinaryMessage(frame.duplicate()));
+                }
+            }
+        } finally {
+            dictionaryLock.unlock();
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    BinarySession getSession(String sessionId) {
+        return sessions.get(sessionId);
+    }
+
+    @Override
+    public void destroy() {
+        sender.shutdownNow();
+    }
+
+    static List<ByteBuffer> encode(List<LiveLocationMessage> locations, int[] indexes) {
+        List<ByteBuffer> frames = new ArrayList<>();
+        for (int start = 0; start < locations.size(); start += MAX_RECORDS_PER_FRAME) {
+            int count = Math.min(MAX_RECORDS_PER_FRAME, locations.size() - start);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES);
+            buffer.put(FRAME_POSITIONS).put(PROTOCOL_VERSION).putShort((short) count);
+            for (int i = start; i < start + count; i++) {
+                LiveLocationMessage location = locations.get(i);
+                Instant timestamp = location.getTimestamp() != null ? location.getTimestamp() : Instant.now();
+                buffer.putInt(indexes[i])
+                      .putInt((int) Math.round(location.getLatitude() * 1_000_000))
+                      .putInt((int) Math.round(location.getLongitude() * 1_000_000))
+                      .putLong(timestamp.toEpochMilli());
+            }
+            buffer.flip();
+            frames.add(buffer);
+        }
+        return frames;
+    }
+
+    private int indexOf(String surveyorId, Map<String, Integer> added) {
+        Integer index = indexBySurveyor.get(surveyorId);
+        if (index == null) {
+            index = nextIndex.getAndIncrement();
+            indexBySurveyor.put(surveyorId, index);
+            added.put(surveyorId, index);
+        }
+        return index;
+    }
+
+    private TextMessage dictionaryFrame(Map<String, Integer> entries) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "dictionary");
+        frame.put("entries", entries);
+        try {
+            return new TextMessage(objectMapper.writeValueAsString(frame));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode surveyor dictionary", e);
+        }
+    }
+
+    private boolean isResync(TextMessage message) {
+        try {
+            JsonNode request = objectMapper.readTree(message.getPayload());
+            return "resync".equals(request.path("type").asText());
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
+    // Runs under the dictionary lock, so it only queues work
+    private void enqueue(BinarySession session, WebSocketMessage<?> frame) {
+        long sendStart = session.sendStartNanos;
+        if (sendStart != 0 && System.nanoTime() - sendStart > sendTimeLimitMs * 1_000_000L) {
+            close(session, "send blocked for more than " + sendTimeLimitMs + " ms");
+            return;
+        }
+        session.lock.lock();
+        try {
+            session.queue.add(frame);
+            session.queuedBytes += frame.getPayloadLength();
+            // The newest frame is always kept, even when it alone is over the byte limit
+            while (session.queue.size() > 1 && (session.queue.size() > sendQueueCapacity
+                    || session.queuedBytes - frame.getPayloadLength() > sendBufferSizeLimit)) {
+                session.queuedBytes -= session.queue.poll().getPayloadLength();
+                session.dropped.incrementAndGet();
+            }
+        } finally {
+            session.lock.unlock();
+        }
+        if (session.scheduled.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(session));
+            } catch (RejectedExecutionException e) {
+                session.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(BinarySession session) {
+        while (true) {
+            WebSocketMessage<?> frame = session.poll();
+            if (frame == null) {
+                session.scheduled.set(false);
+                // A frame queued after the poll but before the flag was cleared would otherwise wait
+                if (session.isEmpty() || !session.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            session.sendStartNanos = System.nanoTime();
+            try {
+                session.socket.sendMessage(frame);
+            } catch (Exception e) {
+                System.err.println("Dropping binary WebSocket session " + session.socket.getId() + ": " + e.getMessage());
+                sessions.remove(session.socket.getId(), session);
+                return;
+            } finally {
+                session.sendStartNanos = 0;
+            }
+        }
+    }
+
+    private void close(BinarySession session, String reason) {
+        if (!sessions.remove(session.socket.getId(), session)) {
+            return;
+        }
+        session.clear();
+        System.out.println("Closing slow binary WebSocket session " + session.socket.getId() + " (" + reason + ")");
+        try {
+            session.socket.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            System.err.println("Failed to close binary WebSocket session " + session.socket.getId() + ": " + e.getMessage());
+        }
+    }
+
+    static final class BinarySession {
+        private final WebSocketSession socket;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Deque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private int queuedBytes;
+        private volatile long sendStartNanos;
+
+        private BinarySession(WebSocketSession socket) {
+            this.socket = socket;
+        }
+
+        private WebSocketMessage<?> poll() {
+            lock.lock();
+            try {
+                WebSocketMessage<?> frame = queue.poll();
+                if (frame != null) {
+                    queuedBytes -= frame.getPayloadLength();
+                }
+                return frame;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                queue.clear();
+                queuedBytes = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isEmpty() {
+            lock.lock();
+            try {
+                return queue.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int getQueuedFrames() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long getDropped() {
+            return dropped.get();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Fixed latitude/longitude grid used for coverage bitmaps. Cell ids are
+ * {@code row * cols + col}, counting rows from the south pole and columns from the antimeridian,
+ * so the cells of one grid row are consecutive ids and a run of covered cells along a row is a
+ * run in the bitmap.
+ */
+public final class CoverageGrid {
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int cols;
+
+    public CoverageGrid(double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("tracking.coverage.cell-degrees must be in (0, 90]");
+        }
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.cols = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    public long cellId(double latitude, double longitude) {
+        return (long) row(latitude) * cols + col(longitude);
+    }
+
+    /**
+     * Cells whose centre lies inside the polygon(s), filled one grid row at a time.
+     * @throws IllegalArgumentException if the area spans more than {@code maxCells} cells
+     */
+    public Roaring64NavigableMap rasterize(Geometry area, long maxCells) {
+        List<double[]> edges = edges(area);
+        int firstRow = row(area.getEnvelopeInternal().getMinY());
+        int lastRow = row(area.getEnvelopeInternal().getMaxY());
+        Roaring64NavigableMap cells = new Roaring64NavigableMap();
+        double[] crossings = new double[edges.size()];
+        long total = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            double y = -90 + (row + 0.5) * cellDegrees;
+            int count = 0;
+            for (double[] edge : edges) {
+                if ((edge[1] > y) != (edge[3] > y)) {
+                    crossings[count++] = edge[0] + (y - edge[1]) * (edge[2] - edge[0]) / (edge[3] - edge[1]);
+                }
+            }
+            // Even-odd pairs; holes and the parts of a MultiPolygon fall out of the same rule
+            Arrays.sort(crossings, 0, count);
+            for (int i = 0; i + 1 < count; i += 2) {
+                int first = Math.max(0, (int) Math.ceil((crossings[i] + 180) / cellDegrees - 0.5));
+                int last = Math.min(cols - 1, (int) Math.floor((crossings[i + 1] + 180) / cellDegrees - 0.5));
+                if (first > last) {
+                    continue;
+                }
+                total += last - first + 1;
+                if (total > maxCells) {
+                    throw new IllegalArgumentException("Area covers more than " + maxCells + " grid cells");
+                }
+                long rowStart = (long) row * cols;
+                cells.addRange(rowStart + first, rowStart + last + 1);
+            }
+        }
+        cells.runOptimize();
+        return cells;
+    }
+
+    /**
+     * Covered cells inside a web-map tile, merged into one rectangle per run along a grid row.
+     * Each rectangle is a closed GeoJSON polygon ring of [longitude, latitude] positions.
+     */
+    public List<List<List<double[]>>> tileRuns(Roaring64NavigableMap cells, int z, int x, int y) {
+        double tiles = Math.pow(2, z);
+        double west = x / tiles * 360 - 180;
+        double east = (x + 1) / tiles * 360 - 180;
+        double north = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / tiles))));
+        double south = Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * (y + 1) / tiles))));
+        int firstCol = col(west);
+        int lastCol = Math.min(cols - 1, (int) Math.floor((east + 180) / cellDegrees));
+
+        List<List<List<double[]>>> polygons = new ArrayList<>();
+        for (int row = row(south); row <= row(north); row++) {
+            long rowStart = (long) row * cols;
+            long start = rowStart + firstCol;
+            long end = rowStart + lastCol;
+            // rankLong counts ids <= its argument, so select walks only the ids in [start, end]
+            long rank = start == 0 ? 0 : cells.rankLong(start - 1);
+            long endRank = cells.rankLong(end);
+            long runStart = -1;
+            long previous = -1;
+            for (; rank < endRank; rank++) {
+                long cell = cells.select(rank);
+                if (cell != previous + 1) {
+                    if (runStart >= 0) {
+                        polygons.add(rectangle(row, (int) (runStart - rowStart), (int) (previous - rowStart)));
+                    }
+                    runStart = cell;
+                }
+                previous = cell;
+            }
+            if (runStart >= 0) {
+                polygons.add(rectangle(row, (int) (runStart - rowStart), (int) (previous - rowStart)));
+            }
+        }
+        return polygons;
+    }
+
+    private List<List<double[]>> rectangle(int row, int firstCol, int lastCol) {
+        double south = -90 + row * cellDegrees;
+        double north = south + cellDegrees;
+        double west = -180 + firstCol * cellDegrees;
+        double east = -180 + (lastCol + 1) * cellDegrees;
+        return List.of(List.of(
+            new double[] {west, south}, new double[] {east, south}, new double[] {east, north},
+            new double[] {west, north}, new double[] {west, south}));
+    }
+
+    // Each edge as {x1, y1, x2, y2}, from every ring of every polygon
+    private static List<double[]> edges(Geometry area) {
+        List<double[]> edges = new ArrayList<>();
+        for (int i = 0; i < area.getNumGeometries(); i++) {
+            Polygon polygon = (Polygon) area.getGeometryN(i);
+            addEdges(edges, polygon.getExteriorRing().getCoordinates());
+            for (int hole = 0; hole < polygon.getNumInteriorRing(); hole++) {
+                addEdges(edges, polygon.getInteriorRingN(hole).getCoordinates());
+            }
+        }
+        return edges;
+    }
+
+    private static void addEdges(List<double[]> edges, Coordinate[] ring) {
+        for (int i = 0; i + 1 < ring.length; i++) {
+            edges.add(new double[] {ring[i].x, ring[i].y, ring[i + 1].x, ring[i + 1].y});
+        }
+    }
+
+    private int row(double latitude) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int col(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), cols);
+    }
+}
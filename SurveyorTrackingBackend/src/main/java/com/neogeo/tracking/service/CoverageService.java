@@ -0,0 +1,397 @@
+package com.neogeo.tracking.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKTReader;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.neogeo.tracking.dto.CoverageDiff;
+import com.neogeo.tracking.dto.CoverageSummary;
+import com.neogeo.tracking.model.Geometries;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Survey coverage per project and day, as Roaring bitmaps of {@link CoverageGrid} cells.
+ * <p>
+ * A durable {@link IngestEventBus} consumer sets the cell of every kept point in the bitmap of
+ * the surveyor's project for that day ({@code tracking.coverage.zone}); it never touches the
+ * database. Every {@code tracking.coverage.flush-ms} the changed bitmaps are OR-ed into their
+ * row of {@code coverage_bitmap}, so a restart loses at most one flush interval, and days not
+ * touched for {@code tracking.coverage.idle-minutes} are dropped from memory once persisted.
+ * <p>
+ * Coverage, day-to-day diffs and tiles are bitmap operations on those rows and the in-memory
+ * bitmaps; {@code location_track} is never scanned. The percentage is measured against the
+ * project area set with {@link #setArea}, rasterized onto the same grid.
+ */
+@Service
+public class CoverageService implements DisposableBean {
+
+    private static final String LOAD =
+        "SELECT bitmap FROM coverage_bitmap WHERE project_name = ? AND day = ? AND cell_degrees = ?";
+    private static final String LOAD_RANGE =
+        "SELECT bitmap FROM coverage_bitmap WHERE project_name = ? AND day BETWEEN ? AND ? AND cell_degrees = ?";
+    private static final String UPSERT =
+        "INSERT INTO coverage_bitmap (project_name, day, cell_degrees, cells, bitmap, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, now()) " +
+        "ON CONFLICT (project_name, day, cell_degrees) DO UPDATE SET " +
+        "cells = EXCLUDED.cells, bitmap = EXCLUDED.bitmap, updated_at = EXCLUDED.updated_at";
+    private static final String LOAD_AREA =
+        "SELECT ST_AsText(area) FROM project_coverage_area WHERE project_name = ?";
+    private static final String UPSERT_AREA =
+        "INSERT INTO project_coverage_area (project_name, area, updated_at) " +
+        "VALUES (?, ST_GeomFromText(?, " + Geometries.WGS84_SRID + "), now()) " +
+        "ON CONFLICT (project_name) DO UPDATE SET area = EXCLUDED.area, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SurveyorDirectory surveyorDirectory;
+    private final CoverageGrid grid;
+    private final ZoneId zone;
+    private final long idleMillis;
+    private final int maxRangeDays;
+    private final int maxVertices;
+    private final long maxAreaCells;
+    private final int minTileZoom;
+    private final Map<DayKey, DayBitmap> bitmaps = new ConcurrentHashMap<>();
+    // Rasterized project areas; empty when the project has none
+    private final Map<String, Optional<Roaring64NavigableMap>> areas = new ConcurrentHashMap<>();
+    private final Counter cellsCounter;
+
+    public CoverageService(IngestEventBus eventBus,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           SurveyorDirectory surveyorDirectory,
+                           MeterRegistry meterRegistry,
+                           @Value("${tracking.coverage.cell-degrees:0.0001}") double cellDegrees,
+                           @Value("${tracking.coverage.zone:UTC}") String zone,
+                           @Value("${tracking.coverage.idle-minutes:120}") long idleMinutes,
+                           @Value("${tracking.coverage.max-range-days:31}") int maxRangeDays,
+                           @Value("${tracking.search.max-vertices:5000}") int maxVertices,
+                           @Value("${tracking.coverage.max-area-cells:100000000}") long maxAreaCells,
+                           @Value("${tracking.coverage.min-tile-zoom:14}") int minTileZoom) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.surveyorDirectory = surveyorDirectory;
+        this.grid = new CoverageGrid(cellDegrees);
+        this.zone = ZoneId.of(zone);
+        this.idleMillis = idleMinutes * 60_000;
+        this.maxRangeDays = Math.max(1, maxRangeDays);
+        this.maxVertices = maxVertices;
+        this.maxAreaCells = maxAreaCells;
+        this.minTileZoom = minTileZoom;
+        this.cellsCounter = Counter.builder("tracking.coverage.cells")
+            .description("Grid cells covered for the first time in their project and day")
+            .register(meterRegistry);
+        Gauge.builder("tracking.coverage.bitmaps", bitmaps, Map::size)
+            .description("Project-day coverage bitmaps held in memory")
+            .register(meterRegistry);
+        eventBus.addConsumer("coverage", (event, sequence) -> record(event), false);
+    }
+
+    private void record(LocationEvent event) {
+        String project = surveyorDirectory.get(event.getSurveyorId()).getProjectName();
+        if (project == null) {
+            return;
+        }
+        Instant at = event.getTimestamp() != null ? event.getTimestamp() : Instant.now();
+        DayKey key = new DayKey(project, LocalDate.ofInstant(at, zone));
+        long cell = grid.cellId(event.getLatitude(), event.getLongitude());
+        while (true) {
+            DayBitmap bitmap = bitmaps.computeIfAbsent(key, k -> new DayBitmap());
+            synchronized (bitmap) {
+                if (bitmap.evicted) {
+                    continue;
+                }
+                bitmap.lastTouchedMillis = System.currentTimeMillis();
+                if (!bitmap.cells.contains(cell)) {
+                    bitmap.cells.addLong(cell);
+                    bitmap.dirty = true;
+                    cellsCounter.increment();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * The current day in {@code tracking.coverage.zone}, which bitmaps are keyed by.
+     */
+    public LocalDate today() {
+        return LocalDate.now(zone);
+    }
+
+    /**
+     * Cells covered on any day of {@code from}..{@code to}, against the project area if one is set.
+     */
+    public CoverageSummary coverage(String project, LocalDate from, LocalDate to) {
+        Roaring64NavigableMap covered = union(project, from, to);
+        long coveredCells = covered.getLongCardinality();
+        Roaring64NavigableMap area = area(project).orElse(null);
+        if (area == null) {
+            return new CoverageSummary(project, from, to, grid.getCellDegrees(), coveredCells, null, null, null);
+        }
+        long areaCells;
+        synchronized (area) {
+            covered.and(area);
+            areaCells = area.getLongCardinality();
+        }
+        long coveredAreaCells = covered.getLongCardinality();
+        double percent = areaCells == 0 ? 0 : Math.round(10_000.0 * coveredAreaCells / areaCells) / 100.0;
+        return new CoverageSummary(project, from, to, grid.getCellDegrees(), coveredCells, areaCells, coveredAreaCells, percent);
+    }
+
+    public CoverageDiff diff(String project, LocalDate day, LocalDate base) {
+        if (day == null || base == null) {
+            throw new IllegalArgumentException("day and base are required");
+        }
+        Roaring64NavigableMap dayCells = dayCells(project, day);
+        Roaring64NavigableMap baseCells = dayCells(project, base);
+        Roaring64NavigableMap added = copy(dayCells);
+        added.andNot(baseCells);
+        long newCells = added.getLongCardinality();
+        long repeatedCells = dayCells.getLongCardinality() - newCells;
+        return new CoverageDiff(project, day, base, newCells, repeatedCells, baseCells.getLongCardinality() - repeatedCells);
+    }
+
+    /**
+     * Covered cells of {@code from}..{@code to} inside one web-map tile, as a GeoJSON Feature
+     * whose MultiPolygon has one rectangle per run of covered cells along a grid row.
+     */
+    public Map<String, Object> tile(String project, LocalDate from, LocalDate to, int z, int x, int y) {
+        if (z < minTileZoom || z > 24) {
+            throw new IllegalArgumentException("Coverage tiles are served for zoom " + minTileZoom + " to 24");
+        }
+        long tiles = 1L << z;
+        if (x < 0 || y < 0 || x >= tiles || y >= tiles) {
+            throw new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " does not exist");
+        }
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("project", project);
+        properties.put("from", from.toString());
+        properties.put("to", to.toString());
+        properties.put("cellDegrees", grid.getCellDegrees());
+        Map<String, Object> geometry = new LinkedHashMap<>();
+        geometry.put("type", "MultiPolygon");
+        geometry.put("coordinates", grid.tileRuns(union(project, from, to), z, x, y));
+        Map<String, Object> feature = new LinkedHashMap<>();
+        feature.put("type", "Feature");
+        feature.put("properties", properties);
+        feature.put("geometry", geometry);
+        return feature;
+    }
+
+    /**
+     * Stores the project area that coverage percentages are measured against.
+     * @return the number of grid cells inside it
+     * @throws IllegalArgumentException if the GeoJSON is not a valid polygon or is too large
+     */
+    public long setArea(String project, JsonNode geoJson) {
+        Geometry area = Geometries.fromGeoJson(geoJson, maxVertices);
+        Roaring64NavigableMap cells = grid.rasterize(area, maxAreaCells);
+        jdbcTemplate.update(UPSERT_AREA, project, area.toText());
+        areas.put(project, Optional.of(cells));
+        return cells.getLongCardinality();
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.coverage.flush-ms:60000}")
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<DayKey, DayBitmap> entry : bitmaps.entrySet()) {
+            DayKey key = entry.getKey();
+            DayBitmap bitmap = entry.getValue();
+            Roaring64NavigableMap pending;
+            synchronized (bitmap) {
+                if (!bitmap.dirty) {
+                    if (now - bitmap.lastTouchedMillis > idleMillis) {
+                        bitmap.evicted = true;
+                        bitmaps.remove(key, bitmap);
+                    }
+                    continue;
+                }
+                pending = copy(bitmap.cells);
+                bitmap.dirty = false;
+            }
+            try {
+                Roaring64NavigableMap merged = persist(key, pending);
+                synchronized (bitmap) {
+                    bitmap.cells.or(merged);
+                    bitmap.cells.runOptimize();
+                    bitmap.loaded = true;
+                }
+            } catch (DataAccessException | UncheckedIOException e) {
+                synchronized (bitmap) {
+                    bitmap.dirty = true;
+                }
+                System.err.println("Coverage flush failed for " + key.project + " " + key.day + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    // Read, OR and write back under the row lock, so coverage persisted before a restart is kept
+    private Roaring64NavigableMap persist(DayKey key, Roaring64NavigableMap pending) {
+        return transactionTemplate.execute(tx -> {
+            List<byte[]> stored = jdbcTemplate.query(LOAD + " FOR UPDATE", (rs, row) -> rs.getBytes(1),
+                key.project, Date.valueOf(key.day), grid.getCellDegrees());
+            if (!stored.isEmpty()) {
+                pending.or(deserialize(stored.get(0)));
+            }
+            pending.runOptimize();
+            jdbcTemplate.update(UPSERT, key.project, Date.valueOf(key.day), grid.getCellDegrees(),
+                pending.getLongCardinality(), serialize(pending));
+            return pending;
+        });
+    }
+
+    private Roaring64NavigableMap union(String project, LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new IllegalArgumentException("Coverage range is limited to " + maxRangeDays + " days");
+        }
+        // In-memory bitmaps only ever add to their persisted rows, so OR-ing both gives every covered cell
+        Roaring64NavigableMap union = new Roaring64NavigableMap();
+        jdbcTemplate.query(LOAD_RANGE, rs -> {
+            union.or(deserialize(rs.getBytes(1)));
+        }, project, Date.valueOf(from), Date.valueOf(to), grid.getCellDegrees());
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayBitmap bitmap = bitmaps.get(new DayKey(project, day));
+            if (bitmap != null) {
+                synchronized (bitmap) {
+                    union.or(bitmap.cells);
+                }
+            }
+        }
+        return union;
+    }
+
+    // A private copy of the day's cells; the database is skipped once a flush has merged the stored row in
+    private Roaring64NavigableMap dayCells(String project, LocalDate day) {
+        DayBitmap bitmap = bitmaps.get(new DayKey(project, day));
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                if (bitmap.loaded) {
+                    return copy(bitmap.cells);
+                }
+            }
+        }
+        List<byte[]> stored = jdbcTemplate.query(LOAD, (rs, row) -> rs.getBytes(1),
+            project, Date.valueOf(day), grid.getCellDegrees());
+        Roaring64NavigableMap cells = stored.isEmpty() ? new Roaring64NavigableMap() : deserialize(stored.get(0));
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                cells.or(bitmap.cells);
+            }
+        }
+        return cells;
+    }
+
+    private Optional<Roaring64NavigableMap> area(String project) {
+        return areas.computeIfAbsent(project, p -> {
+            List<String> wkt = jdbcTemplate.queryForList(LOAD_AREA, String.class, p);
+            if (wkt.isEmpty() || wkt.get(0) == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(grid.rasterize(new WKTReader(Geometries.WGS84).read(wkt.get(0)), maxAreaCells));
+            } catch (ParseException | IllegalArgumentException e) {
+                System.err.println("Could not load coverage area of project " + p + ": " + e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static Roaring64NavigableMap copy(Roaring64NavigableMap cells) {
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(cells);
+        return copy;
+    }
+
+    static byte[] serialize(Roaring64NavigableMap cells) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            cells.serializePortable(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Roaring64NavigableMap deserialize(byte[] data) {
+        Roaring64NavigableMap cells = new Roaring64NavigableMap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            cells.deserializePortable(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return cells;
+    }
+
+    private static final class DayKey {
+        private final String project;
+        private final LocalDate day;
+
+        private DayKey(String project, LocalDate day) {
+            this.project = project;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof DayKey key && project.equals(key.project) && day.equals(key.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * project.hashCode() + day.hashCode();
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class DayBitmap {
+        private final Roaring64NavigableMap cells = new Roaring64NavigableMap();
+        // Cells added since the last flush
+        private boolean dirty;
+        // The persisted row has been merged into cells
+        private boolean loaded;
+        // Removed from the map; the ingest consumer must create a fresh one
+        private boolean evicted;
+        private long lastTouchedMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,229 @@
+package com.neogeo.tracking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.repository.SurveyorRepository;
+
+/**
+ * Password hashing and Basic-auth verification for surveyors.
+ * <p>
+ * Passwords are stored as BCrypt hashes. Rows still holding a legacy plaintext password
+ * are accepted once and re-hashed on that successful login. Because BCrypt is deliberately
+ * slow, verified credentials are cached for {@code tracking.auth.credential-cache-ttl-seconds}.
+ * The cache key is an HMAC of username and password under a per-process random key, so the
+ * cache never holds anything that could be used to recover a password. Unknown usernames
+ * are remembered briefly so they are rejected without a query. Entries for a username are
+ * dropped whenever that surveyor is saved.
+ */
+@Service
+public class CredentialService {
+
+    private static final String DIGEST_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    // While the cache is full, misses sweep it for expired entries at most this often
+    private static final long FULL_PURGE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SurveyorRepository repository;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final long verifiedTtlNanos;
+    private final long unknownTtlNanos;
+    private final int maxEntries;
+
+    private final SecretKeySpec digestKey;
+    private final ThreadLocal<Mac> mac;
+    // credential digest -> verified surveyor
+    private final Map<String, VerifiedCredential> verified = new ConcurrentHashMap<>();
+    // username -> expiry (System.nanoTime) of a "no such user" answer
+    private final Map<String, Long> unknownUsernames = new ConcurrentHashMap<>();
+    // Bumped by invalidate() so a lookup that raced a password change is not cached
+    private final AtomicLong generation = new AtomicLong();
+    // Earliest System.nanoTime at which a full cache may be swept again
+    private final AtomicLong nextFullPurge = new AtomicLong(System.nanoTime());
+
+    public CredentialService(SurveyorRepository repository,
+                             @Value("${tracking.auth.bcrypt-strength:10}") int bcryptStrength,
+                             @Value("${tracking.auth.credential-cache-ttl-seconds:600}") long verifiedTtlSeconds,
+                             @Value("${tracking.auth.unknown-user-cache-ttl-seconds:60}") long unknownTtlSeconds,
+                             @Value("${tracking.auth.credential-cache-max-entries:10000}") int maxEntries) {
+        this.repository = repository;
+        this.passwordEncoder = new BCryptPasswordEncoder(bcryptStrength);
+        this.verifiedTtlNanos = TimeUnit.SECONDS.toNanos(verifiedTtlSeconds);
+        this.unknownTtlNanos = TimeUnit.SECONDS.toNanos(unknownTtlSeconds);
+        this.maxEntries = maxEntries;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, DIGEST_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String hash(String rawPassword) {
+        return passwordEncoder.encode(rawPassword);
+    }
+
+    public boolean isHashed(String storedPassword) {
+        return storedPassword != null && storedPassword.matches("^\\$2[aby]?\\$\\d\\d\\$.{53}$");
+    }
+
+    /**
+     * Checks a raw password against a stored BCrypt hash or legacy plaintext value.
+     */
+    public boolean matches(String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (isHashed(storedPassword)) {
+            return passwordEncoder.matches(rawPassword, storedPassword);
+        }
+        return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                                     storedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies Basic-auth style credentials, using the caches where possible.
+     * @return the surveyor id, or null if the credentials are not valid
+     */
+    public String authenticate(String username, String password) {
+        if (username == null || password == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        String digest = digest(username, password);
+        VerifiedCredential cached = verified.get(digest);
+        if (cached != null) {
+            if (now - cached.expiresAt < 0) {
+                return cached.surveyorId;
+            }
+            verified.remove(digest, cached);
+        }
+        Long unknownUntil = unknownUsernames.get(username);
+        if (unknownUntil != null && now - unknownUntil < 0) {
+            return null;
+        }
+
+        long generationBefore = generation.get();
+        Surveyor surveyor = verify(username, password);
+        if (surveyor == null) {
+            return null;
+        }
+        if (verified.size() >= maxEntries) {
+            purgeWhenFull(now);
+        }
+        if (verified.size() < maxEntries && generation.get() == generationBefore) {
+            verified.put(digest, new VerifiedCredential(surveyor.getId(), username, now + verifiedTtlNanos));
+        }
+        return surveyor.getId();
+    }
+
+    /**
+     * Looks the surveyor up and checks the password, upgrading a legacy plaintext password
+     * to a hash on success.
+     * @return the surveyor, or null if unknown or the password does not match
+     */
+    public Surveyor verify(String username, String password) {
+        long generationBefore = generation.get();
+        Surveyor surveyor = repository.findByUsername(username).orElse(null);
+        if (surveyor == null) {
+            long now = System.nanoTime();
+            if (unknownUsernames.size() >= maxEntries) {
+                purgeWhenFull(now);
+            }
+            // A surveyor created while the query ran must not be remembered as unknown
+            if (unknownUsernames.size() < maxEntries && generation.get() == generationBefore) {
+                unknownUsernames.put(username, now + unknownTtlNanos);
+            }
+            return null;
+        }
+        return checkPassword(surveyor, password);
+    }
+
+    /**
+     * Checks the password of an already loaded surveyor, upgrading a legacy plaintext
+     * password to a hash on success.
+     * @return the (possibly re-saved) surveyor, or null if the password does not match
+     */
+    public Surveyor checkPassword(Surveyor surveyor, String password) {
+        if (!matches(password, surveyor.getPassword())) {
+            return null;
+        }
+        if (!isHashed(surveyor.getPassword())) {
+            surveyor.setPassword(hash(password));
+            surveyor = repository.save(surveyor);
+        }
+        return surveyor;
+    }
+
+    /**
+     * Forgets every cached answer for the username, e.g. after a password change.
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        unknownUsernames.remove(username);
+        verified.values().removeIf(credential -> credential.username.equals(username));
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.auth.deny-list-cleanup-ms:60000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        verified.values().removeIf(credential -> now - credential.expiresAt >= 0);
+        unknownUsernames.values().removeIf(expiresAt -> now - expiresAt >= 0);
+    }
+
+    // Sweeps a full cache, but only once per interval however many misses arrive meanwhile
+    private void purgeWhenFull(long now) {
+        long next = nextFullPurge.get();
+        if (now - next >= 0 && nextFullPurge.compareAndSet(next, now + FULL_PURGE_INTERVAL_NANOS)) {
+            purgeExpired();
+        }
+    }
+
+    private String digest(String username, String password) {
+        Mac instance = mac.get();
+        instance.update(username.getBytes(StandardCharsets.UTF_8));
+        instance.update((byte) 0);
+        return ENCODER.encodeToString(instance.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(DIGEST_ALGORITHM);
+            instance.init(digestKey);
+            return instance;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialise " + DIGEST_ALGORITHM, e);
+        }
+    }
+
+    private static final class VerifiedCredential {
+        private final String surveyorId;
+        private final String username;
+        private final long expiresAt;
+
+        private VerifiedCredential(String surveyorId, String username, long expiresAt) {
+            this.surveyorId = surveyorId;
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
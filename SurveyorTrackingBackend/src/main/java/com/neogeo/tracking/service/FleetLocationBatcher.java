@@ -0,0 +1,108 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationBatchMessage;
+
+/**
+ * Accumulates live location updates and periodically publishes them as one
+ * coalesced frame on {@code /topic/location/all} and
+ * {@code /topic/location/all/project/{projectName}}.
+ * Only the newest position per surveyor is kept between flushes, so the number of
+ * frames a dashboard receives does not depend on fleet size.
+ * The same batch is also sent to binary protocol sessions on {@code /ws/location-binary}
+ * and recorded in the {@link LocationChangeLog} behind the SSE stream.
+ */
+@Service
+public class FleetLocationBatcher {
+
+    public static final String ALL_TOPIC = "/topic/location/all";
+    public static final String PROJECT_TOPIC_PREFIX = ALL_TOPIC + "/project/";
+
+    private final LocationBroadcaster locationBroadcaster;
+    private final BinaryLocationWebSocketHandler binaryLocationHandler;
+    private final SurveyorDirectory surveyorDirectory;
+    private final LocationChangeLog changeLog;
+
+    // Latest pending update per surveyor; writers never block each other or the flush
+    private final Map<String, LiveLocationMessage> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FleetLocationBatcher(LocationBroadcaster locationBroadcaster,
+                                BinaryLocationWebSocketHandler binaryLocationHandler,
+                                SurveyorDirectory surveyorDirectory,
+                                LocationChangeLog changeLog) {
+        this.locationBroadcaster = locationBroadcaster;
+        this.binaryLocationHandler = binaryLocationHandler;
+        this.surveyorDirectory = surveyorDirectory;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Queues an update for the next fleet frame, replacing any update for the same
+     * surveyor that has not been flushed yet.
+     */
+    public void enqueue(LiveLocationMessage message) {
+        if (message == null || message.getSurveyorId() == null) {
+            return;
+        }
+        pending.put(message.getSurveyorId(), message);
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.broadcast.batch-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<LiveLocationMessage> changed = new ArrayList<>(pending.size());
+        for (Map.Entry<String, LiveLocationMessage> entry : pending.entrySet()) {
+            // Conditional remove keeps an update that raced in after we read the entry
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                changed.add(entry.getValue());
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        send(ALL_TOPIC, new LocationBatchMessage(now, changed));
+        binaryLocationHandler.publish(changed);
+        changeLog.recordLocations(changed);
+
+        for (Map.Entry<String, List<LiveLocationMessage>> project : groupByProject(changed).entrySet()) {
+            send(PROJECT_TOPIC_PREFIX + project.getKey(), new LocationBatchMessage(now, project.getValue()));
+        }
+    }
+
+    private Map<String, List<LiveLocationMessage>> groupByProject(List<LiveLocationMessage> changed) {
+        Map<String, List<LiveLocationMessage>> byProject = new HashMap<>();
+        for (LiveLocationMessage message : changed) {
+            String project = surveyorDirectory.get(message.getSurveyorId()).getProjectName();
+            if (project != null) {
+                byProject.computeIfAbsent(project, k -> new ArrayList<>()).add(message);
+            }
+        }
+        return byProject;
+    }
+
+    private void send(String destination, LocationBatchMessage batch) {
+        try {
+            locationBroadcaster.broadcast(destination, batch);
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to serialize location batch for " + destination + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.neogeo.tracking.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.dto.FleetSnapshotResponse;
+
+/**
+ * Where every surveyor was at a past instant.
+ * <p>
+ * For each row of {@code surveyor} a {@code LATERAL} subquery takes the last point at or before
+ * the instant; with interpolation a second one takes the first point after it. Both are
+ * {@code LIMIT 1} probes of {@code idx_location_track_surveyor_timestamp_id} (V2), read backwards
+ * and forwards, so the cost is one index descent per surveyor however long their history is.
+ * Fixes older than {@code maxAge} are treated as unknown and the surveyor is left out.
+ */
+@Service
+public class FleetSnapshotService {
+
+    private static final String BEFORE =
+        "SELECT s.id AS surveyor_id, b.latitude AS before_lat, b.longitude AS before_lon, b.timestamp AS before_ts";
+    private static final String AFTER_COLUMNS =
+        ", a.latitude AS after_lat, a.longitude AS after_lon, a.timestamp AS after_ts";
+    private static final String FROM =
+        " FROM surveyor s" +
+        " CROSS JOIN LATERAL (SELECT latitude, longitude, timestamp FROM location_track t" +
+        "   WHERE t.surveyor_id = s.id AND t.timestamp <= ? AND t.timestamp >= ?" +
+        "   ORDER BY t.timestamp DESC, t.id DESC LIMIT 1) b";
+    private static final String AFTER_JOIN =
+        " LEFT JOIN LATERAL (SELECT latitude, longitude, timestamp FROM location_track t" +
+        "   WHERE t.surveyor_id = s.id AND t.timestamp > ? AND t.timestamp <= ?" +
+        "   ORDER BY t.timestamp ASC, t.id ASC LIMIT 1) a ON true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long statementTimeoutMs;
+    private final Duration defaultMaxAge;
+    private final Duration maxInterpolationGap;
+
+    public FleetSnapshotService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${tracking.search.statement-timeout-ms:5000}") long statementTimeoutMs,
+                                @Value("${tracking.snapshot.max-age-minutes:1440}") long defaultMaxAgeMinutes,
+                                @Value("${tracking.snapshot.max-interpolation-gap-seconds:600}") long maxInterpolationGapSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.statementTimeoutMs = statementTimeoutMs;
+        this.defaultMaxAge = Duration.ofMinutes(defaultMaxAgeMinutes);
+        this.maxInterpolationGap = Duration.ofSeconds(maxInterpolationGapSeconds);
+    }
+
+    /**
+     * @param maxAgeMinutes oldest fix still reported, or null for {@code tracking.snapshot.max-age-minutes}
+     * @param interpolate estimate the position between the bracketing fixes when they are at most
+     *                    {@code tracking.snapshot.max-interpolation-gap-seconds} apart
+     * @throws org.springframework.dao.QueryTimeoutException if the query exceeds the statement timeout
+     */
+    public FleetSnapshotResponse snapshot(Instant at, boolean interpolate, Long maxAgeMinutes, String project, String city) {
+        if (at == null) {
+            throw new IllegalArgumentException("at is required");
+        }
+        Duration maxAge = maxAgeMinutes != null && maxAgeMinutes > 0 ? Duration.ofMinutes(maxAgeMinutes) : defaultMaxAge;
+
+        StringBuilder sql = new StringBuilder(BEFORE);
+        List<Object> args = new ArrayList<>();
+        if (interpolate) {
+            sql.append(AFTER_COLUMNS);
+        }
+        sql.append(FROM);
+        args.add(Timestamp.from(at));
+        args.add(Timestamp.from(at.minus(maxAge)));
+        if (interpolate) {
+            sql.append(AFTER_JOIN);
+            args.add(Timestamp.from(at));
+            args.add(Timestamp.from(at.plus(maxInterpolationGap)));
+        }
+        sql.append(" WHERE true");
+        if (project != null) {
+            sql.append(" AND s.project_name = ?");
+            args.add(project);
+        }
+        if (city != null) {
+            sql.append(" AND s.city = ?");
+            args.add(city);
+        }
+        sql.append(" ORDER BY s.id");
+
+        List<FleetSnapshotResponse.Position> positions;
+        try {
+            positions = readOnlyTransaction.execute(tx -> {
+                jdbcTemplate.execute("SET LOCAL statement_timeout = " + statementTimeoutMs);
+                return jdbcTemplate.query(sql.toString(), (rs, row) -> position(rs, at, interpolate), args.toArray());
+            });
+        } catch (DataAccessException e) {
+            throw StatementTimeouts.translate(e);
+        }
+        return new FleetSnapshotResponse(at, positions != null ? positions : List.of());
+    }
+
+    private FleetSnapshotResponse.Position position(ResultSet rs, Instant at, boolean interpolate) throws SQLException {
+        String surveyorId = rs.getString("surveyor_id");
+        double latitude = rs.getDouble("before_lat");
+        double longitude = rs.getDouble("before_lon");
+        Instant fixAt = rs.getTimestamp("before_ts").toInstant();
+
+        Timestamp afterTs = interpolate ? rs.getTimestamp("after_ts") : null;
+        if (afterTs == null || !fixAt.isBefore(at)) {
+            return new FleetSnapshotResponse.Position(surveyorId, latitude, longitude, fixAt, false);
+        }
+        Instant nextAt = afterTs.toInstant();
+        if (Duration.between(fixAt, nextAt).compareTo(maxInterpolationGap) > 0) {
+            return new FleetSnapshotResponse.Position(surveyorId, latitude, longitude, fixAt, false);
+        }
+        double fraction = (double) Duration.between(fixAt, at).toMillis() / Duration.between(fixAt, nextAt).toMillis();
+        return new FleetSnapshotResponse.Position(surveyorId,
+            latitude + fraction * (rs.getDouble("after_lat") - latitude),
+            longitude + fraction * (rs.getDouble("after_lon") - longitude),
+            fixAt, true);
+    }
+}
@@ -0,0 +1,232 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.neogeo.tracking.model.Geometries;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fills {@code location_track.geom} for rows written before ingest set it.
+ * <p>
+ * The id range is cut into chunks of {@code tracking.geom-backfill.chunk-size} ids, claimed by
+ * {@code parallelism} workers. Each chunk is one short transaction with a {@code lock_timeout},
+ * so no statement holds row locks for long and none waits behind live traffic; a chunk that times
+ * out is retried. The job runs once per process, at startup when {@code tracking.geom-backfill.auto-start}
+ * is set. Only rows with {@code geom IS NULL} are touched, so it is resumable: if a run is cut short
+ * by shutdown or a failure, the next startup continues from the lowest id still missing a point.
+ * Workers pause while {@link AdmissionGate} reports the database under pressure.
+ */
+@Service
+public class GeomBackfillService implements DisposableBean {
+
+    public enum State { IDLE, RUNNING, STOPPING, COMPLETED, STOPPED, FAILED }
+
+    private static final String UPDATE_CHUNK =
+        "UPDATE location_track SET geom = ST_SetSRID(ST_MakePoint(longitude, latitude), " + Geometries.WGS84_SRID + ") " +
+        "WHERE id >= ? AND id < ? AND geom IS NULL";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AdmissionGate admissionGate;
+    private final Counter rowsCounter;
+    private final int chunkSize;
+    private final int parallelism;
+    private final long pauseMs;
+    private final long lockTimeoutMs;
+    private final boolean autoStart;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final AtomicLong chunksDone = new AtomicLong();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private volatile State state = State.IDLE;
+    private volatile long fromId;
+    private volatile long toId;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public GeomBackfillService(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               AdmissionGate admissionGate,
+                               MeterRegistry meterRegistry,
+                               @Value("${tracking.geom-backfill.chunk-size:5000}") int chunkSize,
+                               @Value("${tracking.geom-backfill.parallelism:2}") int parallelism,
+                               @Value("${tracking.geom-backfill.pause-ms:50}") long pauseMs,
+                               @Value("${tracking.geom-backfill.lock-timeout-ms:2000}") long lockTimeoutMs,
+                               @Value("${tracking.geom-backfill.auto-start:false}") boolean autoStart) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.admissionGate = admissionGate;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.pauseMs = pauseMs;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.autoStart = autoStart;
+        this.rowsCounter = Counter.builder("tracking.geom.backfill.rows")
+            .description("location_track rows given a geom by the backfill job")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startOnReady() {
+        if (autoStart) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the job from the lowest id still missing a point.
+     */
+    private synchronized void start() {
+        if (state != State.IDLE) {
+            return;
+        }
+        startedAt = Instant.now();
+
+        Long first = jdbcTemplate.queryForObject("SELECT min(id) FROM location_track WHERE geom IS NULL", Long.class);
+        if (first == null) {
+            state = State.COMPLETED;
+            finishedAt = startedAt;
+            System.out.println("Geom backfill: nothing to do");
+            return;
+        }
+        // Rows inserted from now on already carry geom, so the current maximum bounds the job
+        Long last = jdbcTemplate.queryForObject("SELECT max(id) FROM location_track", Long.class);
+        fromId = first;
+        toId = last != null ? last : first;
+        nextId.set(first);
+        state = State.RUNNING;
+        System.out.println("Geom backfill: ids " + fromId + ".." + toId + " with " + parallelism + " workers");
+
+        activeWorkers.set(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            Thread worker = new Thread(this::runWorker, "geom-backfill-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Asks the workers to stop after their current chunk; the next startup resumes.
+     */
+    public synchronized void stop() {
+        if (state == State.RUNNING) {
+            state = State.STOPPING;
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state.name());
+        status.put("fromId", fromId);
+        status.put("toId", toId);
+        status.put("nextId", Math.min(nextId.get(), toId + 1));
+        status.put("chunkSize", chunkSize);
+        status.put("parallelism", parallelism);
+        status.put("chunksDone", chunksDone.get());
+        status.put("rowsUpdated", rowsUpdated.get());
+        if (startedAt != null) {
+            status.put("startedAt", startedAt.toString());
+        }
+        if (finishedAt != null) {
+            status.put("finishedAt", finishedAt.toString());
+        }
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+
+    private void runWorker() {
+        try {
+            while (state == State.RUNNING) {
+                if (admissionGate.isOverloaded()) {
+                    sleep(Math.max(pauseMs, 1000));
+                    continue;
+                }
+                long start = nextId.getAndAdd(chunkSize);
+                if (start > toId) {
+                    break;
+                }
+                int updated = updateChunk(start, start + chunkSize);
+                rowsUpdated.addAndGet(updated);
+                rowsCounter.increment(updated);
+                chunksDone.incrementAndGet();
+                sleep(pauseMs);
+            }
+        } catch (DataAccessException e) {
+            System.err.println("Geom backfill failed: " + e.getMostSpecificCause().getMessage());
+            synchronized (this) {
+                if (state == State.RUNNING) {
+                    error = e.getMostSpecificCause().getMessage();
+                    state = State.FAILED;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.STOPPING;
+        } finally {
+            if (activeWorkers.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+    }
+
+    private int updateChunk(long start, long end) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer updated = transactionTemplate.execute(tx -> {
+                    jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+                    return jdbcTemplate.update(UPDATE_CHUNK, start, end);
+                });
+                return updated != null ? updated : 0;
+            } catch (DataAccessException e) {
+                if (attempt >= MAX_ATTEMPTS || state != State.RUNNING) {
+                    throw e;
+                }
+                System.err.println("Geom backfill: chunk " + start + ".." + end + " failed (attempt " + attempt +
+                    "), retrying: " + e.getMostSpecificCause().getMessage());
+                sleep(pauseMs * attempt + 500);
+            }
+        }
+    }
+
+    private synchronized void finish() {
+        finishedAt = Instant.now();
+        if (state == State.RUNNING) {
+            state = State.COMPLETED;
+        } else if (state == State.STOPPING) {
+            state = State.STOPPED;
+        }
+        System.out.println("Geom backfill " + state.name().toLowerCase() + ": " + rowsUpdated.get() +
+            " rows in " + chunksDone.get() + " chunks");
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
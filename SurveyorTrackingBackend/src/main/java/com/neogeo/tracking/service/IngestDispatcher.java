@@ -0,0 +1,142 @@
+package com.neogeo.tracking.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs ingest work on {@code tracking.ingest.lanes} single-threaded lanes, choosing the
+ * lane from the surveyor id. Updates from one surveyor are therefore processed strictly in
+ * arrival order and never concurrently, while different surveyors spread across lanes.
+ * Each lane has a bounded queue; when it is full, {@link #submit} throws
+ * {@link RejectedExecutionException} so the caller can shed load instead of queueing
+ * without limit.
+ */
+@Service
+public class IngestDispatcher implements SmartLifecycle {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Counter rejectedCounter;
+    private volatile boolean running;
+
+    public IngestDispatcher(MeterRegistry meterRegistry,
+                            @Value("${tracking.ingest.lanes:0}") int laneCount,
+                            @Value("${tracking.ingest.lane-queue-capacity:1000}") int queueCapacity) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = newLane(i, queueCapacity);
+            ThreadPoolExecutor lane = lanes[i];
+            Gauge.builder("tracking.ingest.lane.queue", lane, l -> l.getQueue().size())
+                .description("Updates waiting in an ingest lane")
+                .tag("lane", Integer.toString(i))
+                .register(meterRegistry);
+        }
+        this.rejectedCounter = Counter.builder("tracking.ingest.rejected")
+            .description("Updates refused because their lane queue was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Queues a task on the lane owning the surveyor.
+     * @throws RejectedExecutionException if that lane's queue is full or the dispatcher is stopping
+     */
+    public <T> CompletableFuture<T> submit(String surveyorId, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            laneFor(surveyorId).execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Fill ratio (0..1) of the fullest lane queue.
+     */
+    public double maxQueueFill() {
+        double max = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            int size = lane.getQueue().size();
+            int capacity = size + lane.getQueue().remainingCapacity();
+            if (capacity > 0) {
+                max = Math.max(max, size / (double) capacity);
+            }
+        }
+        return max;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        // Let queued updates reach the ingest bus before it stops
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    System.err.println("Ingest lane did not drain in time; " + lane.getQueue().size() + " updates dropped");
+                    lane.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stop after the web server stops accepting requests, before the ingest bus
+        return Integer.MAX_VALUE - 2;
+    }
+
+    private ThreadPoolExecutor laneFor(String surveyorId) {
+        int hash = surveyorId != null ? surveyorId.hashCode() : 0;
+        // Spread the hash so ids differing only in their low bits still use every lane
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    private static ThreadPoolExecutor newLane(int index, int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ingest-lane-" + index);
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+}
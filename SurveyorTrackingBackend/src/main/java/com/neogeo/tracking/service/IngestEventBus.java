@@ -0,0 +1,290 @@
+package com.neogeo.tracking.service;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Preallocated ring of {@link LocationEvent}s with independent consumers.
+ * <p>
+ * Producers claim a sequence, fill the event in place and publish it. Each consumer runs
+ * on its own thread and keeps its own sequence, so a slow consumer only delays itself.
+ * <ul>
+ *   <li>Durable consumers (persistence) gate producers: {@link #publish} returns false
+ *       instead of overwriting an event a durable consumer has not processed.</li>
+ *   <li>Lossy consumers (broadcast, presence) never gate. If one falls a whole ring
+ *       behind, it skips to the oldest event still held; live positions are superseded
+ *       anyway.</li>
+ * </ul>
+ * Slots are read seqlock-style, so a lossy consumer never acts on an event that was
+ * overwritten while being read. An idle consumer spins briefly, then parks until a publish
+ * unparks it; the park timeout is only a safety net. Per-consumer lag, skips and errors are
+ * exported as metrics.
+ */
+@Service
+public class IngestEventBus implements SmartLifecycle {
+
+    // Slot state while a producer is writing it
+    private static final long WRITING = Long.MIN_VALUE;
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Empty polls before an idle consumer parks, so a burst does not pay for a wake-up per event
+    private static final int IDLE_SPINS = 100;
+
+    private final LocationEvent[] events;
+    // Sequence currently held by each slot
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<Consumer> consumers = new ArrayList<>();
+    private final long idleParkNanos;
+    private final MeterRegistry meterRegistry;
+    private final Counter fullCounter;
+    private volatile boolean running;
+
+    public IngestEventBus(MeterRegistry meterRegistry,
+                          @Value("${tracking.ingest.bus.capacity:8192}") int capacity,
+                          @Value("${tracking.ingest.bus.idle-park-micros:100000}") long idleParkMicros) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.events = new LocationEvent[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            events[i] = new LocationEvent();
+            published.set(i, WRITING);
+        }
+        this.mask = size - 1;
+        this.idleParkNanos = TimeUnit.MICROSECONDS.toNanos(idleParkMicros);
+        this.meterRegistry = meterRegistry;
+        this.fullCounter = Counter.builder("tracking.ingest.bus.full")
+            .description("Publishes refused because a durable consumer was a full ring behind")
+            .register(meterRegistry);
+        Gauge.builder("tracking.ingest.bus.capacity", events, e -> e.length)
+            .description("Slots in the ingest ring")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Registers a consumer; only allowed before the bus starts.
+     * @param lossy true if the consumer may skip events rather than hold back producers
+     */
+    public synchronized void addConsumer(String name, LocationEventHandler handler, boolean lossy) {
+        if (running) {
+            throw new IllegalStateException("Consumers must be registered before the ingest bus starts");
+        }
+        Consumer consumer = new Consumer(name, handler, lossy);
+        consumers.add(consumer);
+        Gauge.builder("tracking.ingest.bus.lag", consumer, c -> claimed.get() - c.sequence.get())
+            .description("Events published but not yet processed by the consumer")
+            .tag("consumer", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Copies the message into the next slot.
+     * @return false if a durable consumer is a full ring behind; the update was not accepted
+     */
+    public boolean publish(LiveLocationMessage message) {
+        long sequence;
+        do {
+            sequence = claimed.get() + 1;
+            if (sequence - events.length > minGatingSequence()) {
+                fullCounter.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence - 1, sequence));
+
+        int index = (int) (sequence & mask);
+        published.set(index, WRITING);
+        VarHandle.storeStoreFence();
+        events[index].set(message);
+        // Volatile write makes the event fields visible to consumers
+        published.set(index, sequence);
+        // Read after the write above; a consumer sets waiting before its last look at the slot
+        for (Consumer consumer : consumers) {
+            if (consumer.waiting) {
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+        return true;
+    }
+
+    public long getCursor() {
+        return claimed.get();
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        for (Consumer consumer : consumers) {
+            consumer.thread = new Thread(consumer, "ingest-bus-" + consumer.name);
+            consumer.thread.setDaemon(true);
+            consumer.thread.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // Consumers exit once they have caught up with everything already published
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+            try {
+                consumer.thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before, and stop after, the web server and the ingest lanes that publish here
+        return Integer.MAX_VALUE - 3;
+    }
+
+    private long minGatingSequence() {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            if (!consumer.lossy) {
+                min = Math.min(min, consumer.sequence.get());
+            }
+        }
+        return min;
+    }
+
+    private final class Consumer implements Runnable {
+        private final String name;
+        private final LocationEventHandler handler;
+        private final boolean lossy;
+        // Last sequence this consumer has finished with
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final LocationEvent scratch = new LocationEvent();
+        private final Counter skipped;
+        private final Counter errors;
+        private Thread thread;
+        // Set while parked, so publish knows to unpark this thread
+        private volatile boolean waiting;
+
+        private Consumer(String name, LocationEventHandler handler, boolean lossy) {
+            this.name = name;
+            this.handler = handler;
+            this.lossy = lossy;
+            this.skipped = Counter.builder("tracking.ingest.bus.skipped")
+                .description("Events a lossy consumer skipped after falling a full ring behind")
+                .tag("consumer", name)
+                .register(meterRegistry);
+            this.errors = Counter.builder("tracking.ingest.bus.errors")
+                .description("Events whose handler threw")
+                .tag("consumer", name)
+                .register(meterRegistry);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idleSpins = 0;
+            while (true) {
+                long available = claimed.get();
+                if (lossy && available - next >= events.length) {
+                    long oldestHeld = available - events.length + 1;
+                    skipped.increment(oldestHeld - next);
+                    next = oldestHeld;
+                    sequence.set(next - 1);
+                }
+
+                long end = next;
+                while (end <= available && published.get((int) (end & mask)) >= end) {
+                    end++;
+                }
+                if (end == next) {
+                    if (!running && next > available) {
+                        return;
+                    }
+                    if (idleSpins < IDLE_SPINS) {
+                        idleSpins++;
+                        Thread.onSpinWait();
+                    } else {
+                        await(next);
+                    }
+                    continue;
+                }
+                idleSpins = 0;
+
+                for (; next < end; next++) {
+                    if (!read(next)) {
+                        break; // overwritten while reading; resynchronise at the top
+                    }
+                    try {
+                        handler.onEvent(scratch, next);
+                    } catch (Exception e) {
+                        errors.increment();
+                        System.err.println("Ingest consumer " + name + " failed on event " + next + ": " + e.getMessage());
+                    }
+                    if (lossy) {
+                        sequence.lazySet(next);
+                    }
+                }
+                finishBatch(next - 1);
+            }
+        }
+
+        /**
+         * A durable consumer only releases its slots once the batch is done, retrying until
+         * it succeeds; while it retries, the ring fills and producers are refused.
+         */
+        private void finishBatch(long lastProcessed) {
+            while (true) {
+                try {
+                    handler.onBatchEnd();
+                    break;
+                } catch (Exception e) {
+                    errors.increment();
+                    System.err.println("Ingest consumer " + name + " failed to finish batch: " + e.getMessage());
+                    if (lossy || !running) {
+                        break;
+                    }
+                    LockSupport.parkNanos(RETRY_BACKOFF_NANOS);
+                }
+            }
+            sequence.lazySet(lastProcessed);
+        }
+
+        private void await(long next) {
+            waiting = true;
+            // Re-check after announcing; a publish either is seen here or sees waiting and unparks
+            if (running && published.get((int) (next & mask)) < next) {
+                LockSupport.parkNanos(this, idleParkNanos);
+            }
+            waiting = false;
+        }
+
+        private boolean read(long expected) {
+            int index = (int) (expected & mask);
+            if (published.get(index) != expected) {
+                return false;
+            }
+            scratch.copyFrom(events[index]);
+            VarHandle.loadLoadFence();
+            return published.get(index) == expected;
+        }
+    }
+}
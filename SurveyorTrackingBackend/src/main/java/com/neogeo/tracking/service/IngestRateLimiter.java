@@ -0,0 +1,100 @@
+package com.neogeo.tracking.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Token bucket per surveyor for live-location ingest. A bucket holds up to
+ * {@code tracking.ratelimit.ingest.burst} updates and refills at
+ * {@code tracking.ratelimit.ingest.per-second}; the burst covers a device flushing the
+ * points it buffered while offline.
+ * <p>
+ * Each bucket is a single {@link AtomicLong}: the upper 40 bits hold the last refill time
+ * (milliseconds since this service started) and the lower 24 bits the tokens in thousandths,
+ * so taking a token is one compare-and-set with no lock and no allocation.
+ */
+@Service
+public class IngestRateLimiter {
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI_TOKENS = 1000;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long startMillis = System.currentTimeMillis();
+    private final boolean enabled;
+    private final double perSecond;
+    private final long capacity;
+    private final Counter limitedCounter;
+
+    public IngestRateLimiter(MeterRegistry meterRegistry,
+                             @Value("${tracking.ratelimit.ingest.enabled:true}") boolean enabled,
+                             @Value("${tracking.ratelimit.ingest.per-second:2}") double perSecond,
+                             @Value("${tracking.ratelimit.ingest.burst:60}") int burst) {
+        if (burst < 1 || burst * MILLI_TOKENS > TOKEN_MASK) {
+            throw new IllegalArgumentException("tracking.ratelimit.ingest.burst must be between 1 and " + TOKEN_MASK / MILLI_TOKENS);
+        }
+        this.enabled = enabled;
+        this.perSecond = perSecond;
+        this.capacity = burst * MILLI_TOKENS;
+        this.limitedCounter = Counter.builder("tracking.ingest.rate-limited")
+            .description("Live updates refused by the per-surveyor rate limit")
+            .register(meterRegistry);
+        Gauge.builder("tracking.ingest.rate-limit.buckets", buckets, Map::size)
+            .description("Surveyors with an active rate-limit bucket")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes one token from the surveyor's bucket.
+     * @return 0 if the update may proceed, otherwise the milliseconds until a token is available
+     */
+    public long tryAcquire(String surveyorId) {
+        if (!enabled || surveyorId == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis() - startMillis;
+        AtomicLong bucket = buckets.computeIfAbsent(surveyorId, id -> new AtomicLong(pack(now, capacity)));
+        while (true) {
+            long current = bucket.get();
+            long tokens = refill(current, now);
+            if (tokens < MILLI_TOKENS) {
+                limitedCounter.increment();
+                return Math.max(1, (long) Math.ceil((MILLI_TOKENS - tokens) / perSecond));
+            }
+            if (bucket.compareAndSet(current, pack(now, tokens - MILLI_TOKENS))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Forgets buckets that have refilled completely; they are recreated full on demand.
+     */
+    @Scheduled(fixedDelayString = "${tracking.ratelimit.ingest.cleanup-ms:300000}")
+    public void purgeFull() {
+        long now = System.currentTimeMillis() - startMillis;
+        buckets.values().removeIf(bucket -> refill(bucket.get(), now) >= capacity);
+    }
+
+    private long refill(long state, long now) {
+        long last = state >>> TOKEN_BITS;
+        long tokens = state & TOKEN_MASK;
+        long elapsed = Math.max(0, now - last);
+        // perSecond tokens per second is perSecond thousandths per millisecond
+        return Math.min(capacity, tokens + (long) (elapsed * perSecond));
+    }
+
+    private static long pack(long millis, long tokens) {
+        return millis << TOKEN_BITS | tokens;
+    }
+}
@@ -0,0 +1,252 @@
+package com.neogeo.tracking.service;
+
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-surveyor record of device sequence numbers for idempotent ingest.
+ * <p>
+ * Each surveyor has a high watermark plus a 64-bit window of the sequences just below it,
+ * so a retry of anything recent is recognised in memory even when updates arrive out of
+ * order. Older sequences, and everything after a restart, fall through to the
+ * {@code (surveyor_id, device_sequence)} unique index and are skipped by persistence.
+ * <p>
+ * The durable sequence is a contiguous low watermark: every sequence from the first one this
+ * process saw for the surveyor up to it has been written to {@code location_track} or
+ * deliberately filtered out. A client may drop buffered points up to it. Sequences completed
+ * above a gap are held until the gap fills, so if 7 arrives before 6 the watermark stays
+ * below 6 until 6 is stored. A gap that stays open for {@code tracking.ingest.dedupe.gap-timeout-ms}
+ * is given up on, because the client no longer has that point (its buffer overflowed). After a
+ * restart the watermark starts just below the first sequence seen; clients resend their buffer
+ * oldest first, so that is normally the oldest point they still hold.
+ */
+@Service
+public class IngestSequenceTracker {
+
+    private static final int WINDOW = Long.SIZE;
+
+    private final Map<String, SequenceState> states = new ConcurrentHashMap<>();
+    private final long stateTtlMs;
+    private final long gapTimeoutMs;
+    private final Counter duplicateCounter;
+
+    public IngestSequenceTracker(MeterRegistry meterRegistry,
+                                 @Value("${tracking.ingest.dedupe.state-ttl-minutes:60}") long stateTtlMinutes,
+                                 @Value("${tracking.ingest.dedupe.gap-timeout-ms:600000}") long gapTimeoutMs) {
+        this.stateTtlMs = stateTtlMinutes * 60_000;
+        this.gapTimeoutMs = gapTimeoutMs;
+        this.duplicateCounter = Counter.builder("tracking.ingest.duplicates")
+            .description("Retried updates recognised by their device sequence")
+            .register(meterRegistry);
+    }
+
+    /**
+     * True if the sequence was already handled for this surveyor. Null sequences are never duplicates.
+     */
+    public boolean isDuplicate(String surveyorId, Long sequence) {
+        if (sequence == null) {
+            return false;
+        }
+        SequenceState state = states.get(surveyorId);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            if (state.seen(sequence)) {
+                duplicateCounter.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Counts an update that is about to be published. Follow with {@link #published} or
+     * {@link #abortPersist}; persistence then reports it with {@link #persisted}.
+     */
+    public void beginPersist(String surveyorId) {
+        SequenceState state = stateFor(surveyorId);
+        synchronized (state) {
+            state.pending++;
+        }
+    }
+
+    /**
+     * Undoes {@link #beginPersist} for an update the event bus did not accept.
+     */
+    public void abortPersist(String surveyorId) {
+        SequenceState state = states.get(surveyorId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.pending > 0) {
+                state.pending--;
+            }
+        }
+    }
+
+    /**
+     * Marks a sequence as seen after the event bus accepted it; it becomes durable in {@link #persisted}.
+     */
+    public void published(String surveyorId, Long sequence) {
+        SequenceState state = stateFor(surveyorId);
+        synchronized (state) {
+            if (sequence != null) {
+                state.markSeen(sequence);
+            }
+            state.lastSeenAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Marks a sequence as seen and complete: it was filtered out and will not be stored.
+     */
+    public void handled(String surveyorId, Long sequence) {
+        SequenceState state = stateFor(surveyorId);
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            if (sequence != null) {
+                state.markSeen(sequence);
+                state.complete(sequence, now, gapTimeoutMs);
+            }
+            state.lastSeenAt = now;
+        }
+    }
+
+    /**
+     * Called by persistence once the row of a published update is stored (or skipped as a duplicate).
+     */
+    public void persisted(String surveyorId, Long sequence) {
+        SequenceState state = states.get(surveyorId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.pending > 0) {
+                state.pending--;
+            }
+            if (sequence != null) {
+                state.markSeen(sequence);
+                state.complete(sequence, System.currentTimeMillis(), gapTimeoutMs);
+            }
+        }
+    }
+
+    /**
+     * Highest sequence the client no longer needs to keep, or null if none is known yet.
+     */
+    public Long durableSequence(String surveyorId) {
+        SequenceState state = states.get(surveyorId);
+        if (state == null) {
+            return null;
+        }
+        synchronized (state) {
+            state.skipStaleGap(System.currentTimeMillis(), gapTimeoutMs);
+            return state.advanced ? state.watermark : null;
+        }
+    }
+
+    public void countDatabaseDuplicate() {
+        duplicateCounter.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.ingest.dedupe.cleanup-ms:300000}")
+    public void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - stateTtlMs;
+        states.values().removeIf(state -> {
+            synchronized (state) {
+                return state.pending == 0 && state.lastSeenAt < cutoff;
+            }
+        });
+    }
+
+    private SequenceState stateFor(String surveyorId) {
+        return states.computeIfAbsent(surveyorId, id -> new SequenceState());
+    }
+
+    private static final class SequenceState {
+        private boolean hasSequence;
+        private long highest;
+        // Bit i set: sequence (highest - i) has been handled
+        private long window;
+        private int pending;
+        // Every sequence in (first seen - 1, watermark] is complete; meaningful once hasWatermark
+        private boolean hasWatermark;
+        private long watermark;
+        // The watermark has covered at least one real sequence
+        private boolean advanced;
+        // Completed sequences above the watermark, waiting for the gap below them to fill
+        private final TreeSet<Long> completed = new TreeSet<>();
+        private long gapSince;
+        private long lastSeenAt = System.currentTimeMillis();
+
+        private boolean seen(long sequence) {
+            if (!hasSequence || sequence > highest) {
+                return false;
+            }
+            long distance = highest - sequence;
+            return distance < WINDOW && (window >>> distance & 1L) != 0;
+        }
+
+        private void markSeen(long sequence) {
+            if (!hasWatermark) {
+                // Nothing below the first sequence this process sees is known; start just under it
+                hasWatermark = true;
+                watermark = sequence - 1;
+            }
+            if (!hasSequence) {
+                hasSequence = true;
+                highest = sequence;
+                window = 1L;
+            } else if (sequence > highest) {
+                long shift = sequence - highest;
+                window = shift >= WINDOW ? 1L : window << shift | 1L;
+                highest = sequence;
+            } else if (highest - sequence < WINDOW) {
+                window |= 1L << (highest - sequence);
+            }
+        }
+
+        private void complete(long sequence, long now, long gapTimeoutMs) {
+            if (sequence <= watermark) {
+                return;
+            }
+            if (completed.isEmpty()) {
+                gapSince = now;
+            }
+            completed.add(sequence);
+            drain(now);
+            skipStaleGap(now, gapTimeoutMs);
+        }
+
+        // Moves the watermark over completed sequences; a gap left above it starts its clock now
+        private void drain(long now) {
+            boolean moved = false;
+            while (!completed.isEmpty() && completed.first() == watermark + 1) {
+                watermark = completed.pollFirst();
+                moved = true;
+            }
+            if (moved) {
+                advanced = true;
+                gapSince = now;
+            }
+        }
+
+        // The client resends everything it still holds well within the timeout; a gap this old is a point it lost
+        private void skipStaleGap(long now, long gapTimeoutMs) {
+            if (!completed.isEmpty() && gapTimeoutMs > 0 && now - gapSince >= gapTimeoutMs) {
+                watermark = completed.first() - 1;
+                drain(now);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+/**
+ * In-memory latest known position per surveyor.
+ * Warmed once from the database at startup and kept current by ingest, so
+ * snapshots for new subscribers and dashboards never query {@code location_track}.
+ * Every position that becomes the latest is also handed to the {@link NearestSurveyorIndex}.
+ */
+@Service
+public class LatestLocationStore {
+
+    private final LocationTrackRepository locationTrackRepository;
+    private final NearestSurveyorIndex nearestIndex;
+    private final Map<String, LiveLocationMessage> latest = new ConcurrentHashMap<>();
+
+    public LatestLocationStore(LocationTrackRepository locationTrackRepository, NearestSurveyorIndex nearestIndex) {
+        this.locationTrackRepository = locationTrackRepository;
+        this.nearestIndex = nearestIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<LocationTrack> tracks = locationTrackRepository.findLatestForEachSurveyor();
+            for (LocationTrack track : tracks) {
+                update(new LiveLocationMessage(track.getSurveyorId(), track.getLatitude(),
+                    track.getLongitude(), track.getTimestamp()));
+            }
+            System.out.println("Latest-position store warmed with " + tracks.size() + " surveyors");
+        } catch (RuntimeException e) {
+            System.err.println("Could not warm latest-position store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a position unless a newer one is already known for the surveyor.
+     */
+    public void update(LiveLocationMessage message) {
+        if (message == null || message.getSurveyorId() == null || message.getTimestamp() == null) {
+            return;
+        }
+        LiveLocationMessage current = latest.merge(message.getSurveyorId(), message, (existing, candidate) ->
+            candidate.getTimestamp().isBefore(existing.getTimestamp()) ? existing : candidate);
+        if (current == message) {
+            nearestIndex.update(message.getSurveyorId(), message.getLatitude(), message.getLongitude(),
+                message.getTimestamp().toEpochMilli());
+        }
+    }
+
+    public LiveLocationMessage get(String surveyorId) {
+        return latest.get(surveyorId);
+    }
+
+    public List<LiveLocationMessage> getAll() {
+        return new ArrayList<>(latest.values());
+    }
+
+    public int size() {
+        return latest.size();
+    }
+}
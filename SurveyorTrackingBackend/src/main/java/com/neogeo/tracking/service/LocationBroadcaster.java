@@ -0,0 +1,85 @@
+package com.neogeo.tracking.service;
+
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Broadcast path that serializes each payload exactly once.
+ * The JSON bytes are wrapped in a message that bypasses the template's converters;
+ * the broker then hands the same byte array to every subscriber session.
+ */
+@Service
+public class LocationBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public LocationBroadcaster(SimpMessagingTemplate messagingTemplate) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    }
+
+    /**
+     * Serializes the payload to UTF-8 JSON. Callers must not modify the returned array.
+     */
+    public byte[] encode(Object payload) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    public void broadcast(String destination, Object payload) throws JsonProcessingException {
+        send(destination, encode(payload));
+    }
+
+    /**
+     * Encodes the payload once and publishes the same bytes to every destination.
+     */
+    public void broadcast(Collection<String> destinations, Object payload) throws JsonProcessingException {
+        byte[] encoded = encode(payload);
+        for (String destination : destinations) {
+            send(destination, encoded);
+        }
+    }
+
+    /**
+     * Publishes an already encoded JSON payload. Headers are created per send because
+     * the template finalizes them with the destination; the payload is shared.
+     */
+    public void send(String destination, byte[] encoded) {
+        messagingTemplate.send(destination, createMessage(encoded, null));
+    }
+
+    /**
+     * Delivers an already encoded payload to a single session, which must be subscribed
+     * to {@code /user/queue/...} for the given destination.
+     */
+    public void sendToSession(String sessionId, String destination, byte[] encoded) {
+        messagingTemplate.send("/user/" + sessionId + destination, createMessage(encoded, sessionId));
+    }
+
+    private Message<byte[]> createMessage(byte[] encoded, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (sessionId != null) {
+            // A user name equal to the session id targets exactly that session
+            accessor.setSessionId(sessionId);
+        }
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,180 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationStreamFrame;
+
+/**
+ * Bounded, sequenced log of coalesced position and online-status changes.
+ * Fed by {@link FleetLocationBatcher} flushes and a periodic status sweep; streaming
+ * clients resume from any sequence still held in the log instead of re-fetching state.
+ * <p>
+ * Sequences restart at 1 with the process, so event ids carry the log's epoch (its start
+ * time) and an id from an earlier process never resumes against this one.
+ */
+@Service
+public class LocationChangeLog {
+
+    private static final String ONLINE = "Online";
+    private static final String OFFLINE = "Offline";
+    private static final int OFFLINE_THRESHOLD_MINUTES = 5;
+
+    private final LatestLocationStore latestLocationStore;
+    private final SurveyorService surveyorService;
+
+    private final Change[] ring;
+    private final long epoch = System.currentTimeMillis();
+    private long nextSequence = 1;
+    private final Map<String, String> statuses = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    public LocationChangeLog(LatestLocationStore latestLocationStore,
+                             SurveyorService surveyorService,
+                             @Value("${tracking.stream.change-log-capacity:4096}") int capacity) {
+        this.latestLocationStore = latestLocationStore;
+        this.surveyorService = surveyorService;
+        this.ring = new Change[capacity];
+    }
+
+    /**
+     * Registers a callback run after every batch of appended changes.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void recordLocations(List<LiveLocationMessage> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            for (LiveLocationMessage location : locations) {
+                append(new Change(location.getSurveyorId(), location, null));
+                // A position report brings a surveyor online without waiting for the sweep
+                if (!ONLINE.equals(statuses.put(location.getSurveyorId(), ONLINE))) {
+                    append(new Change(location.getSurveyorId(), null, ONLINE));
+                }
+            }
+        }
+        notifyListeners();
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.stream.status-sweep-ms:5000}")
+    public void sweepStatuses() {
+        Instant threshold = Instant.now().minus(OFFLINE_THRESHOLD_MINUTES, ChronoUnit.MINUTES);
+        boolean changed = false;
+        synchronized (this) {
+            for (LiveLocationMessage latest : latestLocationStore.getAll()) {
+                String surveyorId = latest.getSurveyorId();
+                String status = latest.getTimestamp().isAfter(threshold) || surveyorService.isSurveyorOnline(surveyorId)
+                    ? ONLINE : OFFLINE;
+                if (!status.equals(statuses.put(surveyorId, status))) {
+                    append(new Change(surveyorId, null, status));
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Current state of every known surveyor, positioned at the latest sequence.
+     */
+    public synchronized LocationStreamFrame snapshot() {
+        return new LocationStreamFrame(nextSequence - 1, latestLocationStore.getAll(), new LinkedHashMap<>(statuses));
+    }
+
+    /**
+     * Coalesced changes after the given sequence, or null if part of that range
+     * has already been evicted and the caller needs a fresh snapshot.
+     */
+    public synchronized LocationStreamFrame since(long sequence) {
+        long latest = nextSequence - 1;
+        long oldestHeld = Math.max(1, nextSequence - ring.length);
+        if (sequence > latest || sequence < oldestHeld - 1) {
+            return null;
+        }
+
+        Map<String, LiveLocationMessage> locations = new LinkedHashMap<>();
+        Map<String, String> changedStatuses = new LinkedHashMap<>();
+        for (long seq = sequence + 1; seq <= latest; seq++) {
+            Change change = ring[(int) (seq % ring.length)];
+            if (change.location != null) {
+                locations.put(change.surveyorId, change.location);
+            } else {
+                changedStatuses.put(change.surveyorId, change.status);
+            }
+        }
+        return new LocationStreamFrame(latest, new ArrayList<>(locations.values()), changedStatuses);
+    }
+
+    public synchronized long latestSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * Event id for a sequence of this log, as {@code <epoch>-<sequence>}.
+     */
+    public String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /**
+     * @return the sequence in an event id issued by this log, or null if the id is malformed
+     *         or came from another epoch (a previous run of the server)
+     */
+    public Long sequenceOf(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        int separator = eventId.indexOf('-');
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(eventId.substring(0, separator).trim()) != epoch) {
+                return null;
+            }
+            return Long.parseLong(eventId.substring(separator + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void append(Change change) {
+        ring[(int) (nextSequence % ring.length)] = change;
+        nextSequence++;
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private static final class Change {
+        private final String surveyorId;
+        private final LiveLocationMessage location;
+        private final String status;
+
+        private Change(String surveyorId, LiveLocationMessage location, String status) {
+            this.surveyorId = surveyorId;
+            this.location = location;
+            this.status = status;
+        }
+    }
+}
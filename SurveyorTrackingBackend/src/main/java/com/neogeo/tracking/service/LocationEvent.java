@@ -0,0 +1,60 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+/**
+ * Mutable slot of the {@link IngestEventBus} ring. Instances are allocated once and reused;
+ * handlers must copy anything they keep beyond {@link LocationEventHandler#onEvent}.
+ */
+public final class LocationEvent {
+    private String surveyorId;
+    private double latitude;
+    private double longitude;
+    private Instant timestamp;
+    private Long sequence;
+
+    void set(LiveLocationMessage message) {
+        this.surveyorId = message.getSurveyorId();
+        this.latitude = message.getLatitude();
+        this.longitude = message.getLongitude();
+        this.timestamp = message.getTimestamp();
+        this.sequence = message.getSequence();
+    }
+
+    void copyFrom(LocationEvent other) {
+        this.surveyorId = other.surveyorId;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.timestamp = other.timestamp;
+        this.sequence = other.sequence;
+    }
+
+    public LiveLocationMessage toMessage() {
+        return new LiveLocationMessage(surveyorId, latitude, longitude, timestamp);
+    }
+
+    public String getSurveyorId() {
+        return surveyorId;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Device sequence number, or null for clients that do not send one.
+     */
+    public Long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,16 @@
+package com.neogeo.tracking.service;
+
+/**
+ * Consumer of the {@link IngestEventBus}. Each handler runs on its own thread and sees
+ * events in publish order.
+ */
+public interface LocationEventHandler {
+
+    void onEvent(LocationEvent event, long sequence) throws Exception;
+
+    /**
+     * Called after each run of consecutive events, e.g. to flush a batch.
+     */
+    default void onBatchEnd() throws Exception {
+    }
+}
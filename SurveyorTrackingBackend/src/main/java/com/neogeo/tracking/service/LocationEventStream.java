@@ -0,0 +1,189 @@
+package com.neogeo.tracking.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.neogeo.tracking.dto.LocationStreamFrame;
+
+/**
+ * Server-Sent Events fan-out of the {@link LocationChangeLog}.
+ * Each client keeps its own cursor into the log; a new client, or one whose
+ * {@code Last-Event-ID} has been evicted, gets a {@code snapshot} event, after which
+ * only coalesced {@code delta} events are sent. Event ids are change-log ids
+ * ({@link LocationChangeLog#eventId}), so an id from before a restart gets a snapshot.
+ * <p>
+ * Writes happen on {@code tracking.sse.dispatch-threads} dedicated threads, not on the thread
+ * that appended to the log. A subscriber has at most one write queued; while it is slow,
+ * later changes are folded into its next delta.
+ */
+@Service
+public class LocationEventStream implements DisposableBean {
+
+    public static final String SNAPSHOT_EVENT = "snapshot";
+    public static final String DELTA_EVENT = "delta";
+
+    private final LocationChangeLog changeLog;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final long timeoutMs;
+    private final long reconnectMs;
+    // Queue length is bounded by the subscriber count: each has at most one pending catch-up
+    private final ExecutorService dispatcher;
+
+    public LocationEventStream(LocationChangeLog changeLog,
+                               @Value("${tracking.sse.timeout-ms:600000}") long timeoutMs,
+                               @Value("${tracking.sse.reconnect-ms:3000}") long reconnectMs,
+                               @Value("${tracking.sse.dispatch-threads:4}") int dispatchThreads) {
+        this.changeLog = changeLog;
+        this.timeoutMs = timeoutMs;
+        this.reconnectMs = reconnectMs;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "sse-dispatch-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        changeLog.addListener(this::dispatch);
+    }
+
+    /**
+     * Opens a stream, resuming after {@code lastEventId} when it is from this run of the log
+     * and the log still covers it.
+     */
+    public SseEmitter open(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscriber.lock.lock();
+        try {
+            Long lastSequence = changeLog.sequenceOf(lastEventId);
+            LocationStreamFrame resumed = lastSequence != null ? changeLog.since(lastSequence) : null;
+            if (resumed != null) {
+                subscriber.cursor = resumed.getSequence();
+                if (!resumed.isEmpty() && !send(subscriber, DELTA_EVENT, resumed)) {
+                    return emitter;
+                }
+            } else {
+                LocationStreamFrame snapshot = changeLog.snapshot();
+                subscriber.cursor = snapshot.getSequence();
+                if (!send(subscriber, SNAPSHOT_EVENT, snapshot)) {
+                    return emitter;
+                }
+            }
+            subscribers.add(subscriber);
+        } finally {
+            subscriber.lock.unlock();
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Comment frames keep idle connections open through proxies.
+     */
+    @Scheduled(fixedDelayString = "${tracking.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.lock.lock();
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                drop(subscriber, e);
+            } finally {
+                subscriber.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+    }
+
+    // Runs on the thread that changed the log, so it only queues work
+    private void dispatch() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(() -> catchUp(subscriber));
+                } catch (RejectedExecutionException e) {
+                    subscriber.scheduled.set(false);
+                }
+            }
+        }
+    }
+
+    private void catchUp(Subscriber subscriber) {
+        // Cleared before reading the log, so a change made during the write schedules another pass
+        subscriber.scheduled.set(false);
+        subscriber.lock.lock();
+        try {
+            LocationStreamFrame frame = changeLog.since(subscriber.cursor);
+            if (frame == null) {
+                // Fell behind the log; start over from current state
+                frame = changeLog.snapshot();
+                subscriber.cursor = frame.getSequence();
+                send(subscriber, SNAPSHOT_EVENT, frame);
+            } else if (!frame.isEmpty()) {
+                subscriber.cursor = frame.getSequence();
+                send(subscriber, DELTA_EVENT, frame);
+            }
+        } finally {
+            subscriber.lock.unlock();
+        }
+    }
+
+    private boolean send(Subscriber subscriber, String eventName, LocationStreamFrame frame) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                .id(changeLog.eventId(frame.getSequence()))
+                .name(eventName)
+                .reconnectTime(reconnectMs)
+                .data(frame, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+            return false;
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception e) {
+        subscribers.remove(subscriber);
+        subscriber.emitter.completeWithError(e);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // Held across socket writes, so not a monitor: a virtual thread blocked here must not pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long cursor;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.controller.ViewportController;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationAck;
+import com.neogeo.tracking.model.Geometries;
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+/**
+ * Ingest pipeline for accepted live locations. {@link #process} only publishes to the
+ * {@link IngestEventBus}; three consumers then work independently:
+ * <ul>
+ *   <li>presence - latest-position store and online status (lossy)</li>
+ *   <li>broadcast - WebSocket topics, viewport sessions and fleet batching (lossy)</li>
+ *   <li>persistence - batched inserts into {@code location_track} and the recent-track buffer (durable)</li>
+ * </ul>
+ * A slow database therefore no longer delays WebSocket delivery. Further consumers, such as
+ * analytics, register with {@link IngestEventBus#addConsumer}.
+ * <p>
+ * Updates first pass the {@link IngestSequenceTracker}, which drops retries of a device
+ * sequence already handled, and then the {@link LocationNoiseFilter}; a suppressed update
+ * (jitter, a poor fix, or a surveyor standing still) only refreshes the surveyor's last-seen time.
+ * Every acknowledgement carries the {@link ReportingIntervalAdvisor}'s interval hint.
+ */
+@Service
+public class LocationIngestService {
+
+    private final IngestEventBus eventBus;
+    private final LocationNoiseFilter noiseFilter;
+    private final IngestSequenceTracker sequenceTracker;
+    private final SurveyorService surveyorService;
+    private final ReportingIntervalAdvisor intervalAdvisor;
+
+    public LocationIngestService(IngestEventBus eventBus,
+                                 LocationNoiseFilter noiseFilter,
+                                 IngestSequenceTracker sequenceTracker,
+                                 LocationTrackRepository repository,
+                                 LatestLocationStore latestLocationStore,
+                                 SurveyorService surveyorService,
+                                 LocationBroadcaster locationBroadcaster,
+                                 SurveyorDirectory surveyorDirectory,
+                                 ViewportSubscriptionRegistry viewportRegistry,
+                                 FleetLocationBatcher fleetLocationBatcher,
+                                 RecentTrackBuffer recentTrackBuffer,
+                                 ReportingIntervalAdvisor intervalAdvisor,
+                                 @Value("${tracking.ingest.persist-batch-size:500}") int persistBatchSize) {
+        this.eventBus = eventBus;
+        this.noiseFilter = noiseFilter;
+        this.sequenceTracker = sequenceTracker;
+        this.surveyorService = surveyorService;
+        this.intervalAdvisor = intervalAdvisor;
+        eventBus.addConsumer("presence", (event, sequence) -> {
+            latestLocationStore.update(event.toMessage());
+            surveyorService.updateSurveyorActivity(event.getSurveyorId());
+        }, true);
+        eventBus.addConsumer("broadcast", (event, sequence) -> {
+            LiveLocationMessage message = event.toMessage();
+            byte[] encoded = locationBroadcaster.encode(message);
+            locationBroadcaster.send("/topic/location/" + message.getSurveyorId(), encoded);
+            for (String topic : surveyorDirectory.groupTopics(message.getSurveyorId())) {
+                locationBroadcaster.send(topic, encoded);
+            }
+            for (String sessionId : viewportRegistry.sessionsContaining(message.getLatitude(), message.getLongitude())) {
+                locationBroadcaster.sendToSession(sessionId, ViewportController.VIEWPORT_QUEUE, encoded);
+            }
+            fleetLocationBatcher.enqueue(message);
+        }, true);
+        eventBus.addConsumer("persistence", new PersistenceHandler(repository, recentTrackBuffer, sequenceTracker, persistBatchSize), false);
+    }
+
+    /**
+     * Hands an authenticated update to the pipeline.
+     * Must be called on the surveyor's {@link IngestDispatcher} lane.
+     * @return the acknowledgement; {@code rejected} if persistence is a full ring behind
+     */
+    public LocationAck process(LiveLocationMessage message) {
+        String surveyorId = message.getSurveyorId();
+        if (sequenceTracker.isDuplicate(surveyorId, message.getSequence())) {
+            surveyorService.updateSurveyorActivity(surveyorId);
+            return ack(LocationAck.DUPLICATE, message);
+        }
+        intervalAdvisor.observe(message);
+        if (noiseFilter.apply(message) != LocationNoiseFilter.Decision.KEPT) {
+            surveyorService.updateSurveyorActivity(surveyorId);
+            sequenceTracker.handled(surveyorId, message.getSequence());
+            return ack(LocationAck.ACCEPTED, message);
+        }
+
+        sequenceTracker.beginPersist(surveyorId);
+        if (!eventBus.publish(message)) {
+            sequenceTracker.abortPersist(surveyorId);
+            return ack(LocationAck.REJECTED, message);
+        }
+        sequenceTracker.published(surveyorId, message.getSequence());
+        return ack(LocationAck.ACCEPTED, message);
+    }
+
+    private LocationAck ack(String status, LiveLocationMessage message) {
+        LocationAck ack = new LocationAck(status, message.getSurveyorId(), message.getTimestamp(), null,
+            LocationAck.REJECTED.equals(status) ? "Ingest queue full, retry later" : null);
+        ack.setSequence(message.getSequence());
+        ack.setDurableSequence(sequenceTracker.durableSequence(message.getSurveyorId()));
+        intervalAdvisor.advise(ack, message);
+        return ack;
+    }
+
+    /**
+     * Collects consecutive events and writes them in one {@code saveAll} call.
+     * If the batch hits the device-sequence unique index, rows are written one by one
+     * and the duplicates skipped.
+     */
+    private static final class PersistenceHandler implements LocationEventHandler {
+        private final LocationTrackRepository repository;
+        private final RecentTrackBuffer recentTrackBuffer;
+        private final IngestSequenceTracker sequenceTracker;
+        private final int batchSize;
+        private final List<LocationTrack> batch = new ArrayList<>();
+
+        private PersistenceHandler(LocationTrackRepository repository, RecentTrackBuffer recentTrackBuffer,
+                                   IngestSequenceTracker sequenceTracker, int batchSize) {
+            this.repository = repository;
+            this.recentTrackBuffer = recentTrackBuffer;
+            this.sequenceTracker = sequenceTracker;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void onEvent(LocationEvent event, long sequence) {
+            LocationTrack track = new LocationTrack(
+                event.getSurveyorId(),
+                event.getLatitude(),
+                event.getLongitude(),
+                event.getTimestamp(),
+                Geometries.point(event.getLatitude(), event.getLongitude())
+            );
+            track.setDeviceSequence(event.getSequence());
+            batch.add(track);
+            if (batch.size() >= batchSize) {
+                onBatchEnd();
+            }
+        }
+
+        @Override
+        public void onBatchEnd() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<LocationTrack> saved;
+            try {
+                saved = repository.saveAll(batch);
+            } catch (DataIntegrityViolationException e) {
+                saveIndividually();
+                return;
+            } catch (RuntimeException e) {
+                // The bus retries the batch; retry with fresh entities, not ones the failed saveAll may have given ids
+                batch.replaceAll(PersistenceHandler::fresh);
+                throw e;
+            }
+            for (LocationTrack track : saved) {
+                recentTrackBuffer.append(track);
+                sequenceTracker.persisted(track.getSurveyorId(), track.getDeviceSequence());
+            }
+            batch.clear();
+        }
+
+        // Rows leave the batch as they are handled, so a retry after a failure does not repeat them
+        private void saveIndividually() {
+            Iterator<LocationTrack> rows = batch.iterator();
+            while (rows.hasNext()) {
+                LocationTrack row = rows.next();
+                try {
+                    recentTrackBuffer.append(repository.save(fresh(row)));
+                } catch (DataIntegrityViolationException e) {
+                    sequenceTracker.countDatabaseDuplicate();
+                    System.err.println("Skipping duplicate location for " + row.getSurveyorId() +
+                        " (sequence " + row.getDeviceSequence() + ")");
+                }
+                sequenceTracker.persisted(row.getSurveyorId(), row.getDeviceSequence());
+                rows.remove();
+            }
+        }
+
+        // A new entity with the same values: a failed saveAll may have assigned ids that were rolled back
+        private static LocationTrack fresh(LocationTrack row) {
+            LocationTrack track = new LocationTrack(row.getSurveyorId(), row.getLatitude(), row.getLongitude(),
+                row.getTimestamp(), row.getGeom());
+            track.setDeviceSequence(row.getDeviceSequence());
+            return track;
+        }
+    }
+}
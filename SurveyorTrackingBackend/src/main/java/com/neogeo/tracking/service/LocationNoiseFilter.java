@@ -0,0 +1,190 @@
+package com.neogeo.tracking.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-surveyor filter applied before an update enters the {@link IngestEventBus}.
+ * An update is suppressed when
+ * <ul>
+ *   <li>its reported accuracy is worse than {@code tracking.filter.max-accuracy-m}</li>
+ *   <li>it arrives less than {@code tracking.filter.min-interval-ms} after the last kept point</li>
+ *   <li>it is within {@code tracking.filter.min-distance-m} (or its own accuracy radius, if larger)
+ *       of the last kept point, i.e. the surveyor is standing still</li>
+ * </ul>
+ * A stationary surveyor still gets one kept point every {@code tracking.filter.keepalive-seconds},
+ * so tracks do not show gaps. With {@code tracking.filter.kalman.enabled=true} kept and compared
+ * positions are first smoothed by a constant-position Kalman filter whose variance grows with
+ * {@code process-noise-mps} per second and shrinks with each fix's accuracy.
+ * <p>
+ * State is a handful of primitives per surveyor. Updates for one surveyor arrive on its
+ * {@link IngestDispatcher} lane, so the per-state lock is uncontended.
+ */
+@Service
+public class LocationNoiseFilter {
+
+    public enum Decision { KEPT, ACCURACY, INTERVAL, STATIONARY }
+
+    private static final double EARTH_RADIUS_M = 6_371_000;
+
+    private final Map<String, FilterState> states = new ConcurrentHashMap<>();
+    private final Map<Decision, Counter> counters = new EnumMap<>(Decision.class);
+
+    private final boolean enabled;
+    private final double minDistanceM;
+    private final long minIntervalMs;
+    private final long keepaliveMs;
+    private final double maxAccuracyM;
+    private final boolean kalmanEnabled;
+    private final double processNoiseMps;
+    private final double defaultAccuracyM;
+    private final long stateTtlMs;
+
+    public LocationNoiseFilter(MeterRegistry meterRegistry,
+                               @Value("${tracking.filter.enabled:true}") boolean enabled,
+                               @Value("${tracking.filter.min-distance-m:10}") double minDistanceM,
+                               @Value("${tracking.filter.min-interval-ms:0}") long minIntervalMs,
+                               @Value("${tracking.filter.keepalive-seconds:300}") long keepaliveSeconds,
+                               @Value("${tracking.filter.max-accuracy-m:100}") double maxAccuracyM,
+                               @Value("${tracking.filter.kalman.enabled:false}") boolean kalmanEnabled,
+                               @Value("${tracking.filter.kalman.process-noise-mps:3}") double processNoiseMps,
+                               @Value("${tracking.filter.default-accuracy-m:20}") double defaultAccuracyM,
+                               @Value("${tracking.filter.state-ttl-minutes:60}") long stateTtlMinutes) {
+        this.enabled = enabled;
+        this.minDistanceM = minDistanceM;
+        this.minIntervalMs = minIntervalMs;
+        this.keepaliveMs = keepaliveSeconds * 1000;
+        this.maxAccuracyM = maxAccuracyM;
+        this.kalmanEnabled = kalmanEnabled;
+        this.processNoiseMps = processNoiseMps;
+        this.defaultAccuracyM = defaultAccuracyM;
+        this.stateTtlMs = stateTtlMinutes * 60_000;
+
+        for (Decision decision : Decision.values()) {
+            counters.put(decision, Counter.builder("tracking.ingest.filter")
+                .description("Live updates by noise-filter outcome")
+                .tag("result", decision.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        Gauge.builder("tracking.ingest.filter.surveyors", states, Map::size)
+            .description("Surveyors with noise-filter state")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Decides whether an update is stored and broadcast. A kept update may have its
+     * position replaced by the smoothed estimate.
+     */
+    public Decision apply(LiveLocationMessage message) {
+        if (!enabled) {
+            return Decision.KEPT;
+        }
+        Decision decision = evaluate(message);
+        counters.get(decision).increment();
+        return decision;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Drops the state of surveyors that have not reported for {@code tracking.filter.state-ttl-minutes};
+     * their next update is kept unconditionally.
+     */
+    @Scheduled(fixedDelayString = "${tracking.filter.state-cleanup-ms:300000}")
+    public void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - stateTtlMs;
+        states.values().removeIf(state -> state.lastSeenAt < cutoff);
+    }
+
+    private Decision evaluate(LiveLocationMessage message) {
+        Double reported = message.getAccuracy();
+        if (reported != null && reported > maxAccuracyM) {
+            return Decision.ACCURACY;
+        }
+        double accuracy = reported != null && reported > 0 ? reported : defaultAccuracyM;
+        long at = message.getTimestamp().toEpochMilli();
+
+        FilterState state = states.computeIfAbsent(message.getSurveyorId(), id -> new FilterState());
+        synchronized (state) {
+            state.lastSeenAt = System.currentTimeMillis();
+            if (kalmanEnabled) {
+                state.smooth(message.getLatitude(), message.getLongitude(), accuracy, at, processNoiseMps);
+                message.setLatitude(state.estimateLatitude);
+                message.setLongitude(state.estimateLongitude);
+            }
+
+            if (state.hasKept) {
+                long elapsed = at - state.keptAt;
+                if (keepaliveMs <= 0 || elapsed < keepaliveMs) {
+                    if (elapsed < minIntervalMs) {
+                        return Decision.INTERVAL;
+                    }
+                    double moved = distanceMeters(state.keptLatitude, state.keptLongitude,
+                        message.getLatitude(), message.getLongitude());
+                    if (moved < Math.max(minDistanceM, reported != null ? reported : 0)) {
+                        return Decision.STATIONARY;
+                    }
+                }
+            }
+
+            state.hasKept = true;
+            state.keptLatitude = message.getLatitude();
+            state.keptLongitude = message.getLongitude();
+            state.keptAt = at;
+            return Decision.KEPT;
+        }
+    }
+
+    // Equirectangular approximation; exact enough for the few metres the filter compares
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS_M;
+    }
+
+    private static final class FilterState {
+        private boolean hasKept;
+        private double keptLatitude;
+        private double keptLongitude;
+        private long keptAt;
+        private long lastSeenAt;
+
+        // Kalman estimate; variance is in square metres, negative until the first fix
+        private double estimateLatitude;
+        private double estimateLongitude;
+        private double variance = -1;
+        private long estimateAt;
+
+        private void smooth(double latitude, double longitude, double accuracy, long at, double processNoiseMps) {
+            if (variance < 0) {
+                estimateLatitude = latitude;
+                estimateLongitude = longitude;
+                variance = accuracy * accuracy;
+                estimateAt = at;
+                return;
+            }
+            long elapsed = at - estimateAt;
+            if (elapsed > 0) {
+                variance += elapsed * processNoiseMps * processNoiseMps / 1000.0;
+                estimateAt = at;
+            }
+            double gain = variance / (variance + accuracy * accuracy);
+            estimateLatitude += gain * (latitude - estimateLatitude);
+            estimateLongitude += gain * (longitude - estimateLongitude);
+            variance = (1 - gain) * variance;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.neogeo.tracking.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a REST handler as work that {@link AdmissionGate} may refuse with 503 while the
+ * database pool or ingest lanes are under pressure, such as history queries and exports.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LowPriority {
+}
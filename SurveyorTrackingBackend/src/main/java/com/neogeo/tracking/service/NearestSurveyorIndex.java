@@ -0,0 +1,247 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Grid index over the latest position of every surveyor, for k-nearest queries.
+ * <p>
+ * The globe is cut into {@code tracking.nearest.cell-degrees} cells. A query visits rings of
+ * cells around the query point, keeping the best k by haversine distance, and stops once the
+ * closest possible point in the next ring is farther than the current k-th match. When the fleet
+ * is so sparse that rings would cover more cells than are occupied, it scans every entry instead.
+ * <p>
+ * Fed by {@link LatestLocationStore}. Entries are immutable and moved between cells under the
+ * per-surveyor lock of the entry map, so queries never block and see each surveyor at most once.
+ */
+@Service
+public class NearestSurveyorIndex {
+
+    private static final double EARTH_RADIUS_M = 6_371_000;
+    // Rings beyond this many cells past the occupied count are not worth walking
+    private static final int BRUTE_FORCE_SLACK = 64;
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int cols;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry>> cells = new ConcurrentHashMap<>();
+
+    public NearestSurveyorIndex(@Value("${tracking.nearest.cell-degrees:0.05}") double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("tracking.nearest.cell-degrees must be in (0, 90]");
+        }
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.cols = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public void update(String surveyorId, double latitude, double longitude, long timestampMillis) {
+        Entry next = new Entry(surveyorId, latitude, longitude, timestampMillis, cellKey(row(latitude), col(longitude)));
+        entries.compute(surveyorId, (id, previous) -> {
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+            cells.compute(next.cell, (key, members) -> {
+                Set<Entry> set = members != null ? members : ConcurrentHashMap.newKeySet();
+                set.add(next);
+                return set;
+            });
+            return next;
+        });
+    }
+
+    public void remove(String surveyorId) {
+        entries.computeIfPresent(surveyorId, (id, previous) -> {
+            removeFromCell(previous);
+            return null;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * The k surveyors accepted by {@code filter} closest to the point, nearest first.
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, int k, Predicate<String> filter) {
+        if (k <= 0 || entries.isEmpty()) {
+            return List.of();
+        }
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Neighbor::getDistanceMeters).reversed());
+        int centerRow = row(latitude);
+        int centerCol = col(longitude);
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+        // Offset of the point from the nearest edge of its own cell, in degrees
+        double rowOffset = edgeOffset((latitude + 90) / cellDegrees);
+        double colOffset = edgeOffset((longitude + 180) / cellDegrees);
+        int occupied = cells.size();
+        long visited = 0;
+
+        for (int ring = 0; ; ring++) {
+            if (best.size() == k && ring > 0
+                    && lowerBoundMeters(ring, latitude, rowOffset, colOffset) > best.peek().getDistanceMeters()) {
+                break;
+            }
+            if (2 * ring + 1 > cols || visited > occupied + BRUTE_FORCE_SLACK) {
+                return scanAll(latitude, longitude, latRad, cosLat, k, filter);
+            }
+            for (int dRow = -ring; dRow <= ring; dRow++) {
+                int row = centerRow + dRow;
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                int step = Math.abs(dRow) == ring ? 1 : 2 * ring;
+                for (int dCol = -ring; dCol <= ring; dCol += step) {
+                    visited++;
+                    Set<Entry> members = cells.get(cellKey(row, Math.floorMod(centerCol + dCol, cols)));
+                    if (members != null) {
+                        for (Entry entry : members) {
+                            offer(best, entry, latRad, cosLat, longitude, k, filter);
+                        }
+                    }
+                }
+            }
+        }
+        return sorted(best);
+    }
+
+    private List<Neighbor> scanAll(double latitude, double longitude, double latRad, double cosLat,
+                                   int k, Predicate<String> filter) {
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(k + 1, Comparator.comparingDouble(Neighbor::getDistanceMeters).reversed());
+        for (Entry entry : entries.values()) {
+            offer(best, entry, latRad, cosLat, longitude, k, filter);
+        }
+        return sorted(best);
+    }
+
+    private static void offer(PriorityQueue<Neighbor> best, Entry entry, double latRad, double cosLat, double longitude,
+                              int k, Predicate<String> filter) {
+        double distance = haversineMeters(latRad, cosLat, longitude, entry.latitude, entry.longitude);
+        if (best.size() == k && distance >= best.peek().getDistanceMeters()) {
+            return;
+        }
+        if (filter != null && !filter.test(entry.surveyorId)) {
+            return;
+        }
+        best.add(new Neighbor(entry.surveyorId, entry.latitude, entry.longitude, entry.timestampMillis, distance));
+        if (best.size() > k) {
+            best.poll();
+        }
+    }
+
+    private static List<Neighbor> sorted(PriorityQueue<Neighbor> best) {
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceMeters));
+        return result;
+    }
+
+    /**
+     * Smallest great-circle distance from the query point to any cell at least {@code ring}
+     * cells away in row or column. A point that far in latitude is at least the latitude gap away;
+     * one that far in longitude is either within {@code ring} cells in latitude, where the
+     * meridians are no closer than at {@code maxLat}, or farther in latitude than that.
+     */
+    private double lowerBoundMeters(int ring, double latitude, double rowOffset, double colOffset) {
+        double latGap = Math.toRadians((ring - 1) * cellDegrees + rowOffset);
+        double lonGap = Math.toRadians((ring - 1) * cellDegrees + colOffset);
+        double maxLat = Math.toRadians(Math.min(90, Math.abs(latitude) + ring * cellDegrees));
+        double lonBound = 2 * Math.asin(Math.min(1, Math.cos(maxLat) * Math.sin(Math.min(Math.PI, lonGap) / 2)));
+        return EARTH_RADIUS_M * Math.min(latGap, lonBound);
+    }
+
+    private double edgeOffset(double cellPosition) {
+        double fraction = cellPosition - Math.floor(cellPosition);
+        return Math.min(fraction, 1 - fraction) * cellDegrees;
+    }
+
+    static double haversineMeters(double latRad, double cosLat, double longitude, double otherLatitude, double otherLongitude) {
+        double otherLatRad = Math.toRadians(otherLatitude);
+        double sinLat = Math.sin((otherLatRad - latRad) / 2);
+        double sinLon = Math.sin(Math.toRadians(otherLongitude - longitude) / 2);
+        double h = sinLat * sinLat + cosLat * Math.cos(otherLatRad) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private void removeFromCell(Entry entry) {
+        cells.computeIfPresent(entry.cell, (key, members) -> {
+            members.remove(entry);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private int row(double latitude) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int col(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), cols);
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * cols + col;
+    }
+
+    private static final class Entry {
+        private final String surveyorId;
+        private final double latitude;
+        private final double longitude;
+        private final long timestampMillis;
+        private final long cell;
+
+        private Entry(String surveyorId, double latitude, double longitude, long timestampMillis, long cell) {
+            this.surveyorId = surveyorId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestampMillis = timestampMillis;
+            this.cell = cell;
+        }
+    }
+
+    public static final class Neighbor {
+        private final String surveyorId;
+        private final double latitude;
+        private final double longitude;
+        private final long timestampMillis;
+        private final double distanceMeters;
+
+        private Neighbor(String surveyorId, double latitude, double longitude, long timestampMillis, double distanceMeters) {
+            this.surveyorId = surveyorId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestampMillis = timestampMillis;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public String getSurveyorId() {
+            return surveyorId;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+}
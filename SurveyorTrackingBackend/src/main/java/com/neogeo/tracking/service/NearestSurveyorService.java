@@ -0,0 +1,67 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.dto.NearbySurveyor;
+
+/**
+ * Closest surveyors to a point for dispatch. Positions come from the {@link NearestSurveyorIndex},
+ * project assignment from {@link SurveyorDirectory} and presence from {@link SurveyorService}'s
+ * activity map. Filtering a candidate the directory already knows costs two map lookups; a
+ * candidate it has not seen (created outside {@link SurveyorService}, or deleted) costs one
+ * surveyor query, after which the answer is cached.
+ */
+@Service
+public class NearestSurveyorService {
+
+    private final NearestSurveyorIndex nearestIndex;
+    private final SurveyorDirectory surveyorDirectory;
+    private final SurveyorService surveyorService;
+    private final int maxK;
+
+    public NearestSurveyorService(NearestSurveyorIndex nearestIndex,
+                                  SurveyorDirectory surveyorDirectory,
+                                  SurveyorService surveyorService,
+                                  @Value("${tracking.nearest.max-k:100}") int maxK) {
+        this.nearestIndex = nearestIndex;
+        this.surveyorDirectory = surveyorDirectory;
+        this.surveyorService = surveyorService;
+        this.maxK = maxK;
+    }
+
+    /**
+     * @param project only surveyors assigned to this project, or null for all
+     * @param onlineOnly only surveyors active within the online timeout
+     * @throws IllegalArgumentException if the coordinates are out of range
+     */
+    public List<NearbySurveyor> nearest(double latitude, double longitude, int k, String project, boolean onlineOnly) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("lat must be within [-90, 90] and lon within [-180, 180]");
+        }
+        Predicate<String> filter = null;
+        if (project != null) {
+            filter = id -> surveyorDirectory.get(id).isInProject(project);
+        }
+        if (onlineOnly) {
+            Predicate<String> online = surveyorService::isSurveyorOnline;
+            filter = filter != null ? filter.and(online) : online;
+        }
+
+        List<NearestSurveyorIndex.Neighbor> neighbors =
+            nearestIndex.nearest(latitude, longitude, Math.max(1, Math.min(k, maxK)), filter);
+        List<NearbySurveyor> result = new ArrayList<>(neighbors.size());
+        for (NearestSurveyorIndex.Neighbor neighbor : neighbors) {
+            result.add(new NearbySurveyor(neighbor.getSurveyorId(), neighbor.getLatitude(), neighbor.getLongitude(),
+                Instant.ofEpochMilli(neighbor.getTimestampMillis()), neighbor.getDistanceMeters(),
+                surveyorService.isSurveyorOnline(neighbor.getSurveyorId()),
+                surveyorDirectory.get(neighbor.getSurveyorId()).getProjectName()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,257 @@
+package com.neogeo.tracking.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import com.neogeo.tracking.service.WebSocketSessionMonitor.OverflowPolicy;
+
+/**
+ * Per-session send buffer used in place of Spring's {@code ConcurrentWebSocketSessionDecorator}.
+ * <p>
+ * Like Spring's decorator, one thread at a time writes to the socket while others append to the
+ * buffer and return. Here the buffer is bounded by a frame count and a byte size, and going over
+ * either applies the overflow policy to the waiting STOMP {@code MESSAGE} frames; control frames
+ * (CONNECTED, RECEIPT, ERROR) are never dropped. The newest frame does not count towards the byte
+ * limit and is never the one dropped, so a single frame larger than the limit (a fleet snapshot on
+ * {@code /topic/location/all}) is still delivered. CONFLATE only merges frames of per-surveyor
+ * topics ({@code /topic/location/{id}}); project, city, fleet and viewport destinations carry many
+ * surveyors, so their frames are dropped oldest first instead. A write that takes longer than the
+ * send time limit closes the session.
+ */
+final class OverflowSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final String MESSAGE_FRAME = "MESSAGE\n";
+    private static final String DESTINATION_HEADER = "\ndestination:";
+    private static final String SURVEYOR_TOPIC_PREFIX = "/topic/location/";
+
+    private final WebSocketSessionMonitor monitor;
+    private final OverflowPolicy policy;
+    private final int queueLimit;
+    private final int bufferSizeLimit;
+    private final int sendTimeLimitMs;
+
+    private final Deque<WebSocketMessage<?>> buffer = new ArrayDeque<>();
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    // Held across socket writes, so not a monitor: a virtual thread blocked here must not pin its carrier
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private int bufferBytes;
+    private volatile int queuedFrames;
+    private volatile int queuedBytes;
+    private volatile long sendStartNanos;
+    private volatile boolean closing;
+
+    final AtomicLong sent = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+    final AtomicLong sendNanos = new AtomicLong();
+    final AtomicLong maxSendNanos = new AtomicLong();
+
+    OverflowSessionDecorator(WebSocketSession session, WebSocketSessionMonitor monitor, OverflowPolicy policy,
+                             int queueLimit, int bufferSizeLimit, int sendTimeLimitMs) {
+        super(session);
+        this.monitor = monitor;
+        this.policy = policy;
+        this.queueLimit = queueLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    @Override
+    public void sendMessage(@NonNull WebSocketMessage<?> message) throws IOException {
+        if (closing) {
+            return;
+        }
+        boolean overLimit;
+        bufferLock.lock();
+        try {
+            buffer.add(message);
+            bufferBytes += message.getPayloadLength();
+            overLimit = !trim();
+            updateDepth();
+        } finally {
+            bufferLock.unlock();
+        }
+        if (overLimit) {
+            disconnect("outbound buffer over " + queueLimit + " frames or " + bufferSizeLimit + " bytes");
+            return;
+        }
+
+        // Re-check after flushing: a frame added while this thread held the flush lock is otherwise stranded
+        do {
+            if (!tryFlush()) {
+                checkSendTime();
+                return;
+            }
+        } while (!closing && queuedFrames > 0);
+    }
+
+    @Override
+    public void close(@NonNull CloseStatus status) throws IOException {
+        closing = true;
+        super.close(status);
+    }
+
+    int getQueuedFrames() {
+        return queuedFrames;
+    }
+
+    int getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    // Applies the policy while over a limit; false if the session has to be closed instead
+    private boolean trim() {
+        while (buffer.size() > queueLimit || bufferBytes - buffer.getLast().getPayloadLength() > bufferSizeLimit) {
+            if (policy == OverflowPolicy.DISCONNECT) {
+                return false;
+            }
+            WebSocketMessage<?> victim = policy == OverflowPolicy.CONFLATE ? oldestSuperseded() : null;
+            if (victim == null) {
+                victim = oldestMessageFrame();
+            }
+            if (victim == null) {
+                // Only control frames are waiting; they are few and must arrive
+                return true;
+            }
+            buffer.remove(victim);
+            bufferBytes -= victim.getPayloadLength();
+            dropped.incrementAndGet();
+            monitor.recordDropped();
+        }
+        return true;
+    }
+
+    // Oldest per-surveyor frame with a newer frame for the same surveyor topic behind it
+    private WebSocketMessage<?> oldestSuperseded() {
+        Set<String> newer = new HashSet<>();
+        WebSocketMessage<?> oldest = null;
+        for (Iterator<WebSocketMessage<?>> it = buffer.descendingIterator(); it.hasNext(); ) {
+            WebSocketMessage<?> frame = it.next();
+            String destination = destinationOf(frame);
+            if (isSurveyorTopic(destination) && !newer.add(destination)) {
+                oldest = frame;
+            }
+        }
+        return oldest;
+    }
+
+    // Oldest MESSAGE frame other than the newest one
+    private WebSocketMessage<?> oldestMessageFrame() {
+        WebSocketMessage<?> newest = buffer.getLast();
+        for (WebSocketMessage<?> frame : buffer) {
+            if (frame != newest && destinationOf(frame) != null) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSurveyorTopic(String destination) {
+        return destination != null && destination.startsWith(SURVEYOR_TOPIC_PREFIX)
+            && !destination.equals(FleetLocationBatcher.ALL_TOPIC);
+    }
+
+    private boolean tryFlush() throws IOException {
+        if (!flushLock.tryLock()) {
+            return false;
+        }
+        try {
+            while (!closing) {
+                WebSocketMessage<?> next = poll();
+                if (next == null) {
+                    break;
+                }
+                long start = System.nanoTime();
+                sendStartNanos = start;
+                getDelegate().sendMessage(next);
+                long elapsed = System.nanoTime() - start;
+                sent.incrementAndGet();
+                sendNanos.addAndGet(elapsed);
+                maxSendNanos.accumulateAndGet(elapsed, Math::max);
+                monitor.recordSend(elapsed);
+            }
+        } finally {
+            sendStartNanos = 0;
+            flushLock.unlock();
+        }
+        return true;
+    }
+
+    private WebSocketMessage<?> poll() {
+        bufferLock.lock();
+        try {
+            WebSocketMessage<?> next = buffer.poll();
+            if (next != null) {
+                bufferBytes -= next.getPayloadLength();
+                updateDepth();
+            }
+            return next;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    private void updateDepth() {
+        queuedFrames = buffer.size();
+        queuedBytes = bufferBytes;
+    }
+
+    private void checkSendTime() {
+        long start = sendStartNanos;
+        if (start != 0 && System.nanoTime() - start > sendTimeLimitMs * 1_000_000L) {
+            disconnect("send blocked for more than " + sendTimeLimitMs + " ms");
+        }
+    }
+
+    private void disconnect(String reason) {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        bufferLock.lock();
+        try {
+            buffer.clear();
+            bufferBytes = 0;
+            updateDepth();
+        } finally {
+            bufferLock.unlock();
+        }
+        monitor.recordDisconnect(this, reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            System.err.println("Failed to close WebSocket session " + getId() + ": " + e.getMessage());
+        }
+    }
+
+    // Destination of a STOMP MESSAGE frame, or null for any other frame
+    private static String destinationOf(WebSocketMessage<?> frame) {
+        if (!(frame instanceof TextMessage text)) {
+            return null;
+        }
+        String payload = text.getPayload();
+        if (!payload.startsWith(MESSAGE_FRAME)) {
+            return null;
+        }
+        int headersEnd = payload.indexOf("\n\n");
+        int header = payload.indexOf(DESTINATION_HEADER);
+        if (header < 0 || (headersEnd >= 0 && header > headersEnd)) {
+            return null;
+        }
+        int start = header + DESTINATION_HEADER.length();
+        int end = payload.indexOf('\n', start);
+        return end < 0 ? payload.substring(start) : payload.substring(start, end);
+    }
+}
@@ -0,0 +1,321 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fixed-capacity ring of each surveyor's most recent points, kept in parallel primitive
+ * arrays ordered by (timestamp, id). No object is allocated per stored point, and memory
+ * is bounded at {@value #BYTES_PER_POINT} bytes x {@code tracking.recent-track.capacity}
+ * per surveyor.
+ * <p>
+ * Every track has a floor: all points at or after it are held. Queries that start at or
+ * after the floor (recent-window history, live trail tails) are answered here. Older
+ * ranges return null and the caller reads {@code location_track}. At startup the rings
+ * are seeded with the last {@code tracking.recent-track.seed-minutes} from the database.
+ * <p>
+ * Points are ordered by device timestamp, not arrival. A point resent late is inserted at its
+ * timestamp, or left to the database if that is older than the floor; either way a tail cursor
+ * already past that timestamp will not return it, exactly as the {@code location_track} range
+ * scan behind it would not. History queries over the range do include it.
+ */
+@Service
+public class RecentTrackBuffer {
+
+    // id, timestamp (epoch micros), latitude, longitude
+    public static final int BYTES_PER_POINT = Long.BYTES * 2 + Double.BYTES * 2;
+    private static final long NOT_SEEDED = Long.MAX_VALUE;
+
+    private final LocationTrackRepository locationTrackRepository;
+    private final int capacity;
+    private final int seedMinutes;
+    private final Map<String, Track> tracks = new ConcurrentHashMap<>();
+    // Surveyors without a track had no points after this instant
+    private volatile long seededFromMicros = NOT_SEEDED;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecentTrackBuffer(LocationTrackRepository locationTrackRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${tracking.recent-track.capacity:512}") int capacity,
+                             @Value("${tracking.recent-track.seed-minutes:30}") int seedMinutes) {
+        this.locationTrackRepository = locationTrackRepository;
+        this.capacity = capacity;
+        this.seedMinutes = seedMinutes;
+        this.hits = Counter.builder("tracking.recent.track.hits")
+            .description("Track queries answered from memory")
+            .register(meterRegistry);
+        this.misses = Counter.builder("tracking.recent.track.misses")
+            .description("Track queries that fell back to the database")
+            .register(meterRegistry);
+        Gauge.builder("tracking.recent.track.surveyors", tracks, Map::size)
+            .description("Surveyors with a recent-track ring")
+            .register(meterRegistry);
+        Gauge.builder("tracking.recent.track.bytes", this, RecentTrackBuffer::allocatedBytes)
+            .description("Memory held by recent-track arrays")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        System.out.println("Recent-track buffer: " + capacity + " points x " + BYTES_PER_POINT + " bytes = " +
+            (capacity * BYTES_PER_POINT / 1024) + " KiB per surveyor");
+        if (seedMinutes <= 0) {
+            return;
+        }
+        Instant from = Instant.now().minus(seedMinutes, ChronoUnit.MINUTES);
+        long fromMicros = toMicros(from);
+        try {
+            List<LocationTrack> points = locationTrackRepository.findByTimestampAfterOrderByTimestampAsc(from);
+            for (LocationTrack point : points) {
+                Track track = tracks.computeIfAbsent(point.getSurveyorId(),
+                    k -> new Track(capacity, fromMicros, Long.MIN_VALUE));
+                synchronized (track) {
+                    track.lowerFloor(fromMicros);
+                    track.add(point.getId(), toMicros(point.getTimestamp()), point.getLatitude(), point.getLongitude());
+                }
+            }
+            seededFromMicros = fromMicros;
+            System.out.println("Recent-track buffer seeded with " + points.size() + " points from the last " +
+                seedMinutes + " minutes");
+        } catch (RuntimeException e) {
+            System.err.println("Could not seed recent-track buffer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a persisted point; points without an id cannot be used as cursors and are ignored.
+     */
+    public void append(LocationTrack point) {
+        if (point == null || point.getId() == null || point.getTimestamp() == null) {
+            return;
+        }
+        long micros = toMicros(point.getTimestamp());
+        long seededFrom = seededFromMicros;
+        Track track = tracks.computeIfAbsent(point.getSurveyorId(), k -> seededFrom != NOT_SEEDED
+            ? new Track(capacity, seededFrom, Long.MIN_VALUE)
+            : new Track(capacity, micros, point.getId()));
+        synchronized (track) {
+            track.add(point.getId(), micros, point.getLatitude(), point.getLongitude());
+        }
+    }
+
+    /**
+     * Returns up to {@code limit + 1} points after the (timestamp, id) cursor, or null if
+     * the cursor is older than the ring covers.
+     */
+    public List<LocationTrack> after(String surveyorId, Instant afterTimestamp, long afterId, int limit) {
+        long micros = toMicros(afterTimestamp);
+        Track track = tracks.get(surveyorId);
+        if (track == null) {
+            return covered(micros) ? List.of() : miss();
+        }
+        synchronized (track) {
+            if (!track.covers(micros, afterId)) {
+                return miss();
+            }
+            int from = track.upperBound(micros, afterId);
+            int to = (int) Math.min(track.size, from + (long) limit + 1);
+            return hit(track.copy(surveyorId, from, to));
+        }
+    }
+
+    /**
+     * Returns the points in {@code [start, end]} (open-ended when end is null), or null if
+     * the ring does not reach back to {@code start}.
+     */
+    public List<LocationTrack> between(String surveyorId, Instant start, Instant end) {
+        long startMicros = toMicros(start);
+        Track track = tracks.get(surveyorId);
+        if (track == null) {
+            return covered(startMicros) ? List.of() : miss();
+        }
+        synchronized (track) {
+            if (!track.covers(startMicros, Long.MIN_VALUE)) {
+                return miss();
+            }
+            int from = track.lowerBound(startMicros, Long.MIN_VALUE);
+            int to = end != null ? track.upperBound(toMicros(end), Long.MAX_VALUE) : track.size;
+            return hit(track.copy(surveyorId, from, Math.max(from, to)));
+        }
+    }
+
+    private boolean covered(long micros) {
+        return seededFromMicros != NOT_SEEDED && micros >= seededFromMicros;
+    }
+
+    private List<LocationTrack> hit(List<LocationTrack> points) {
+        hits.increment();
+        return points;
+    }
+
+    private List<LocationTrack> miss() {
+        misses.increment();
+        return null;
+    }
+
+    private double allocatedBytes() {
+        return (double) tracks.size() * capacity * BYTES_PER_POINT;
+    }
+
+    private static long toMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private static Instant fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static int compare(long micros, long id, long otherMicros, long otherId) {
+        int byTime = Long.compare(micros, otherMicros);
+        return byTime != 0 ? byTime : Long.compare(id, otherId);
+    }
+
+    /**
+     * One surveyor's ring. Logical index 0 is the oldest point; callers synchronize on the track.
+     */
+    private static final class Track {
+        private final long[] ids;
+        private final long[] micros;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private int head;
+        private int size;
+        // Every point with a key at or after (floorMicros, floorId) is held
+        private long floorMicros;
+        private long floorId;
+
+        private Track(int capacity, long floorMicros, long floorId) {
+            this.ids = new long[capacity];
+            this.micros = new long[capacity];
+            this.latitudes = new double[capacity];
+            this.longitudes = new double[capacity];
+            this.floorMicros = floorMicros;
+            this.floorId = floorId;
+        }
+
+        private boolean covers(long atMicros, long atId) {
+            return compare(atMicros, atId, floorMicros, floorId) >= 0;
+        }
+
+        private void lowerFloor(long toMicros) {
+            // Only valid while nothing at or after toMicros has been evicted
+            if (size < ids.length && compare(toMicros, Long.MIN_VALUE, floorMicros, floorId) < 0) {
+                floorMicros = toMicros;
+                floorId = Long.MIN_VALUE;
+            }
+        }
+
+        private void add(long id, long atMicros, double latitude, double longitude) {
+            if (!covers(atMicros, id)) {
+                return; // older than the ring covers; the database has it
+            }
+            int pos = lowerBound(atMicros, id);
+            if (pos < size && compareAt(pos, atMicros, id) == 0) {
+                return; // already held
+            }
+            boolean evict = size == ids.length;
+            if (evict) {
+                if (pos == 0) {
+                    // Would be evicted immediately; coverage now starts at the oldest held point
+                    setFloorToOldest();
+                    return;
+                }
+                head = slot(1);
+                size--;
+                pos--;
+            }
+            // Shift newer points up by one; in-order arrivals append without shifting
+            for (int i = size; i > pos; i--) {
+                int to = slot(i);
+                int from = slot(i - 1);
+                ids[to] = ids[from];
+                micros[to] = micros[from];
+                latitudes[to] = latitudes[from];
+                longitudes[to] = longitudes[from];
+            }
+            int at = slot(pos);
+            ids[at] = id;
+            micros[at] = atMicros;
+            latitudes[at] = latitude;
+            longitudes[at] = longitude;
+            size++;
+            if (evict) {
+                setFloorToOldest();
+            }
+        }
+
+        private void setFloorToOldest() {
+            floorMicros = micros[head];
+            floorId = ids[head];
+        }
+
+        /** First logical index whose key is at or after the given key. */
+        private int lowerBound(long atMicros, long id) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareAt(mid, atMicros, id) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** First logical index whose key is after the given key. */
+        private int upperBound(long atMicros, long id) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareAt(mid, atMicros, id) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private int compareAt(int index, long atMicros, long id) {
+            int s = slot(index);
+            return compare(micros[s], ids[s], atMicros, id);
+        }
+
+        private List<LocationTrack> copy(String surveyorId, int from, int to) {
+            List<LocationTrack> points = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                int s = slot(i);
+                LocationTrack point = new LocationTrack(surveyorId, latitudes[s], longitudes[s], fromMicros(micros[s]), null);
+                point.setId(ids[s]);
+                points.add(point);
+            }
+            return points;
+        }
+
+        private int slot(int index) {
+            return (head + index) % ids.length;
+        }
+    }
+}
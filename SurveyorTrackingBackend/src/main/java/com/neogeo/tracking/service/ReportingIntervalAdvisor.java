@@ -0,0 +1,213 @@
+package com.neogeo.tracking.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationAck;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Computes the reporting interval and minimum displacement a device should use next,
+ * returned with every ingest acknowledgement. Three inputs drive it:
+ * <ul>
+ *   <li>speed - smoothed from consecutive positions against {@link LatestLocationStore};
+ *       a surveyor below {@code stationary-speed-mps} reports at most every {@code stationary-interval-ms}</li>
+ *   <li>audience - a surveyor someone is following specifically (its own topic, its project or city
+ *       topic, or a viewport it is inside) reports every {@code watched-interval-ms}, otherwise every
+ *       {@code idle-interval-ms}. Fleet-wide feeds (SSE, binary socket, {@code /topic/location/all})
+ *       do not count: the dashboard always has one open, and counting it would put the whole fleet
+ *       on the watched interval whenever anyone looks</li>
+ *   <li>load - both values are multiplied by a load factor, which is {@code overload-multiplier} while
+ *       {@link AdmissionGate} reports pressure and otherwise tracks the fleet's stored-update rate
+ *       against {@code target-writes-per-second}</li>
+ * </ul>
+ * Hints are advisory: a client that ignores them is still bounded by {@link IngestRateLimiter}.
+ */
+@Service
+public class ReportingIntervalAdvisor {
+
+    // Position pairs closer together than this give no usable speed
+    private static final long MIN_SPEED_SAMPLE_MS = 1000;
+    private static final double SPEED_SMOOTHING = 0.5;
+
+    private final Map<String, SpeedState> speeds = new ConcurrentHashMap<>();
+
+    private final LatestLocationStore latestLocationStore;
+    private final TopicSubscriptionRegistry subscriptions;
+    private final SurveyorDirectory surveyorDirectory;
+    private final ViewportSubscriptionRegistry viewportRegistry;
+    private final AdmissionGate admissionGate;
+    private final IngestEventBus eventBus;
+
+    private final boolean enabled;
+    private final long watchedIntervalMs;
+    private final long idleIntervalMs;
+    private final long stationaryIntervalMs;
+    private final double stationarySpeedMps;
+    private final long maxIntervalMs;
+    private final double minDisplacementM;
+    private final double maxDisplacementM;
+    private final double overloadMultiplier;
+    private final double targetWritesPerSecond;
+    private final long stateTtlMs;
+
+    private volatile double fleetFactor = 1;
+    private long lastCursor = -1;
+    private long lastSampleAt;
+
+    public ReportingIntervalAdvisor(MeterRegistry meterRegistry,
+                                    LatestLocationStore latestLocationStore,
+                                    TopicSubscriptionRegistry subscriptions,
+                                    SurveyorDirectory surveyorDirectory,
+                                    ViewportSubscriptionRegistry viewportRegistry,
+                                    AdmissionGate admissionGate,
+                                    IngestEventBus eventBus,
+                                    @Value("${tracking.hints.enabled:true}") boolean enabled,
+                                    @Value("${tracking.hints.watched-interval-ms:5000}") long watchedIntervalMs,
+                                    @Value("${tracking.hints.idle-interval-ms:30000}") long idleIntervalMs,
+                                    @Value("${tracking.hints.stationary-interval-ms:60000}") long stationaryIntervalMs,
+                                    @Value("${tracking.hints.stationary-speed-mps:0.5}") double stationarySpeedMps,
+                                    @Value("${tracking.hints.max-interval-ms:240000}") long maxIntervalMs,
+                                    @Value("${tracking.filter.min-distance-m:10}") double minDisplacementM,
+                                    @Value("${tracking.hints.max-displacement-m:100}") double maxDisplacementM,
+                                    @Value("${tracking.hints.overload-multiplier:4}") double overloadMultiplier,
+                                    @Value("${tracking.hints.target-writes-per-second:0}") double targetWritesPerSecond,
+                                    @Value("${tracking.hints.state-ttl-minutes:60}") long stateTtlMinutes) {
+        this.latestLocationStore = latestLocationStore;
+        this.subscriptions = subscriptions;
+        this.surveyorDirectory = surveyorDirectory;
+        this.viewportRegistry = viewportRegistry;
+        this.admissionGate = admissionGate;
+        this.eventBus = eventBus;
+        this.enabled = enabled;
+        this.watchedIntervalMs = watchedIntervalMs;
+        this.idleIntervalMs = idleIntervalMs;
+        this.stationaryIntervalMs = stationaryIntervalMs;
+        this.stationarySpeedMps = stationarySpeedMps;
+        this.maxIntervalMs = maxIntervalMs;
+        this.minDisplacementM = minDisplacementM;
+        this.maxDisplacementM = maxDisplacementM;
+        this.overloadMultiplier = Math.max(1, overloadMultiplier);
+        this.targetWritesPerSecond = targetWritesPerSecond;
+        this.stateTtlMs = stateTtlMinutes * 60_000;
+
+        Gauge.builder("tracking.hints.load-factor", this, ReportingIntervalAdvisor::loadFactor)
+            .description("Multiplier currently applied to recommended reporting intervals")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Updates the surveyor's speed estimate. Must run before the update reaches the
+     * presence consumer, i.e. on the ingest lane ahead of {@link IngestEventBus#publish}.
+     */
+    public void observe(LiveLocationMessage message) {
+        if (!enabled) {
+            return;
+        }
+        LiveLocationMessage previous = latestLocationStore.get(message.getSurveyorId());
+        SpeedState state = speeds.computeIfAbsent(message.getSurveyorId(), id -> new SpeedState());
+        synchronized (state) {
+            state.lastSeenAt = System.currentTimeMillis();
+            if (previous == null || previous.getTimestamp() == null) {
+                return;
+            }
+            long elapsed = message.getTimestamp().toEpochMilli() - previous.getTimestamp().toEpochMilli();
+            if (elapsed < MIN_SPEED_SAMPLE_MS) {
+                return;
+            }
+            double speed = LocationNoiseFilter.distanceMeters(previous.getLatitude(), previous.getLongitude(),
+                message.getLatitude(), message.getLongitude()) * 1000 / elapsed;
+            state.speedMps = state.known ? state.speedMps + SPEED_SMOOTHING * (speed - state.speedMps) : speed;
+            state.known = true;
+        }
+    }
+
+    /**
+     * Fills {@code recommendedIntervalMs} and {@code minDisplacementM} on the acknowledgement.
+     */
+    public void advise(LocationAck ack, LiveLocationMessage message) {
+        if (!enabled) {
+            return;
+        }
+        double load = loadFactor();
+        boolean watched = isWatched(message);
+
+        long interval = watched ? watchedIntervalMs : idleIntervalMs;
+        if (speedOf(message.getSurveyorId()) < stationarySpeedMps) {
+            interval = Math.max(interval, stationaryIntervalMs);
+        }
+        interval = Math.min(maxIntervalMs, Math.round(interval * load));
+        double displacement = Math.min(maxDisplacementM, minDisplacementM * (watched ? 1 : 2) * load);
+
+        ack.setRecommendedIntervalMs(interval);
+        ack.setMinDisplacementM(displacement);
+    }
+
+    public double loadFactor() {
+        return admissionGate.isOverloaded() ? Math.max(overloadMultiplier, fleetFactor) : fleetFactor;
+    }
+
+    /**
+     * Moves the fleet factor towards the ratio of stored updates per second to the target,
+     * so the aggregate write rate settles near it. Stays at 1 when no target is configured.
+     */
+    @Scheduled(fixedDelayString = "${tracking.hints.sample-ms:5000}")
+    public void sample() {
+        long now = System.currentTimeMillis();
+        long cursor = eventBus.getCursor();
+        if (targetWritesPerSecond > 0 && lastCursor >= 0 && now > lastSampleAt) {
+            double writesPerSecond = (cursor - lastCursor) * 1000.0 / (now - lastSampleAt);
+            double desired = fleetFactor * writesPerSecond / targetWritesPerSecond;
+            double next = fleetFactor + SPEED_SMOOTHING * (desired - fleetFactor);
+            fleetFactor = Math.max(1, Math.min(overloadMultiplier, next));
+        }
+        lastCursor = cursor;
+        lastSampleAt = now;
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.hints.state-cleanup-ms:300000}")
+    public void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - stateTtlMs;
+        speeds.values().removeIf(state -> state.lastSeenAt < cutoff);
+    }
+
+    private double speedOf(String surveyorId) {
+        SpeedState state = speeds.get(surveyorId);
+        if (state == null) {
+            return Double.MAX_VALUE;
+        }
+        synchronized (state) {
+            // Unknown speed counts as moving so a new device starts with a fine interval
+            return state.known ? state.speedMps : Double.MAX_VALUE;
+        }
+    }
+
+    private boolean isWatched(LiveLocationMessage message) {
+        if (subscriptions.hasSubscribers("/topic/location/" + message.getSurveyorId())) {
+            return true;
+        }
+        String project = surveyorDirectory.get(message.getSurveyorId()).getProjectName();
+        if (project != null && subscriptions.hasSubscribers(FleetLocationBatcher.PROJECT_TOPIC_PREFIX + project)) {
+            return true;
+        }
+        for (String topic : surveyorDirectory.groupTopics(message.getSurveyorId())) {
+            if (subscriptions.hasSubscribers(topic)) {
+                return true;
+            }
+        }
+        return !viewportRegistry.sessionsContaining(message.getLatitude(), message.getLongitude()).isEmpty();
+    }
+
+    private static final class SpeedState {
+        private boolean known;
+        private double speedMps;
+        private long lastSeenAt;
+    }
+}
@@ -0,0 +1,238 @@
+package com.neogeo.tracking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and verifies stateless HMAC-SHA256 session tokens for the ingest path.
+ * <p>
+ * A token is {@code base64url(payload) + "." + base64url(signature)} where the payload is
+ * {@code surveyorId|issueStamp|expiresAtSeconds|tokenId}. Verification is a single HMAC plus two
+ * map lookups: one for revoked token ids, and one for per-surveyor "not before" stamps
+ * set by logout-everywhere or a password change. No database access is needed.
+ * Both maps only hold entries until the tokens they refer to would have expired anyway.
+ * <p>
+ * Issue stamps are epoch microseconds made strictly increasing within the process, so a token
+ * issued right after a revocation, even in the same millisecond, is always newer than it.
+ * <p>
+ * Without {@code tracking.auth.token-secret} every restart would invalidate every token, so
+ * startup fails unless {@code tracking.auth.allow-random-secret=true} (local development only).
+ */
+@Service
+public class SessionTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final SecureRandom random = new SecureRandom();
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> mac;
+
+    // tokenId -> expiry (epoch seconds) of revoked tokens
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // surveyorId -> tokens with an issue stamp at or below this one are rejected
+    private final Map<String, Long> notBefore = new ConcurrentHashMap<>();
+    // Last issue or revocation stamp handed out
+    private final AtomicLong lastStamp = new AtomicLong();
+
+    public SessionTokenService(@Value("${tracking.auth.token-secret:}") String secret,
+                               @Value("${tracking.auth.token-ttl-minutes:720}") long ttlMinutes,
+                               @Value("${tracking.auth.allow-random-secret:false}") boolean allowRandomSecret) {
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            if (!allowRandomSecret) {
+                throw new IllegalStateException("tracking.auth.token-secret (TRACKING_TOKEN_SECRET) is not set; " +
+                    "set it so session tokens survive restarts, or set tracking.auth.allow-random-secret=true for local development");
+            }
+            secretBytes = new byte[32];
+            random.nextBytes(secretBytes);
+            System.err.println("WARNING: tracking.auth.token-secret is not set; using a random key. " +
+                "Every restart invalidates all session tokens and devices fall back to Basic credentials");
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttlSeconds = ttlMinutes * 60;
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public IssuedToken issue(String surveyorId) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.truncatedTo(ChronoUnit.SECONDS).plusSeconds(ttlSeconds);
+        byte[] tokenId = new byte[12];
+        random.nextBytes(tokenId);
+
+        String payload = surveyorId + "|" + nextStamp(now) + "|" + expiresAt.getEpochSecond() + "|" +
+            ENCODER.encodeToString(tokenId);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        String token = ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+        return new IssuedToken(token, surveyorId, expiresAt);
+    }
+
+    /**
+     * Returns the surveyor id of a valid token, or null if it is malformed, forged,
+     * expired or revoked.
+     */
+    public String verify(String token) {
+        Claims claims = parse(token);
+        return claims != null ? claims.surveyorId : null;
+    }
+
+    /**
+     * Like {@link #verify(String)}, but also returns when the token expires.
+     */
+    public IssuedToken verifyToken(String token) {
+        Claims claims = parse(token);
+        return claims != null
+            ? new IssuedToken(token, claims.surveyorId, Instant.ofEpochSecond(claims.expiresAt))
+            : null;
+    }
+
+    /**
+     * Exchanges a valid token for a fresh one and revokes the old one.
+     * @return the new token, or null if the presented token is not valid
+     */
+    public IssuedToken refresh(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return null;
+        }
+        revokedTokens.put(claims.tokenId, claims.expiresAt);
+        return issue(claims.surveyorId);
+    }
+
+    public boolean revoke(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return false;
+        }
+        revokedTokens.put(claims.tokenId, claims.expiresAt);
+        return true;
+    }
+
+    /**
+     * Rejects every token issued to the surveyor up to now, e.g. after a password change.
+     */
+    public void revokeAll(String surveyorId) {
+        notBefore.put(surveyorId, nextStamp(Instant.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.auth.deny-list-cleanup-ms:60000}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        notBefore.values().removeIf(cutoff -> cutoff / 1_000_000 + ttlSeconds <= now);
+    }
+
+    public int getRevokedCount() {
+        return revokedTokens.size() + notBefore.size();
+    }
+
+    private Claims parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return null;
+            }
+
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 4) {
+                return null;
+            }
+            Claims claims = new Claims(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]);
+            if (claims.expiresAt <= Instant.now().getEpochSecond() || revokedTokens.containsKey(claims.tokenId)) {
+                return null;
+            }
+            Long cutoff = notBefore.get(claims.surveyorId);
+            return cutoff == null || claims.issuedAt > cutoff ? claims : null;
+        } catch (IllegalArgumentException e) {
+            // Bad Base64 or a non-numeric timestamp
+            return null;
+        }
+    }
+
+    // Epoch microseconds, bumped past the previous stamp when two calls land in the same microsecond
+    private long nextStamp(Instant now) {
+        long micros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+        return lastStamp.accumulateAndGet(micros, (previous, candidate) -> Math.max(previous + 1, candidate));
+    }
+
+    private byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+
+    private static final class Claims {
+        private final String surveyorId;
+        private final long issuedAt;
+        private final long expiresAt;
+        private final String tokenId;
+
+        private Claims(String surveyorId, long issuedAt, long expiresAt, String tokenId) {
+            this.surveyorId = surveyorId;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+    }
+
+    public static final class IssuedToken {
+        private final String token;
+        private final String surveyorId;
+        private final Instant expiresAt;
+
+        public IssuedToken(String token, String surveyorId, Instant expiresAt) {
+            this.token = token;
+            this.surveyorId = surveyorId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getSurveyorId() {
+            return surveyorId;
+        }
+
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.neogeo.tracking.service;
+
+import java.sql.SQLException;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * PostgreSQL reports an expired {@code statement_timeout} as SQLState 57014 (query_canceled).
+ * spring-jdbc 6.0 has no PostgreSQL mapping for it and its SQLState fallback turns class 57 into
+ * {@code DataAccessResourceFailureException}, so a slow query would look like a broken database.
+ */
+final class StatementTimeouts {
+
+    static final String QUERY_CANCELED = "57014";
+
+    private StatementTimeouts() {
+    }
+
+    /**
+     * @return a {@link QueryTimeoutException} if the failure was a statement timeout, otherwise {@code e}
+     */
+    static DataAccessException translate(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && QUERY_CANCELED.equals(sqlException.getSQLState())) {
+                return e instanceof QueryTimeoutException ? e : new QueryTimeoutException(e.getMessage(), e);
+            }
+        }
+        return e;
+    }
+}
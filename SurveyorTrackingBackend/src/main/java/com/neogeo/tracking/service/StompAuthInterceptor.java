@@ -0,0 +1,104 @@
+package com.neogeo.tracking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Authenticates STOMP sessions once, at CONNECT, on the client inbound channel.
+ * <p>
+ * A CONNECT frame may carry an {@code Authorization} header with the same values the
+ * REST API accepts: {@code Bearer <session token>} or {@code Basic <credentials>}.
+ * Valid credentials attach a {@link SurveyorPrincipal} to the session, which Spring then
+ * passes to every later message; invalid credentials refuse the connection with a STOMP
+ * ERROR frame. A CONNECT without the header stays anonymous, so dashboards can keep
+ * subscribing without logging in; only {@code /app/location} requires a principal.
+ */
+@Service
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+
+    private final SessionTokenService sessionTokenService;
+    private final CredentialService credentialService;
+
+    public StompAuthInterceptor(SessionTokenService sessionTokenService, CredentialService credentialService) {
+        this.sessionTokenService = sessionTokenService;
+        this.credentialService = credentialService;
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String authHeader = accessor.getFirstNativeHeader(AUTHORIZATION_HEADER);
+        if (authHeader == null || authHeader.isBlank()) {
+            return message;
+        }
+        SurveyorPrincipal principal = authenticate(authHeader.trim());
+        if (principal == null) {
+            throw new MessageDeliveryException(message, "Invalid credentials");
+        }
+        accessor.setUser(principal);
+        return message;
+    }
+
+    private SurveyorPrincipal authenticate(String authHeader) {
+        if (authHeader.startsWith("Bearer ")) {
+            SessionTokenService.IssuedToken token =
+                sessionTokenService.verifyToken(authHeader.substring("Bearer ".length()).trim());
+            return token != null ? new SurveyorPrincipal(token.getSurveyorId(), token.getExpiresAt()) : null;
+        }
+        if (authHeader.startsWith("Basic ")) {
+            try {
+                String[] credentials = new String(Base64.getDecoder().decode(
+                    authHeader.substring("Basic ".length())), StandardCharsets.UTF_8).split(":", 2);
+                String surveyorId = credentials.length == 2
+                    ? credentialService.authenticate(credentials[0], credentials[1])
+                    : null;
+                return surveyorId != null ? new SurveyorPrincipal(surveyorId, null) : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The surveyor a STOMP session authenticated as. Sessions opened with a token
+     * stop being accepted for ingest when the token expires; a revoked token is
+     * only refused on the next CONNECT.
+     */
+    public static final class SurveyorPrincipal implements Principal {
+        private final String surveyorId;
+        private final Instant expiresAt;
+
+        public SurveyorPrincipal(String surveyorId, Instant expiresAt) {
+            this.surveyorId = surveyorId;
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public String getName() {
+            return surveyorId;
+        }
+
+        public boolean isExpired() {
+            return expiresAt != null && !Instant.now().isBefore(expiresAt);
+        }
+    }
+}
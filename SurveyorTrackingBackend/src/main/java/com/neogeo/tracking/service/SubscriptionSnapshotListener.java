@@ -0,0 +1,117 @@
+package com.neogeo.tracking.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationBatchMessage;
+
+/**
+ * Sends the current known position to a session as soon as it subscribes to a
+ * location topic, so a dashboard can paint the map without REST calls and a
+ * reconnect storm is served entirely from {@link LatestLocationStore}.
+ * The snapshot goes straight to the subscribing session on the client outbound
+ * channel; other subscribers of the same topic do not see it.
+ */
+@Service
+public class SubscriptionSnapshotListener {
+
+    private static final String SURVEYOR_TOPIC_PREFIX = "/topic/location/";
+
+    private final MessageChannel clientOutboundChannel;
+    private final LatestLocationStore latestLocationStore;
+    private final LocationBroadcaster locationBroadcaster;
+    private final SurveyorDirectory surveyorDirectory;
+
+    public SubscriptionSnapshotListener(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                                        LatestLocationStore latestLocationStore,
+                                        LocationBroadcaster locationBroadcaster,
+                                        SurveyorDirectory surveyorDirectory) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.latestLocationStore = latestLocationStore;
+        this.locationBroadcaster = locationBroadcaster;
+        this.surveyorDirectory = surveyorDirectory;
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        try {
+            for (Object snapshot : snapshotFor(destination)) {
+                sendToSubscription(accessor.getSessionId(), accessor.getSubscriptionId(), destination,
+                    locationBroadcaster.encode(snapshot));
+            }
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to encode snapshot for " + destination + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Frames to replay for a destination, in the same shape the topic normally carries:
+     * one batch for the fleet topics, one position per surveyor for the others.
+     */
+    private List<?> snapshotFor(String destination) {
+        if (destination.equals(FleetLocationBatcher.ALL_TOPIC)) {
+            return asBatch(latestLocationStore.getAll());
+        }
+        if (destination.startsWith(FleetLocationBatcher.PROJECT_TOPIC_PREFIX)) {
+            String project = destination.substring(FleetLocationBatcher.PROJECT_TOPIC_PREFIX.length());
+            return asBatch(filter(assignment -> assignment.isInProject(project)));
+        }
+        if (destination.startsWith(SurveyorDirectory.PROJECT_TOPIC_PREFIX)) {
+            String project = destination.substring(SurveyorDirectory.PROJECT_TOPIC_PREFIX.length());
+            return filter(assignment -> assignment.isInProject(project));
+        }
+        if (destination.startsWith(SurveyorDirectory.CITY_TOPIC_PREFIX)) {
+            String city = destination.substring(SurveyorDirectory.CITY_TOPIC_PREFIX.length());
+            return filter(assignment -> assignment.isInCity(city));
+        }
+        if (destination.startsWith(SURVEYOR_TOPIC_PREFIX)) {
+            String surveyorId = destination.substring(SURVEYOR_TOPIC_PREFIX.length());
+            LiveLocationMessage latest = surveyorId.contains("/") ? null : latestLocationStore.get(surveyorId);
+            return latest != null ? List.of(latest) : List.of();
+        }
+        return List.of();
+    }
+
+    private List<LiveLocationMessage> filter(Predicate<SurveyorDirectory.Assignment> predicate) {
+        List<LiveLocationMessage> matches = new ArrayList<>();
+        for (LiveLocationMessage location : latestLocationStore.getAll()) {
+            if (predicate.test(surveyorDirectory.get(location.getSurveyorId()))) {
+                matches.add(location);
+            }
+        }
+        return matches;
+    }
+
+    private static List<LocationBatchMessage> asBatch(List<LiveLocationMessage> locations) {
+        return locations.isEmpty() ? List.of() : List.of(new LocationBatchMessage(Instant.now(), locations));
+    }
+
+    private void sendToSubscription(String sessionId, String subscriptionId, String destination, byte[] payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+}
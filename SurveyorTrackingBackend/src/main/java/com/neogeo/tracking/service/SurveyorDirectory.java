@@ -0,0 +1,157 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.repository.SurveyorRepository;
+
+/**
+ * In-memory surveyorId -> (city, project) lookup used to route broadcasts.
+ * Loaded once at startup and refreshed by {@link SurveyorService} whenever a surveyor is saved,
+ * so ingest never queries the surveyor table to pick destinations. An id that is not in the table
+ * (e.g. a surveyor deleted while still reporting) is remembered as unassigned for
+ * {@code tracking.directory.unknown-ttl-seconds}, so it costs one query per TTL rather than one
+ * per update, and is picked up again once that expires.
+ */
+@Service
+public class SurveyorDirectory {
+
+    public static final String PROJECT_TOPIC_PREFIX = "/topic/project/";
+    public static final String CITY_TOPIC_PREFIX = "/topic/city/";
+
+    private final SurveyorRepository surveyorRepository;
+    private final Map<String, Assignment> assignments = new ConcurrentHashMap<>();
+    // surveyorId -> expiry (System.nanoTime) of a "no such surveyor" answer
+    private final Map<String, Long> unknown = new ConcurrentHashMap<>();
+    private final long unknownTtlNanos;
+
+    public SurveyorDirectory(SurveyorRepository surveyorRepository,
+                             @Value("${tracking.directory.unknown-ttl-seconds:60}") long unknownTtlSeconds) {
+        this.surveyorRepository = surveyorRepository;
+        this.unknownTtlNanos = TimeUnit.SECONDS.toNanos(unknownTtlSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<Surveyor> surveyors = surveyorRepository.findAll();
+            surveyors.forEach(this::update);
+            System.out.println("Surveyor directory loaded with " + surveyors.size() + " surveyors");
+        } catch (RuntimeException e) {
+            System.err.println("Could not load surveyor directory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the current assignment, loading it once if the surveyor was created outside this service.
+     */
+    public Assignment get(String surveyorId) {
+        if (surveyorId == null) {
+            return Assignment.NONE;
+        }
+        Assignment known = assignments.get(surveyorId);
+        if (known != null) {
+            return known;
+        }
+        long now = System.nanoTime();
+        Long unknownUntil = unknown.get(surveyorId);
+        if (unknownUntil != null && now - unknownUntil < 0) {
+            return Assignment.NONE;
+        }
+
+        // Queried outside the map so a slow lookup does not block other ids hashed to the same bin
+        Surveyor surveyor = surveyorRepository.findById(surveyorId).orElse(null);
+        if (surveyor == null) {
+            unknown.put(surveyorId, now + unknownTtlNanos);
+            return Assignment.NONE;
+        }
+        unknown.remove(surveyorId);
+        // An update() that raced the query wins
+        Assignment loaded = Assignment.of(surveyor);
+        Assignment raced = assignments.putIfAbsent(surveyorId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    public void update(Surveyor surveyor) {
+        if (surveyor != null && surveyor.getId() != null) {
+            assignments.put(surveyor.getId(), Assignment.of(surveyor));
+            unknown.remove(surveyor.getId());
+        }
+    }
+
+    public void invalidate(String surveyorId) {
+        if (surveyorId != null) {
+            assignments.remove(surveyorId);
+            unknown.remove(surveyorId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.directory.unknown-cleanup-ms:60000}")
+    public void purgeUnknown() {
+        long now = System.nanoTime();
+        unknown.values().removeIf(expiresAt -> now - expiresAt >= 0);
+    }
+
+    /**
+     * Topics a position update for this surveyor is published to, in addition to
+     * {@code /topic/location/{surveyorId}}.
+     */
+    public List<String> groupTopics(String surveyorId) {
+        Assignment assignment = get(surveyorId);
+        List<String> topics = new ArrayList<>(2);
+        if (assignment.getProjectName() != null) {
+            topics.add(PROJECT_TOPIC_PREFIX + assignment.getProjectName());
+        }
+        if (assignment.getCity() != null) {
+            topics.add(CITY_TOPIC_PREFIX + assignment.getCity());
+        }
+        return topics;
+    }
+
+    public static final class Assignment {
+        public static final Assignment NONE = new Assignment(null, null);
+
+        private final String city;
+        private final String projectName;
+
+        private Assignment(String city, String projectName) {
+            this.city = city;
+            this.projectName = projectName;
+        }
+
+        static Assignment of(Surveyor surveyor) {
+            return new Assignment(blankToNull(surveyor.getCity()), blankToNull(surveyor.getProjectName()));
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public String getProjectName() {
+            return projectName;
+        }
+
+        public boolean isInProject(String project) {
+            return Objects.equals(projectName, project);
+        }
+
+        public boolean isInCity(String cityName) {
+            return Objects.equals(city, cityName);
+        }
+
+        private static String blankToNull(String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+    }
+}
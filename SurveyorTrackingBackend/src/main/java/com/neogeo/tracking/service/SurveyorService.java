@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.time.Instant;
 
@@ -15,12 +16,21 @@ import com.neogeo.tracking.repository.SurveyorRepository;
 @Service
 public class SurveyorService {
     private final SurveyorRepository repository;
+    private final SurveyorDirectory surveyorDirectory;
+    private final CredentialService credentialService;
+    private final SessionTokenService sessionTokenService;
     private final Map<String, Instant> lastActivityMap = new ConcurrentHashMap<>();
     // Consider a surveyor online if they've been active in the last 5 minutes
     private static final long ONLINE_TIMEOUT_SECONDS = 300; // 5 minutes
 
-    public SurveyorService(SurveyorRepository repository) {
+    public SurveyorService(SurveyorRepository repository,
+                           SurveyorDirectory surveyorDirectory,
+                           CredentialService credentialService,
+                           SessionTokenService sessionTokenService) {
         this.repository = repository;
+        this.surveyorDirectory = surveyorDirectory;
+        this.credentialService = credentialService;
+        this.sessionTokenService = sessionTokenService;
     }
 
     public List<Surveyor> listAll() {
@@ -41,7 +51,7 @@ public class SurveyorService {
     }
 
     public Surveyor save(Surveyor surveyor) {
-        return repository.save(surveyor);
+        return saveOrUpdateSurveyor(surveyor);
     }
 
     /**
@@ -51,9 +61,29 @@ public class SurveyorService {
      * @return The saved or updated surveyor
      */
     public Surveyor saveOrUpdateSurveyor(Surveyor surveyor) {
-        // You can add additional logic here such as password hashing
-        // before saving the surveyor
-        return repository.save(surveyor);
+        Surveyor existing = surveyor.getId() != null ? repository.findById(surveyor.getId()).orElse(null) : null;
+        String password = surveyor.getPassword();
+        boolean passwordChanged = false;
+        if (password == null || password.isEmpty()) {
+            // Editing other fields keeps the current password
+            surveyor.setPassword(existing != null ? existing.getPassword() : null);
+        } else if (existing == null || !password.equals(existing.getPassword())) {
+            // Anything but the stored hash echoed back is a new password
+            surveyor.setPassword(credentialService.hash(password));
+            passwordChanged = existing != null;
+        }
+
+        Surveyor saved = repository.save(surveyor);
+        // Keep broadcast routing in step with city/project reassignments
+        surveyorDirectory.update(saved);
+        credentialService.invalidate(saved.getUsername());
+        if (existing != null && !Objects.equals(existing.getUsername(), saved.getUsername())) {
+            credentialService.invalidate(existing.getUsername());
+        }
+        if (passwordChanged) {
+            sessionTokenService.revokeAll(saved.getId());
+        }
+        return saved;
     }
 
     public List<Surveyor> filter(String city, String project) {
@@ -68,11 +98,7 @@ public class SurveyorService {
     }
     
     public boolean authenticateSurveyor(String username, String password) {
-        Surveyor surveyor = repository.findByUsername(username).orElse(null);
-        if (surveyor != null) {
-            return password.equals(surveyor.getPassword());
-        }
-        return false;
+        return credentialService.authenticate(username, password) != null;
     }
 
     /**
@@ -91,9 +117,12 @@ public class SurveyorService {
             return response;
         }
 
-        boolean authenticated = password.equals(surveyor.getPassword());
+        // Upgrades a legacy plaintext password to a hash on success
+        Surveyor verified = credentialService.checkPassword(surveyor, password);
+        boolean authenticated = verified != null;
 
         if (authenticated) {
+            surveyor = verified;
             response.put("status", 200);
             response.put("authenticated", true);
             response.put("surveyor", surveyor);
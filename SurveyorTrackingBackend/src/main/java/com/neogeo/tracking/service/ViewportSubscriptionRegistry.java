@@ -0,0 +1,160 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.neogeo.tracking.dto.ViewportRequest;
+
+/**
+ * Spatial index of the map viewports registered by WebSocket sessions.
+ * Lookups for an ingested position only touch quadtree nodes around that point,
+ * so routing cost follows the number of matching viewports rather than the number of sessions.
+ * <p>
+ * A disconnect is published on the transport thread while {@code /app/viewport} messages are
+ * handled on the inbound channel pool, so an update can arrive after its session has closed.
+ * Closed session ids are therefore remembered for a while and such late updates are ignored.
+ */
+@Service
+public class ViewportSubscriptionRegistry {
+
+    // Far longer than a queued inbound message can trail its session's disconnect
+    private static final long CLOSED_RETENTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Quadtree index = new Quadtree();
+    private final Map<String, List<ViewportEntry>> entriesBySession = new ConcurrentHashMap<>();
+    // sessionId -> System.nanoTime of its disconnect; only changed under the write lock
+    private final Map<String, Long> closedSessions = new ConcurrentHashMap<>();
+    // Quadtree is not thread-safe: queries share the read lock, updates take the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Registers or replaces the viewport of a session.
+     * @return false if the bounding box is invalid (the previous viewport is then removed)
+     *         or the session has already disconnected
+     */
+    public boolean register(String sessionId, ViewportRequest viewport) {
+        List<ViewportEntry> entries = viewport != null && viewport.isValid()
+            ? toEntries(sessionId, viewport)
+            : List.of();
+
+        lock.writeLock().lock();
+        try {
+            if (closedSessions.containsKey(sessionId)) {
+                return false;
+            }
+            removeEntries(entriesBySession.remove(sessionId));
+            for (ViewportEntry entry : entries) {
+                index.insert(entry.envelope, entry);
+            }
+            if (!entries.isEmpty()) {
+                entriesBySession.put(sessionId, entries);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return !entries.isEmpty();
+    }
+
+    public void unregister(String sessionId) {
+        lock.writeLock().lock();
+        try {
+            removeEntries(entriesBySession.remove(sessionId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sessions whose viewport contains the given position.
+     */
+    public List<String> sessionsContaining(double latitude, double longitude) {
+        if (entriesBySession.isEmpty()) {
+            return List.of();
+        }
+
+        List<?> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = index.query(new Envelope(longitude, longitude, latitude, latitude));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> sessions = new ArrayList<>();
+        for (Object candidate : candidates) {
+            ViewportEntry entry = (ViewportEntry) candidate;
+            // Quadtree returns candidates from intersecting nodes; check the actual box
+            if (entry.envelope.contains(longitude, latitude) && !sessions.contains(entry.sessionId)) {
+                sessions.add(entry.sessionId);
+            }
+        }
+        return sessions;
+    }
+
+    public int size() {
+        return entriesBySession.size();
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        lock.writeLock().lock();
+        try {
+            closedSessions.put(sessionId, System.nanoTime());
+            removeEntries(entriesBySession.remove(sessionId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.viewport.closed-cleanup-ms:60000}")
+    public void purgeClosedSessions() {
+        long now = System.nanoTime();
+        closedSessions.values().removeIf(closedAt -> now - closedAt > CLOSED_RETENTION_NANOS);
+    }
+
+    private List<ViewportEntry> toEntries(String sessionId, ViewportRequest viewport) {
+        if (viewport.getMinLongitude() <= viewport.getMaxLongitude()) {
+            return List.of(new ViewportEntry(sessionId, new Envelope(
+                viewport.getMinLongitude(), viewport.getMaxLongitude(),
+                viewport.getMinLatitude(), viewport.getMaxLatitude())));
+        }
+        // Split a box crossing the antimeridian into its eastern and western halves
+        return List.of(
+            new ViewportEntry(sessionId, new Envelope(
+                viewport.getMinLongitude(), 180, viewport.getMinLatitude(), viewport.getMaxLatitude())),
+            new ViewportEntry(sessionId, new Envelope(
+                -180, viewport.getMaxLongitude(), viewport.getMinLatitude(), viewport.getMaxLatitude())));
+    }
+
+    private void removeEntries(List<ViewportEntry> entries) {
+        if (entries == null) {
+            return;
+        }
+        for (ViewportEntry entry : entries) {
+            index.remove(entry.envelope, entry);
+        }
+    }
+
+    private static final class ViewportEntry {
+        private final String sessionId;
+        private final Envelope envelope;
+
+        private ViewportEntry(String sessionId, Envelope envelope) {
+            this.sessionId = sessionId;
+            this.envelope = envelope;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.neogeo.tracking.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Wraps every STOMP session in an {@link OverflowSessionDecorator}, the buffer frames wait in
+ * between the outbound channel and the socket, and applies the configured overflow policy once
+ * a session has more than {@code tracking.websocket.outbound.session-queue-limit} frames (or
+ * {@code tracking.websocket.send-buffer-size-limit} bytes) waiting there.
+ * <ul>
+ *   <li>DROP_OLDEST - the oldest waiting position frame is discarded</li>
+ *   <li>CONFLATE - the oldest waiting frame with a newer one for the same surveyor topic is discarded,
+ *       otherwise the oldest waiting position frame</li>
+ *   <li>DISCONNECT - the session is closed so it can reconnect and resubscribe</li>
+ * </ul>
+ * A stuck session therefore never holds more than its own buffer, and outbound channel threads
+ * hand it frames without waiting on its socket.
+ */
+@Service
+public class WebSocketSessionMonitor {
+
+    public enum OverflowPolicy { DROP_OLDEST, CONFLATE, DISCONNECT }
+
+    private final Map<String, OverflowSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    private final int sessionQueueLimit;
+    private final OverflowPolicy overflowPolicy;
+    private final Timer sendTimer;
+    private final Counter droppedCounter;
+    private final Counter disconnectedCounter;
+
+    public WebSocketSessionMonitor(MeterRegistry meterRegistry,
+                                   @Value("${tracking.websocket.outbound.session-queue-limit:100}") int sessionQueueLimit,
+                                   @Value("${tracking.websocket.outbound.overflow-policy:CONFLATE}") OverflowPolicy overflowPolicy) {
+        this.sessionQueueLimit = sessionQueueLimit;
+        this.overflowPolicy = overflowPolicy;
+        this.sendTimer = Timer.builder("websocket.outbound.send")
+            .description("Time spent writing a frame to a WebSocket session")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("websocket.outbound.dropped")
+            .description("Frames discarded for sessions over the outbound buffer limit")
+            .tag("policy", overflowPolicy.name())
+            .register(meterRegistry);
+        this.disconnectedCounter = Counter.builder("websocket.outbound.disconnected")
+            .description("Sessions closed because they could not keep up")
+            .register(meterRegistry);
+        Gauge.builder("websocket.outbound.sessions", sessions, Map::size)
+            .description("Open WebSocket sessions")
+            .register(meterRegistry);
+        Gauge.builder("websocket.outbound.queue.depth.max", this, WebSocketSessionMonitor::maxQueueDepth)
+            .description("Most frames waiting in one session's send buffer")
+            .register(meterRegistry);
+    }
+
+    // ==================== SESSION LIFECYCLE ====================
+
+    /**
+     * Wraps a newly connected session; called by the STOMP handler in place of Spring's own decorator.
+     */
+    public WebSocketSession decorate(WebSocketSession session, int sendTimeLimitMs, int sendBufferSizeLimit) {
+        OverflowSessionDecorator decorated = new OverflowSessionDecorator(session, this, overflowPolicy,
+            sessionQueueLimit, sendBufferSizeLimit, sendTimeLimitMs);
+        sessions.put(session.getId(), decorated);
+        return decorated;
+    }
+
+    public void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    // ==================== REPORTING ====================
+
+    /**
+     * Per-session snapshot, ordered by current queue depth (deepest first).
+     */
+    public List<Map<String, Object>> sessionSnapshot() {
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        for (OverflowSessionDecorator session : sessions.values()) {
+            long sent = session.sent.get();
+            snapshot.add(Map.of(
+                "sessionId", session.getId(),
+                "queueDepth", session.getQueuedFrames(),
+                "queueBytes", session.getQueuedBytes(),
+                "sent", sent,
+                "dropped", session.dropped.get(),
+                "avgSendMillis", sent == 0 ? 0.0 : session.sendNanos.get() / (double) sent / 1_000_000,
+                "maxSendMillis", session.maxSendNanos.get() / 1_000_000.0
+            ));
+        }
+        snapshot.sort((a, b) -> Integer.compare((int) b.get("queueDepth"), (int) a.get("queueDepth")));
+        return snapshot;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getSessionQueueLimit() {
+        return sessionQueueLimit;
+    }
+
+    // ==================== DECORATOR CALLBACKS ====================
+
+    void recordSend(long elapsedNanos) {
+        sendTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordDropped() {
+        droppedCounter.increment();
+    }
+
+    void recordDisconnect(OverflowSessionDecorator session, String reason) {
+        sessions.remove(session.getId());
+        disconnectedCounter.increment();
+        System.out.println("Closing slow WebSocket session " + session.getId() + " (" + reason + ")");
+    }
+
+    private double maxQueueDepth() {
+        int max = 0;
+        for (OverflowSessionDecorator session : sessions.values()) {
+            max = Math.max(max, session.getQueuedFrames());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,5 @@
+-- Keyset scans for track history and tail queries: WHERE surveyor_id = ? AND (timestamp, id) > (?, ?)
+-- CONCURRENTLY keeps inserts flowing while the index builds; Flyway runs this script outside a
+-- transaction because of it, so the file must contain only this statement.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_location_track_surveyor_timestamp_id
+    ON location_track (surveyor_id, timestamp, id);
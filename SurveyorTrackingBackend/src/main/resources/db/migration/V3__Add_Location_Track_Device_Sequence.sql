@@ -0,0 +1,3 @@
+-- Device sequence numbers make retried location uploads idempotent.
+-- Rows from clients that do not send a sequence stay NULL and are not constrained (see V4).
+ALTER TABLE location_track ADD COLUMN IF NOT EXISTS device_sequence BIGINT;
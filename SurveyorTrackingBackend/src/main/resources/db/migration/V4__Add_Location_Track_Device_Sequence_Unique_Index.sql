@@ -0,0 +1,6 @@
+-- One row per (surveyor, device sequence), so a retried upload hits this index instead of duplicating.
+-- CONCURRENTLY keeps inserts flowing while the index builds; Flyway runs this script outside a
+-- transaction because of it, so the file must contain only this statement.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_location_track_surveyor_device_sequence
+    ON location_track (surveyor_id, device_sequence)
+    WHERE device_sequence IS NOT NULL;
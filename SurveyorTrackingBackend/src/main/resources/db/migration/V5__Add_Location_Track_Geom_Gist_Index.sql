@@ -0,0 +1,5 @@
+-- Spatial index for PostGIS queries on location_track.geom (bounding-box, ST_DWithin, KNN).
+-- CONCURRENTLY keeps inserts flowing while the index builds; Flyway runs this script outside a
+-- transaction because of it, so the file must contain only this statement.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_location_track_geom
+    ON location_track USING GIST (geom);
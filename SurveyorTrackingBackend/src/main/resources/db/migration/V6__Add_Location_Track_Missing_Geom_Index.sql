@@ -0,0 +1,5 @@
+-- Rows still waiting for the geom backfill. New rows are written with geom set, so this
+-- index shrinks to nothing once the backfill has run; it lets the job resume without a table scan.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_location_track_missing_geom
+    ON location_track (id)
+    WHERE geom IS NULL;
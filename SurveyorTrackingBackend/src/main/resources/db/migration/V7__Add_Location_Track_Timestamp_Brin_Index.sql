@@ -0,0 +1,4 @@
+-- Time predicate for fleet-wide range queries (area search, snapshots). Rows are appended roughly in
+-- timestamp order, so a BRIN index is a few pages yet lets PostgreSQL AND it with the GiST index on geom.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_location_track_timestamp_brin
+    ON location_track USING BRIN (timestamp);
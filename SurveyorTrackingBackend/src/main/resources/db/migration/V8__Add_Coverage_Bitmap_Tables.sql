@@ -0,0 +1,19 @@
+-- Per-project, per-day survey coverage: a portable Roaring64 bitmap of grid cell ids at cell_degrees
+-- resolution. Rows are OR-merged by the backend every tracking.coverage.flush-ms; cells is the bitmap cardinality.
+-- Bitmaps at different grid resolutions hold unrelated cell ids, so each resolution keeps its own row.
+CREATE TABLE IF NOT EXISTS coverage_bitmap (
+    project_name VARCHAR(255) NOT NULL,
+    day DATE NOT NULL,
+    cell_degrees DOUBLE PRECISION NOT NULL,
+    cells BIGINT NOT NULL,
+    bitmap BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (project_name, day, cell_degrees)
+);
+
+-- Area each project's coverage percentage is measured against
+CREATE TABLE IF NOT EXISTS project_coverage_area (
+    project_name VARCHAR(255) PRIMARY KEY,
+    area geometry(Geometry, 4326) NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,133 @@
+package com.neogeo.tracking.benchmark;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.service.LocationBroadcaster;
+
+/**
+ * Compares the original String-based broadcast with the serialize-once path in
+ * {@link LocationBroadcaster}. Both run through a real SimpleBroker with N
+ * subscriptions on one topic and encode a STOMP frame per subscriber, like
+ * StompSubProtocolHandler does for live sessions.
+ *
+ * Run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.neogeo.tracking.benchmark.BroadcastEncodingBenchmark
+ * The GC profiler reports the allocation rate (gc.alloc.rate.norm) next to throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadcastEncodingBenchmark {
+
+    private static final String TOPIC = "/topic/location/SURV001";
+
+    @Param({"1", "100", "1000"})
+    public int subscribers;
+
+    private SimpMessagingTemplate messagingTemplate;
+    private LocationBroadcaster locationBroadcaster;
+    private ObjectMapper objectMapper;
+    private SimpleBrokerMessageHandler broker;
+    private LiveLocationMessage message;
+
+    // Sink for encoded frames so the JIT cannot drop the per-session work
+    private long encodedBytes;
+
+    @Setup
+    public void setUp() {
+        ExecutorSubscribableChannel clientInboundChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutboundChannel = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+
+        StompEncoder encoder = new StompEncoder();
+        clientOutboundChannel.subscribe(outbound -> {
+            MessageHeaders headers = outbound.getHeaders();
+            StompHeaderAccessor frame = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            frame.setSubscriptionId(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+            frame.setDestination(SimpMessageHeaderAccessor.getDestination(headers));
+            MimeType contentType = headers.get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+            if (contentType != null) {
+                frame.setContentType(contentType);
+            }
+            encodedBytes += encoder.encode(frame.getMessageHeaders(), (byte[]) outbound.getPayload()).length;
+        });
+
+        broker = new SimpleBrokerMessageHandler(clientInboundChannel, clientOutboundChannel,
+            brokerChannel, List.of("/topic"));
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId("session-" + i);
+            subscribe.setSubscriptionId("sub-" + i);
+            subscribe.setDestination(TOPIC);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+
+        // Same converter chain the broker messaging template gets in the application
+        messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        messagingTemplate.setMessageConverter(new CompositeMessageConverter(List.of(
+            new StringMessageConverter(), new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+
+        locationBroadcaster = new LocationBroadcaster(messagingTemplate);
+        objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        message = new LiveLocationMessage("SURV001", 17.385044, 78.486671, Instant.parse("2025-05-14T10:00:00Z"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public long stringConvertAndSend() throws Exception {
+        messagingTemplate.convertAndSend(TOPIC, objectMapper.writeValueAsString(message));
+        return encodedBytes;
+    }
+
+    @Benchmark
+    public long preEncodedSend() throws Exception {
+        locationBroadcaster.broadcast(TOPIC, message);
+        return encodedBytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(BroadcastEncodingBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+    }
+}
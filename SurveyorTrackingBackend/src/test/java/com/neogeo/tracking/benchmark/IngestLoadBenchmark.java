@@ -0,0 +1,208 @@
+package com.neogeo.tracking.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Closed-loop HTTP load generator for comparing the platform-thread and
+ * virtual-thread execution modes. Unlike the JMH benchmarks it drives a running
+ * server, so the whole request path (Tomcat, auth, ingest lanes, JDBC) is measured.
+ * <p>
+ * Start the server once per mode and run the same load against each:
+ * <pre>
+ *   ./mvnw spring-boot:run                      # platform threads
+ *   ./mvnw -Pjava21 spring-boot:run             # virtual threads (Java 21)
+ *
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.neogeo.tracking.benchmark.IngestLoadBenchmark \
+ *       -Dbench.credentials=SURV001:secret,SURV002:secret -Dbench.clients=500 -Dbench.seconds=60
+ * </pre>
+ * Options (system properties):
+ * <ul>
+ *   <li>{@code bench.url} - server base URL (default {@code http://localhost:6565})</li>
+ *   <li>{@code bench.credentials} - comma-separated {@code username:password}; each client posts as one of them</li>
+ *   <li>{@code bench.mode} - {@code ingest} (POST /api/live/location) or {@code history}
+ *       (GET /api/location/{id}/track for a window older than the in-memory buffer, so every call hits the database)</li>
+ *   <li>{@code bench.clients} - concurrent clients, each waiting for its response before the next request (default 200)</li>
+ *   <li>{@code bench.seconds} / {@code bench.warmup-seconds} - measured and discarded run time (default 30 / 10)</li>
+ * </ul>
+ * Reports throughput, the share of non-2xx responses and p50/p99/max latency.
+ */
+public class IngestLoadBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("bench.url", "http://localhost:6565");
+        String mode = System.getProperty("bench.mode", "ingest");
+        int clients = Integer.getInteger("bench.clients", 200);
+        int seconds = Integer.getInteger("bench.seconds", 30);
+        int warmupSeconds = Integer.getInteger("bench.warmup-seconds", 10);
+        String credentials = System.getProperty("bench.credentials");
+        if (credentials == null || credentials.isBlank()) {
+            System.err.println("Set -Dbench.credentials=username:password[,username:password...]");
+            System.exit(1);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+            .build();
+
+        List<Session> sessions = new ArrayList<>();
+        for (String pair : credentials.split(",")) {
+            String[] parts = pair.trim().split(":", 2);
+            sessions.add(login(client, baseUrl, parts[0], parts[1]));
+        }
+
+        System.out.printf("mode=%s clients=%d warmup=%ds measure=%ds surveyors=%d%n",
+            mode, clients, warmupSeconds, seconds, sessions.size());
+        run(client, baseUrl, mode, sessions, clients, warmupSeconds, false);
+        run(client, baseUrl, mode, sessions, clients, seconds, true);
+        System.exit(0);
+    }
+
+    private static void run(HttpClient client, String baseUrl, String mode, List<Session> sessions,
+                            int clients, int seconds, boolean report) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Recorder[] recorders = new Recorder[clients];
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            Recorder recorder = new Recorder();
+            recorders[i] = recorder;
+            Session session = sessions.get(i % sessions.size());
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = "history".equals(mode)
+                        ? historyRequest(baseUrl, session)
+                        : ingestRequest(baseUrl, session);
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    recorder.record(System.nanoTime() - start, status >= 200 && status < 300);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        if (report) {
+            report(recorders, seconds);
+        }
+    }
+
+    private static HttpRequest ingestRequest(String baseUrl, Session session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String body = String.format(Locale.ROOT, "{\"surveyorId\":\"%s\",\"latitude\":%.6f,\"longitude\":%.6f,\"timestamp\":\"%s\"}",
+            session.surveyorId, 17.38 + random.nextDouble(0.05), 78.48 + random.nextDouble(0.05), Instant.now());
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/live/location"))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .header("Authorization", "Bearer " + session.token)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private static HttpRequest historyRequest(String baseUrl, Session session) {
+        Instant end = Instant.now().minus(2, ChronoUnit.HOURS);
+        Instant start = end.minus(1, ChronoUnit.HOURS);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/location/" + session.surveyorId
+                + "/track?start=" + start + "&end=" + end))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Session login(HttpClient client, String baseUrl, String username, String password) throws Exception {
+        String body = MAPPER.writeValueAsString(Map.of("username", username, "password", password));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/surveyors/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Map<String, Object> result = MAPPER.readValue(response.body(), Map.class);
+        if (response.statusCode() != 200 || result.get("token") == null) {
+            throw new IllegalStateException("Login failed for " + username + ": HTTP " + response.statusCode());
+        }
+        Map<String, Object> surveyor = (Map<String, Object>) result.get("surveyor");
+        String surveyorId = surveyor != null && surveyor.get("id") != null ? surveyor.get("id").toString() : username;
+        return new Session(surveyorId, result.get("token").toString());
+    }
+
+    private static void report(Recorder[] recorders, int seconds) {
+        int total = 0;
+        long failures = 0;
+        for (Recorder recorder : recorders) {
+            total += recorder.count;
+            failures += recorder.failures.get();
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, latencies, offset, recorder.count);
+            offset += recorder.count;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("requests=%d throughput=%.1f req/s errors=%.2f%%%n",
+            total, total / (double) seconds, total == 0 ? 0.0 : failures * 100.0 / total);
+        System.out.printf("latency ms: p50=%.2f p99=%.2f max=%.2f%n",
+            percentile(latencies, 0.50), percentile(latencies, 0.99),
+            total == 0 ? 0.0 : latencies[total - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static final class Session {
+        private final String surveyorId;
+        private final String token;
+
+        private Session(String surveyorId, String token) {
+            this.surveyorId = surveyorId;
+            this.token = token;
+        }
+    }
+
+    // Written by one client thread only; read after the pool has terminated
+    private static final class Recorder {
+        private long[] latencies = new long[4096];
+        private int count;
+        private final AtomicLong failures = new AtomicLong();
+
+        private void record(long nanos, boolean success) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!success) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.neogeo.tracking.benchmark;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.neogeo.tracking.service.NearestSurveyorIndex;
+
+/**
+ * k-nearest lookup in {@link NearestSurveyorIndex} against a linear haversine scan over the
+ * same positions. Surveyors are spread over a 4 x 4 degree region; every query point is a random
+ * point inside it, and half the fleet is "online" for the filtered variants.
+ *
+ * Run with:
+ *   ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.neogeo.tracking.benchmark.NearestSurveyorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NearestSurveyorBenchmark {
+
+    private static final double CENTER_LAT = 17.385;
+    private static final double CENTER_LON = 78.486;
+    private static final double SPREAD_DEGREES = 4;
+    private static final int QUERY_POINTS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int surveyors;
+
+    @Param({"5"})
+    public int k;
+
+    private NearestSurveyorIndex index;
+    private String[] ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] queryLatitudes;
+    private double[] queryLongitudes;
+    private Predicate<String> online;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new NearestSurveyorIndex(0.05);
+        ids = new String[surveyors];
+        latitudes = new double[surveyors];
+        longitudes = new double[surveyors];
+        Set<String> onlineIds = new HashSet<>();
+        for (int i = 0; i < surveyors; i++) {
+            ids[i] = "SURV" + i;
+            latitudes[i] = CENTER_LAT + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+            longitudes[i] = CENTER_LON + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+            index.update(ids[i], latitudes[i], longitudes[i], 0);
+            if (random.nextBoolean()) {
+                onlineIds.add(ids[i]);
+            }
+        }
+        online = onlineIds::contains;
+
+        queryLatitudes = new double[QUERY_POINTS];
+        queryLongitudes = new double[QUERY_POINTS];
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            queryLatitudes[i] = CENTER_LAT + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+            queryLongitudes[i] = CENTER_LON + (random.nextDouble() - 0.5) * SPREAD_DEGREES;
+        }
+    }
+
+    @Benchmark
+    public List<NearestSurveyorIndex.Neighbor> gridNearest() {
+        int q = next++ & (QUERY_POINTS - 1);
+        return index.nearest(queryLatitudes[q], queryLongitudes[q], k, null);
+    }
+
+    @Benchmark
+    public List<NearestSurveyorIndex.Neighbor> gridNearestOnline() {
+        int q = next++ & (QUERY_POINTS - 1);
+        return index.nearest(queryLatitudes[q], queryLongitudes[q], k, online);
+    }
+
+    @Benchmark
+    public double linearScan() {
+        int q = next++ & (QUERY_POINTS - 1);
+        return scan(queryLatitudes[q], queryLongitudes[q], null);
+    }
+
+    @Benchmark
+    public double linearScanOnline() {
+        int q = next++ & (QUERY_POINTS - 1);
+        return scan(queryLatitudes[q], queryLongitudes[q], online);
+    }
+
+    // What a request handler would do without an index: haversine to every latest position
+    private double scan(double latitude, double longitude, Predicate<String> filter) {
+        PriorityQueue<Double> best = new PriorityQueue<>(k + 1, (a, b) -> Double.compare(b, a));
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+        for (int i = 0; i < surveyors; i++) {
+            if (filter != null && !filter.test(ids[i])) {
+                continue;
+            }
+            double otherLatRad = Math.toRadians(latitudes[i]);
+            double sinLat = Math.sin((otherLatRad - latRad) / 2);
+            double sinLon = Math.sin(Math.toRadians(longitudes[i] - longitude) / 2);
+            double h = sinLat * sinLat + cosLat * Math.cos(otherLatRad) * sinLon * sinLon;
+            best.add(2 * 6_371_000 * Math.asin(Math.min(1, Math.sqrt(h))));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        return best.isEmpty() ? 0 : best.peek();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(NearestSurveyorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
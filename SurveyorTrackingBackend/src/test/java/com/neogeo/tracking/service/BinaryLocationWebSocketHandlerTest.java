@@ -0,0 +1,163 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+class BinaryLocationWebSocketHandlerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BinaryLocationWebSocketHandler handler;
+
+    @AfterEach
+    void shutDown() {
+        release.countDown();
+        handler.destroy();
+    }
+
+    @Test
+    void slowSessionDoesNotHoldUpOthers() throws Exception {
+        handler = new BinaryLocationWebSocketHandler(10_000, 1 << 20, 100, 2);
+        RecordingSession slow = new RecordingSession("slow", true);
+        RecordingSession fast = new RecordingSession("fast", false);
+        handler.afterConnectionEstablished(slow.socket);
+        assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+        handler.afterConnectionEstablished(fast.socket);
+
+        handler.publish(List.of(location("SURV001", 1000)));
+
+        // Dictionary snapshot, dictionary delta, positions
+        assertTrue(fast.awaitFrames(3), "fast session got " + fast.frames.size() + " frames");
+        assertEquals(1000, timestampOf(fast.frames.get(2)));
+        assertEquals(0, slow.frames.size());
+    }
+
+    @Test
+    void slowSessionKeepsOnlyItsNewestFrames() throws Exception {
+        handler = new BinaryLocationWebSocketHandler(10_000, 1 << 20, 3, 1);
+        RecordingSession slow = new RecordingSession("slow", true);
+        handler.afterConnectionEstablished(slow.socket);
+        assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 10; i++) {
+            handler.publish(List.of(location("SURV001", i)));
+        }
+        BinaryLocationWebSocketHandler.BinarySession queued = handler.getSession("slow");
+        assertEquals(3, queued.getQueuedFrames());
+        // The dictionary delta and batches 1-7 were dropped
+        assertEquals(8, queued.getDropped());
+
+        release.countDown();
+        assertTrue(slow.awaitFrames(4));
+        assertTrue(slow.frames.get(0) instanceof TextMessage);
+        assertEquals(List.of(8L, 9L, 10L), List.of(timestampOf(slow.frames.get(1)),
+            timestampOf(slow.frames.get(2)), timestampOf(slow.frames.get(3))));
+    }
+
+    @Test
+    void frameOverTheByteLimitIsStillQueued() throws Exception {
+        handler = new BinaryLocationWebSocketHandler(10_000, 10, 100, 1);
+        RecordingSession slow = new RecordingSession("slow", true);
+        handler.afterConnectionEstablished(slow.socket);
+        assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+
+        handler.publish(List.of(location("SURV001", 1), location("SURV002", 2)));
+
+        // Only the positions frame is left; the dictionary delta before it went over the limit
+        assertEquals(1, handler.getSession("slow").getQueuedFrames());
+        release.countDown();
+        assertTrue(slow.awaitFrames(2));
+        assertEquals(1L, timestampOf(slow.frames.get(1)));
+    }
+
+    @Test
+    void sessionBlockedPastTheSendTimeLimitIsClosed() throws Exception {
+        handler = new BinaryLocationWebSocketHandler(50, 1 << 20, 100, 1);
+        RecordingSession slow = new RecordingSession("slow", true);
+        handler.afterConnectionEstablished(slow.socket);
+        assertTrue(slow.writing.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        handler.publish(List.of(location("SURV001", 1)));
+
+        verify(slow.socket).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, handler.getSessionCount());
+    }
+
+    @Test
+    void resyncResendsTheFullDictionary() throws Exception {
+        handler = new BinaryLocationWebSocketHandler(10_000, 1 << 20, 100, 1);
+        RecordingSession session = new RecordingSession("client", false);
+        handler.afterConnectionEstablished(session.socket);
+        handler.publish(List.of(location("SURV001", 1), location("SURV002", 2)));
+        assertTrue(session.awaitFrames(3));
+
+        handler.handleTextMessage(session.socket, new TextMessage("{\"type\":\"resync\"}"));
+
+        assertTrue(session.awaitFrames(4));
+        JsonNode dictionary = new ObjectMapper().readTree(((TextMessage) session.frames.get(3)).getPayload());
+        assertEquals("dictionary", dictionary.path("type").asText());
+        assertEquals(0, dictionary.path("entries").path("SURV001").asInt(-1));
+        assertEquals(1, dictionary.path("entries").path("SURV002").asInt(-1));
+    }
+
+    private static LiveLocationMessage location(String surveyorId, long epochMillis) {
+        return new LiveLocationMessage(surveyorId, 17.385, 78.4867, Instant.ofEpochMilli(epochMillis));
+    }
+
+    private static long timestampOf(WebSocketMessage<?> frame) {
+        ByteBuffer payload = ((BinaryMessage) frame).getPayload();
+        return payload.getLong(BinaryLocationWebSocketHandler.HEADER_BYTES + 12);
+    }
+
+    // Records delivered frames; a blocking session holds its first write until the test releases it
+    private final class RecordingSession {
+        private final WebSocketSession socket = mock(WebSocketSession.class);
+        private final List<WebSocketMessage<?>> frames = new CopyOnWriteArrayList<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+
+        private RecordingSession(String id, boolean blocking) throws Exception {
+            when(socket.getId()).thenReturn(id);
+            when(socket.isOpen()).thenReturn(true);
+            doAnswer(invocation -> {
+                writing.countDown();
+                if (blocking) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                frames.add(invocation.getArgument(0));
+                return null;
+            }).when(socket).sendMessage(any());
+        }
+
+        private boolean awaitFrames(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (frames.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return frames.size() >= count;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+class CoverageGridTest {
+
+    private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final int COLS = 360;
+
+    private final CoverageGrid grid = new CoverageGrid(1.0);
+
+    private static LinearRing ring(double west, double south, double east, double north) {
+        return FACTORY.createLinearRing(new Coordinate[] {
+            new Coordinate(west, south), new Coordinate(east, south), new Coordinate(east, north),
+            new Coordinate(west, north), new Coordinate(west, south)});
+    }
+
+    private static Polygon box(double west, double south, double east, double north) {
+        return FACTORY.createPolygon(ring(west, south, east, north));
+    }
+
+    private static long cell(int row, int col) {
+        return (long) row * COLS + col;
+    }
+
+    @Test
+    void cellIdsCountRowsFromTheSouthPoleAndColumnsFromTheAntimeridian() {
+        assertEquals(0, grid.cellId(-90, -180));
+        assertEquals(0, grid.cellId(-89.5, -179.5));
+        assertEquals(cell(90, 180), grid.cellId(0.5, 0.5));
+        assertEquals(cell(179, 359), grid.cellId(90, 179.9));
+        // Longitude wraps at the antimeridian
+        assertEquals(grid.cellId(10.5, -179.5), grid.cellId(10.5, 180.5));
+    }
+
+    @Test
+    void rasterizeKeepsCellsWhoseCentreIsInside() {
+        Roaring64NavigableMap cells = grid.rasterize(box(0, 0, 3, 2), 1000);
+
+        assertEquals(6, cells.getLongCardinality());
+        for (int row = 90; row <= 91; row++) {
+            for (int col = 180; col <= 182; col++) {
+                assertTrue(cells.contains(cell(row, col)));
+            }
+        }
+        // A box smaller than a cell that misses every centre covers nothing
+        assertEquals(0, grid.rasterize(box(0.6, 0.6, 0.9, 0.9), 1000).getLongCardinality());
+    }
+
+    @Test
+    void holesAndMultiPolygonPartsUseTheEvenOddRule() {
+        Polygon withHole = FACTORY.createPolygon(ring(0, 0, 4, 4), new LinearRing[] {ring(1, 1, 3, 3)});
+        Roaring64NavigableMap cells = grid.rasterize(withHole, 1000);
+        assertEquals(12, cells.getLongCardinality());
+        assertFalse(cells.contains(cell(91, 181)));
+
+        Geometry parts = FACTORY.createMultiPolygon(new Polygon[] {box(0, 0, 1, 1), box(10, 10, 12, 11)});
+        Roaring64NavigableMap partCells = grid.rasterize(parts, 1000);
+        assertEquals(3, partCells.getLongCardinality());
+        assertTrue(partCells.contains(cell(90, 180)));
+        assertTrue(partCells.contains(cell(100, 190)));
+        assertTrue(partCells.contains(cell(100, 191)));
+    }
+
+    @Test
+    void rasterizeRefusesAreasOverTheCellLimit() {
+        assertThrows(IllegalArgumentException.class, () -> grid.rasterize(box(0, 0, 10, 10), 99));
+    }
+
+    @Test
+    void tileRunsMergeConsecutiveCellsOfARow() {
+        Roaring64NavigableMap cells = new Roaring64NavigableMap();
+        cells.addLong(cell(90, 180));
+        cells.addLong(cell(90, 181));
+        cells.addLong(cell(90, 183));
+        cells.addLong(cell(91, 180));
+
+        // Eastern hemisphere, northern half: lon 0..180, lat 0..85
+        List<List<List<double[]>>> runs = grid.tileRuns(cells, 1, 1, 0);
+
+        assertEquals(3, runs.size());
+        List<double[]> first = runs.get(0).get(0);
+        assertEquals(5, first.size());
+        assertArrayEquals(new double[] {0, 0}, first.get(0));
+        assertArrayEquals(new double[] {2, 0}, first.get(1));
+        assertArrayEquals(new double[] {2, 1}, first.get(2));
+        assertArrayEquals(new double[] {0, 0}, first.get(4));
+        assertArrayEquals(new double[] {3, 0}, runs.get(1).get(0).get(0));
+        assertArrayEquals(new double[] {4, 1}, runs.get(1).get(0).get(2));
+        assertArrayEquals(new double[] {0, 1}, runs.get(2).get(0).get(0));
+    }
+
+    @Test
+    void tileRunsIgnoreCellsOutsideTheTile() {
+        Roaring64NavigableMap cells = new Roaring64NavigableMap();
+        cells.addLong(cell(90, 180));
+        // lon -180..-90, lat 66..85
+        assertEquals(0, grid.tileRuns(cells, 2, 0, 0).size());
+    }
+
+    @Test
+    void cellSizeMustBePositiveAndAtMostNinetyDegrees() {
+        assertThrows(IllegalArgumentException.class, () -> new CoverageGrid(0));
+        assertThrows(IllegalArgumentException.class, () -> new CoverageGrid(91));
+    }
+}
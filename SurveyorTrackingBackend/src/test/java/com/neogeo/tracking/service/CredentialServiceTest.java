@@ -0,0 +1,132 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.model.Surveyor;
+import com.neogeo.tracking.repository.SurveyorRepository;
+
+class CredentialServiceTest {
+
+    private final SurveyorRepository repository = mock(SurveyorRepository.class);
+
+    // Lowest BCrypt cost keeps the tests fast; unknown usernames are remembered for 60 s
+    private CredentialService service(long verifiedTtlSeconds, int maxEntries) {
+        return new CredentialService(repository, 4, verifiedTtlSeconds, 60, maxEntries);
+    }
+
+    @Test
+    void verifiedCredentialsAreServedFromTheCacheUntilInvalidated() {
+        CredentialService service = service(600, 100);
+        when(repository.findByUsername("alice")).thenReturn(Optional.of(surveyor("SURV001", "alice",
+            service.hash("secret"))));
+
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        verify(repository, times(1)).findByUsername("alice");
+
+        service.invalidate("alice");
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        verify(repository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void wrongPasswordIsNeverCached() {
+        CredentialService service = service(600, 100);
+        when(repository.findByUsername("alice")).thenReturn(Optional.of(surveyor("SURV001", "alice",
+            service.hash("secret"))));
+
+        assertNull(service.authenticate("alice", "guess"));
+        assertNull(service.authenticate("alice", "guess"));
+        verify(repository, times(2)).findByUsername("alice");
+        // A cached right password does not let a wrong one through
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        assertNull(service.authenticate("alice", "guess"));
+    }
+
+    @Test
+    void unknownUsernameIsRejectedWithoutAQueryUntilInvalidated() {
+        CredentialService service = service(600, 100);
+        when(repository.findByUsername("bob")).thenReturn(Optional.empty());
+
+        assertNull(service.authenticate("bob", "secret"));
+        assertNull(service.authenticate("bob", "secret"));
+        verify(repository, times(1)).findByUsername("bob");
+
+        // The surveyor is created; saving it invalidates the username
+        when(repository.findByUsername("bob")).thenReturn(Optional.of(surveyor("SURV002", "bob",
+            service.hash("secret"))));
+        service.invalidate("bob");
+        assertEquals("SURV002", service.authenticate("bob", "secret"));
+    }
+
+    @Test
+    void lookupThatRacedAnInvalidationIsNotCached() {
+        CredentialService service = service(600, 100);
+        Surveyor alice = surveyor("SURV001", "alice", service.hash("secret"));
+        // The password changes while the first lookup is in flight
+        when(repository.findByUsername("alice")).thenAnswer(invocation -> {
+            service.invalidate("alice");
+            return Optional.of(alice);
+        }).thenReturn(Optional.of(alice));
+
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        verify(repository, times(2)).findByUsername("alice");
+        assertEquals("SURV001", service.authenticate("alice", "secret"));
+        verify(repository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void expiredAndOverflowingEntriesGoBackToTheDatabase() {
+        CredentialService expiring = service(0, 100);
+        when(repository.findByUsername("alice")).thenReturn(Optional.of(surveyor("SURV001", "alice",
+            expiring.hash("secret"))));
+        expiring.authenticate("alice", "secret");
+        expiring.authenticate("alice", "secret");
+        verify(repository, times(2)).findByUsername("alice");
+
+        CredentialService full = service(600, 1);
+        when(repository.findByUsername("carol")).thenReturn(Optional.of(surveyor("SURV003", "carol",
+            full.hash("secret"))));
+        full.authenticate("alice", "secret");
+        full.authenticate("carol", "secret");
+        full.authenticate("carol", "secret");
+        // alice holds the only slot, so carol is looked up every time
+        verify(repository, times(2)).findByUsername("carol");
+    }
+
+    @Test
+    void legacyPlaintextPasswordIsRehashedOnLogin() {
+        CredentialService service = service(600, 100);
+        Surveyor legacy = surveyor("SURV001", "alice", "secret");
+        when(repository.findByUsername("alice")).thenReturn(Optional.of(legacy));
+        when(repository.save(any(Surveyor.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertNull(service.verify("alice", "guess"));
+        verify(repository, never()).save(any());
+
+        assertEquals("SURV001", service.verify("alice", "secret").getId());
+        assertTrue(service.isHashed(legacy.getPassword()));
+        assertTrue(service.matches("secret", legacy.getPassword()));
+    }
+
+    private static Surveyor surveyor(String id, String username, String password) {
+        Surveyor surveyor = new Surveyor();
+        surveyor.setId(id);
+        surveyor.setUsername(username);
+        surveyor.setPassword(password);
+        return surveyor;
+    }
+}
@@ -0,0 +1,82 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestDispatcherTest {
+
+    @Test
+    void updatesFromOneSurveyorRunInOrderOnOneLane() throws Exception {
+        IngestDispatcher dispatcher = new IngestDispatcher(new SimpleMeterRegistry(), 4, 1000);
+        dispatcher.start();
+        try {
+            List<Integer> order = new ArrayList<>();
+            List<String> threads = new ArrayList<>();
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int index = i;
+                // Only the lane thread touches the lists, so no synchronization is needed
+                results.add(dispatcher.submit("SURV001", () -> {
+                    order.add(index);
+                    threads.add(Thread.currentThread().getName());
+                    return index;
+                }));
+            }
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i, results.get(i).get(5, TimeUnit.SECONDS));
+            }
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i, order.get(i));
+            }
+            assertEquals(1, threads.stream().distinct().count());
+        } finally {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void fullLaneRejectsInsteadOfQueueing() throws Exception {
+        IngestDispatcher dispatcher = new IngestDispatcher(new SimpleMeterRegistry(), 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            dispatcher.submit("SURV001", () -> {
+                started.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            dispatcher.submit("SURV001", () -> 1);
+            dispatcher.submit("SURV002", () -> 2);
+            assertEquals(1.0, dispatcher.maxQueueFill());
+
+            assertThrows(RejectedExecutionException.class, () -> dispatcher.submit("SURV003", () -> 3));
+        } finally {
+            release.countDown();
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void taskExceptionsCompleteTheFuture() {
+        IngestDispatcher dispatcher = new IngestDispatcher(new SimpleMeterRegistry(), 1, 10);
+        try {
+            CompletableFuture<Object> result = dispatcher.submit("SURV001", () -> {
+                throw new IllegalStateException("boom");
+            });
+            assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.stop();
+        }
+    }
+}
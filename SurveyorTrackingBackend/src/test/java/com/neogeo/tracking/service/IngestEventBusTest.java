@@ -0,0 +1,151 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestEventBusTest {
+
+    private static IngestEventBus bus(int capacity) {
+        return new IngestEventBus(new SimpleMeterRegistry(), capacity, 10);
+    }
+
+    private static LiveLocationMessage message(long sequence) {
+        LiveLocationMessage message = new LiveLocationMessage("SURV001", 17.0, 78.0, Instant.ofEpochMilli(sequence));
+        message.setSequence(sequence);
+        return message;
+    }
+
+    // Records the device sequence of every event it is handed
+    private static class Recorder implements LocationEventHandler {
+        private final List<Long> sequences = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onEvent(LocationEvent event, long sequence) {
+            sequences.add(event.getSequence());
+        }
+    }
+
+    @Test
+    void durableConsumerSeesEveryEventInOrder() {
+        IngestEventBus bus = bus(16);
+        Recorder recorder = new Recorder();
+        bus.addConsumer("durable", recorder, false);
+        bus.start();
+        for (long i = 0; i < 100; i++) {
+            while (!bus.publish(message(i))) {
+                Thread.onSpinWait();
+            }
+        }
+        bus.stop();
+
+        assertEquals(100, recorder.sequences.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, recorder.sequences.get(i));
+        }
+    }
+
+    @Test
+    void publishIsRefusedWhenADurableConsumerIsAFullRingBehind() {
+        IngestEventBus bus = bus(4);
+        bus.addConsumer("durable", new Recorder(), false);
+        for (long i = 0; i < 4; i++) {
+            assertTrue(bus.publish(message(i)));
+        }
+        assertFalse(bus.publish(message(4)));
+        assertEquals(3, bus.getCursor());
+    }
+
+    @Test
+    void lossyConsumerSkipsToTheOldestHeldEvent() {
+        IngestEventBus bus = bus(4);
+        Recorder recorder = new Recorder();
+        bus.addConsumer("lossy", recorder, true);
+        for (long i = 0; i < 10; i++) {
+            assertTrue(bus.publish(message(i)));
+        }
+        bus.start();
+        bus.stop();
+
+        assertEquals(List.of(6L, 7L, 8L, 9L), recorder.sequences);
+    }
+
+    @Test
+    void failedBatchHoldsItsSlotsUntilRetried() throws InterruptedException {
+        IngestEventBus bus = bus(4);
+        AtomicInteger batchEnds = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onBatchEnd() {
+                if (batchEnds.incrementAndGet() == 1) {
+                    throw new IllegalStateException("database unavailable");
+                }
+            }
+        };
+        bus.addConsumer("durable", recorder, false);
+        for (long i = 0; i < 4; i++) {
+            assertTrue(bus.publish(message(i)));
+        }
+        bus.start();
+        // The slots stay claimed while the batch is retried
+        assertFalse(bus.publish(message(4)));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (batchEnds.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        bus.stop();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L), recorder.sequences);
+        assertEquals(2, batchEnds.get());
+        assertTrue(bus.publish(message(4)));
+    }
+
+    @Test
+    void publishWakesAParkedConsumer() throws InterruptedException {
+        // Idle park far longer than the test waits, so only an unpark can deliver in time
+        IngestEventBus bus = new IngestEventBus(new SimpleMeterRegistry(), 16, TimeUnit.MINUTES.toMicros(1));
+        Recorder recorder = new Recorder();
+        bus.addConsumer("durable", recorder, false);
+        bus.start();
+        try {
+            for (long i = 0; i < 3; i++) {
+                Thread.sleep(50); // long enough for the consumer to stop spinning and park
+                assertTrue(bus.publish(message(i)));
+                long deadline = System.currentTimeMillis() + 2_000;
+                while (recorder.sequences.size() <= i && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(1);
+                }
+                assertEquals(i + 1, recorder.sequences.size());
+            }
+        } finally {
+            long stopStarted = System.currentTimeMillis();
+            bus.stop();
+            // stop() unparks the idle consumer rather than waiting out its park
+            assertTrue(System.currentTimeMillis() - stopStarted < 5_000);
+        }
+    }
+
+    @Test
+    void consumersCannotBeAddedOnceStarted() {
+        IngestEventBus bus = bus(4);
+        bus.start();
+        try {
+            assertThrows(IllegalStateException.class, () -> bus.addConsumer("late", new Recorder(), true));
+        } finally {
+            bus.stop();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestRateLimiterTest {
+
+    private static IngestRateLimiter limiter(boolean enabled, double perSecond, int burst) {
+        return new IngestRateLimiter(new SimpleMeterRegistry(), enabled, perSecond, burst);
+    }
+
+    @Test
+    void burstIsAllowedThenLimited() {
+        // Refills one token every 1000 seconds, so the test never sees a refill
+        IngestRateLimiter limiter = limiter(true, 0.001, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("SURV001"));
+        }
+        long retryAfterMs = limiter.tryAcquire("SURV001");
+        assertTrue(retryAfterMs > 900_000, "retry hint was " + retryAfterMs);
+    }
+
+    @Test
+    void surveyorsHaveSeparateBuckets() {
+        IngestRateLimiter limiter = limiter(true, 0.001, 1);
+        assertEquals(0, limiter.tryAcquire("SURV001"));
+        assertTrue(limiter.tryAcquire("SURV001") > 0);
+        assertEquals(0, limiter.tryAcquire("SURV002"));
+    }
+
+    @Test
+    void tokensRefillOverTime() throws InterruptedException {
+        // One token per millisecond
+        IngestRateLimiter limiter = limiter(true, 1000, 1);
+        assertEquals(0, limiter.tryAcquire("SURV001"));
+        Thread.sleep(20);
+        assertEquals(0, limiter.tryAcquire("SURV001"));
+    }
+
+    @Test
+    void disabledLimiterAndAnonymousUpdatesAreNeverLimited() {
+        IngestRateLimiter disabled = limiter(false, 0.001, 1);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, disabled.tryAcquire("SURV001"));
+        }
+        IngestRateLimiter enabled = limiter(true, 0.001, 1);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, enabled.tryAcquire(null));
+        }
+    }
+
+    @Test
+    void purgeForgetsOnlyFullBuckets() {
+        IngestRateLimiter limiter = limiter(true, 0.001, 2);
+        assertEquals(0, limiter.tryAcquire("SURV001"));
+        assertEquals(0, limiter.tryAcquire("SURV001"));
+        limiter.purgeFull();
+        // Still empty: the bucket was kept rather than recreated full
+        assertTrue(limiter.tryAcquire("SURV001") > 0);
+    }
+
+    @Test
+    void burstOutsideTheTokenFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(true, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> limiter(true, 1, 20_000));
+    }
+}
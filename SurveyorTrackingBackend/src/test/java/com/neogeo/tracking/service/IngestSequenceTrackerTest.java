@@ -0,0 +1,101 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestSequenceTrackerTest {
+
+    private static final String SURVEYOR = "SURV001";
+
+    private IngestSequenceTracker tracker(long gapTimeoutMs) {
+        return new IngestSequenceTracker(new SimpleMeterRegistry(), 60, gapTimeoutMs);
+    }
+
+    private void publish(IngestSequenceTracker tracker, long sequence) {
+        tracker.beginPersist(SURVEYOR);
+        tracker.published(SURVEYOR, sequence);
+    }
+
+    @Test
+    void durableSequenceIsUnknownUntilSomethingIsStored() {
+        IngestSequenceTracker tracker = tracker(600_000);
+        assertNull(tracker.durableSequence(SURVEYOR));
+        publish(tracker, 5);
+        assertNull(tracker.durableSequence(SURVEYOR));
+        tracker.persisted(SURVEYOR, 5L);
+        assertEquals(5L, tracker.durableSequence(SURVEYOR));
+    }
+
+    @Test
+    void outOfOrderPersistHoldsTheWatermarkBelowTheGap() {
+        IngestSequenceTracker tracker = tracker(600_000);
+        publish(tracker, 5);
+        publish(tracker, 6);
+        publish(tracker, 7);
+        tracker.persisted(SURVEYOR, 5L);
+        tracker.persisted(SURVEYOR, 7L);
+        assertEquals(5L, tracker.durableSequence(SURVEYOR));
+
+        tracker.persisted(SURVEYOR, 6L);
+        assertEquals(7L, tracker.durableSequence(SURVEYOR));
+    }
+
+    @Test
+    void filteredSequencesCountAsComplete() {
+        IngestSequenceTracker tracker = tracker(600_000);
+        publish(tracker, 1);
+        tracker.handled(SURVEYOR, 2L);
+        publish(tracker, 3);
+        tracker.persisted(SURVEYOR, 3L);
+        assertNull(tracker.durableSequence(SURVEYOR));
+
+        tracker.persisted(SURVEYOR, 1L);
+        assertEquals(3L, tracker.durableSequence(SURVEYOR));
+    }
+
+    @Test
+    void gapThatNeverFillsIsHeldUntilTheTimeout() throws InterruptedException {
+        IngestSequenceTracker held = tracker(600_000);
+        publish(held, 1);
+        held.persisted(SURVEYOR, 1L);
+        publish(held, 3);
+        held.persisted(SURVEYOR, 3L);
+        assertEquals(1L, held.durableSequence(SURVEYOR));
+
+        IngestSequenceTracker skipped = tracker(20);
+        publish(skipped, 1);
+        skipped.persisted(SURVEYOR, 1L);
+        publish(skipped, 3);
+        skipped.persisted(SURVEYOR, 3L);
+        Thread.sleep(50);
+        assertEquals(3L, skipped.durableSequence(SURVEYOR));
+    }
+
+    @Test
+    void recentSequencesAreDuplicatesInAnyOrder() {
+        IngestSequenceTracker tracker = tracker(600_000);
+        publish(tracker, 10);
+        publish(tracker, 8);
+        assertTrue(tracker.isDuplicate(SURVEYOR, 10L));
+        assertTrue(tracker.isDuplicate(SURVEYOR, 8L));
+        assertFalse(tracker.isDuplicate(SURVEYOR, 9L));
+        assertFalse(tracker.isDuplicate(SURVEYOR, null));
+    }
+
+    @Test
+    void sequencesBelowTheFirstSeenDoNotMoveTheWatermark() {
+        IngestSequenceTracker tracker = tracker(600_000);
+        publish(tracker, 20);
+        publish(tracker, 19);
+        tracker.persisted(SURVEYOR, 19L);
+        assertNull(tracker.durableSequence(SURVEYOR));
+        tracker.persisted(SURVEYOR, 20L);
+        assertEquals(20L, tracker.durableSequence(SURVEYOR));
+    }
+}
@@ -0,0 +1,93 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationStreamFrame;
+
+class LocationChangeLogTest {
+
+    private final LatestLocationStore latest = mock(LatestLocationStore.class);
+    private final SurveyorService surveyorService = mock(SurveyorService.class);
+
+    private LocationChangeLog log(int capacity) {
+        return new LocationChangeLog(latest, surveyorService, capacity);
+    }
+
+    @Test
+    void resumeReturnsOnlyTheCoalescedChangesAfterTheId() {
+        LocationChangeLog log = log(16);
+        log.recordLocations(List.of(location("SURV001", 1)));
+        String resumeFrom = log.eventId(log.latestSequence());
+        log.recordLocations(List.of(location("SURV002", 2), location("SURV001", 3)));
+        log.recordLocations(List.of(location("SURV002", 4)));
+
+        LocationStreamFrame delta = log.since(log.sequenceOf(resumeFrom));
+
+        assertEquals(log.latestSequence(), delta.getSequence());
+        // Each surveyor once, at its newest position
+        assertEquals(Map.of("SURV001", 3L, "SURV002", 4L), delta.getLocations().stream()
+            .collect(Collectors.toMap(LiveLocationMessage::getSurveyorId,
+                location -> location.getTimestamp().toEpochMilli())));
+        // SURV001 was already online; SURV002 comes online with its first report
+        assertEquals(Map.of("SURV002", "Online"), delta.getStatuses());
+        assertTrue(log.since(log.latestSequence()).isEmpty());
+    }
+
+    @Test
+    void evictedRangeNeedsASnapshot() {
+        LocationChangeLog log = log(4);
+        log.recordLocations(List.of(location("SURV001", 1)));
+        long first = log.latestSequence();
+        for (int i = 2; i <= 5; i++) {
+            log.recordLocations(List.of(location("SURV001", i)));
+        }
+
+        assertNull(log.since(first - 1));
+        assertEquals(log.latestSequence(), log.since(log.latestSequence() - 3).getSequence());
+    }
+
+    @Test
+    void idFromAnotherEpochIsNotResumed() {
+        LocationChangeLog log = log(16);
+        log.recordLocations(List.of(location("SURV001", 1)));
+        String id = log.eventId(log.latestSequence());
+        long epoch = Long.parseLong(id.substring(0, id.indexOf('-')));
+
+        assertEquals(log.latestSequence(), log.sequenceOf(id));
+        // The same sequence issued by an earlier run of the server
+        assertNull(log.sequenceOf((epoch - 1) + "-" + log.latestSequence()));
+        // Bare sequences from before ids carried an epoch, and garbage
+        assertNull(log.sequenceOf(Long.toString(log.latestSequence())));
+        assertNull(log.sequenceOf("not-an-id"));
+        assertNull(log.sequenceOf(null));
+    }
+
+    @Test
+    void snapshotIsPositionedAtTheLatestSequence() {
+        LocationChangeLog log = log(16);
+        when(latest.getAll()).thenReturn(List.of(location("SURV001", 1)));
+        log.recordLocations(List.of(location("SURV001", 1)));
+
+        LocationStreamFrame snapshot = log.snapshot();
+
+        assertEquals(log.latestSequence(), snapshot.getSequence());
+        assertEquals(1, snapshot.getLocations().size());
+        assertEquals(Map.of("SURV001", "Online"), snapshot.getStatuses());
+    }
+
+    private static LiveLocationMessage location(String surveyorId, long epochMillis) {
+        return new LiveLocationMessage(surveyorId, 17.385, 78.4867, Instant.ofEpochMilli(epochMillis));
+    }
+}
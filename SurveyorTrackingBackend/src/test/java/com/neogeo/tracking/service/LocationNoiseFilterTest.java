@@ -0,0 +1,106 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.service.LocationNoiseFilter.Decision;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LocationNoiseFilterTest {
+
+    private static final double LAT = 17.385;
+    private static final double LON = 78.4867;
+    // Roughly one metre of latitude
+    private static final double METRE = 1 / 111_195.0;
+    private static final Instant T0 = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // 10 m, keepalive 300 s, accuracy up to 100 m, 3 m/s process noise, 20 m assumed accuracy
+    private LocationNoiseFilter filter(long minIntervalMs, boolean kalman, long stateTtlMinutes) {
+        return new LocationNoiseFilter(meterRegistry, true, 10, minIntervalMs, 300, 100, kalman, 3, 20,
+            stateTtlMinutes);
+    }
+
+    @Test
+    void pointsWithinTheMinimumDistanceAreStationary() {
+        LocationNoiseFilter filter = filter(0, false, 60);
+
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, null)));
+        assertEquals(Decision.STATIONARY, filter.apply(at(5, 5, null)));
+        assertEquals(Decision.KEPT, filter.apply(at(10, 15, null)));
+        // Compared with the last kept point, not the last one seen
+        assertEquals(Decision.STATIONARY, filter.apply(at(15, 20, null)));
+        assertEquals(2.0, meterRegistry.get("tracking.ingest.filter").tag("result", "kept").counter().count());
+        assertEquals(2.0, meterRegistry.get("tracking.ingest.filter").tag("result", "stationary").counter().count());
+    }
+
+    @Test
+    void inaccurateFixesAreRejectedAndTheirRadiusWidensTheThreshold() {
+        LocationNoiseFilter filter = filter(0, false, 60);
+        assertEquals(Decision.ACCURACY, filter.apply(at(0, 0, 150.0)));
+        assertEquals(Decision.KEPT, filter.apply(at(5, 0, 5.0)));
+
+        // 30 m is beyond min-distance-m but inside this fix's own 50 m radius
+        assertEquals(Decision.STATIONARY, filter.apply(at(10, 30, 50.0)));
+        assertEquals(Decision.KEPT, filter.apply(at(15, 30, 5.0)));
+    }
+
+    @Test
+    void updatesInsideTheMinimumIntervalAreDropped() {
+        LocationNoiseFilter filter = filter(5000, false, 60);
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, null)));
+        assertEquals(Decision.INTERVAL, filter.apply(at(1, 500, null)));
+        assertEquals(Decision.KEPT, filter.apply(at(6, 500, null)));
+    }
+
+    @Test
+    void stationarySurveyorIsKeptOncePerKeepalive() {
+        LocationNoiseFilter filter = filter(0, false, 60);
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, null)));
+        assertEquals(Decision.STATIONARY, filter.apply(at(299, 1, null)));
+        assertEquals(Decision.KEPT, filter.apply(at(300, 1, null)));
+    }
+
+    @Test
+    void kalmanSmoothingPullsAnInaccurateFixTowardsTheEstimate() {
+        LocationNoiseFilter filter = filter(0, true, 60);
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, 5.0)));
+
+        // A 50 m jump reported with 40 m accuracy only moves the estimate a few metres
+        LiveLocationMessage jump = at(1, 50, 40.0);
+        assertEquals(Decision.STATIONARY, filter.apply(jump));
+        double moved = LocationNoiseFilter.distanceMeters(LAT, LON, jump.getLatitude(), jump.getLongitude());
+        assertTrue(moved > 0 && moved < 10, "estimate moved " + moved + " m");
+    }
+
+    @Test
+    void purgedSurveyorIsKeptUnconditionally() throws InterruptedException {
+        LocationNoiseFilter filter = filter(0, false, 0);
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, null)));
+        Thread.sleep(5);
+        filter.purgeIdle();
+        assertEquals(Decision.KEPT, filter.apply(at(5, 1, null)));
+    }
+
+    @Test
+    void disabledFilterKeepsEverything() {
+        LocationNoiseFilter filter = new LocationNoiseFilter(meterRegistry, false, 10, 0, 300, 100, false, 3, 20, 60);
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, 500.0)));
+        assertEquals(Decision.KEPT, filter.apply(at(0, 0, null)));
+    }
+
+    // Position metresNorth of the reference point, secondsLater after T0
+    private static LiveLocationMessage at(long secondsLater, double metresNorth, Double accuracy) {
+        LiveLocationMessage message = new LiveLocationMessage("SURV001", LAT + metresNorth * METRE, LON,
+            T0.plusSeconds(secondsLater));
+        message.setAccuracy(accuracy);
+        return message;
+    }
+}
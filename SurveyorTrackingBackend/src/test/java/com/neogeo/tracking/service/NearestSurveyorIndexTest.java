@@ -0,0 +1,99 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.service.NearestSurveyorIndex.Neighbor;
+
+class NearestSurveyorIndexTest {
+
+    private static List<String> ids(List<Neighbor> neighbors) {
+        return neighbors.stream().map(Neighbor::getSurveyorId).toList();
+    }
+
+    private static double distance(double lat, double lon, double otherLat, double otherLon) {
+        double latRad = Math.toRadians(lat);
+        return NearestSurveyorIndex.haversineMeters(latRad, Math.cos(latRad), lon, otherLat, otherLon);
+    }
+
+    @Test
+    void matchesALinearScanOnARandomFleet() {
+        NearestSurveyorIndex index = new NearestSurveyorIndex(0.05);
+        Random random = new Random(42);
+        double[][] positions = new double[2000][];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new double[] {17 + random.nextDouble() * 2, 78 + random.nextDouble() * 2};
+            index.update("S" + i, positions[i][0], positions[i][1], i);
+        }
+        Predicate<String> even = id -> Integer.parseInt(id.substring(1)) % 2 == 0;
+
+        for (int query = 0; query < 50; query++) {
+            double lat = 16.5 + random.nextDouble() * 3;
+            double lon = 77.5 + random.nextDouble() * 3;
+            for (Predicate<String> filter : List.of((Predicate<String>) id -> true, even)) {
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < positions.length; i++) {
+                    if (filter.test("S" + i)) {
+                        expected.add(i);
+                    }
+                }
+                expected.sort(Comparator.comparingDouble(i -> distance(lat, lon, positions[i][0], positions[i][1])));
+
+                List<Neighbor> nearest = index.nearest(lat, lon, 10, filter);
+                assertEquals(expected.subList(0, 10).stream().map(i -> "S" + i).toList(), ids(nearest));
+            }
+        }
+    }
+
+    @Test
+    void movedSurveyorIsFoundOnlyAtItsNewPosition() {
+        NearestSurveyorIndex index = new NearestSurveyorIndex(0.05);
+        index.update("SURV001", 17.0, 78.0, 1);
+        index.update("SURV002", 17.5, 78.5, 1);
+        index.update("SURV001", 18.0, 79.0, 2);
+
+        List<Neighbor> nearest = index.nearest(17.0, 78.0, 5, null);
+        assertEquals(List.of("SURV002", "SURV001"), ids(nearest));
+        assertEquals(2, nearest.get(1).getTimestampMillis());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void removedSurveyorIsNotReturned() {
+        NearestSurveyorIndex index = new NearestSurveyorIndex(0.05);
+        index.update("SURV001", 17.0, 78.0, 1);
+        index.update("SURV002", 17.1, 78.1, 1);
+        index.remove("SURV001");
+
+        assertEquals(List.of("SURV002"), ids(index.nearest(17.0, 78.0, 5, null)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void neighboursAcrossTheAntimeridianAreFound() {
+        NearestSurveyorIndex index = new NearestSurveyorIndex(1.0);
+        index.update("EAST", 0, 179.9, 1);
+        index.update("FAR", 0, 170, 1);
+
+        List<Neighbor> nearest = index.nearest(0, -179.9, 1, null);
+        assertEquals(List.of("EAST"), ids(nearest));
+        assertTrue(nearest.get(0).getDistanceMeters() < 25_000);
+    }
+
+    @Test
+    void emptyIndexAndNonPositiveKReturnNothing() {
+        NearestSurveyorIndex index = new NearestSurveyorIndex(0.05);
+        assertEquals(List.of(), index.nearest(17, 78, 3, null));
+        index.update("SURV001", 17, 78, 1);
+        assertEquals(List.of(), index.nearest(17, 78, 0, null));
+        assertEquals(List.of("SURV001"), ids(index.nearest(17, 78, 3, null)));
+    }
+}
@@ -0,0 +1,194 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.neogeo.tracking.service.WebSocketSessionMonitor.OverflowPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * The first frame's write is held open, so every frame sent meanwhile waits in the decorator's
+ * buffer; releasing it flushes whatever the overflow policy left there.
+ */
+class OverflowSessionDecoratorTest {
+
+    private final WebSocketSession socket = mock(WebSocketSession.class);
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private Thread writer;
+
+    OverflowSessionDecoratorTest() throws Exception {
+        when(socket.getId()).thenReturn("session-1");
+        when(socket.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> frame = invocation.getArgument(0);
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            written.add(bodyOf(frame));
+            return null;
+        }).when(socket).sendMessage(any());
+    }
+
+    @AfterEach
+    void releaseWriter() throws InterruptedException {
+        release.countDown();
+        if (writer != null) {
+            writer.join(5000);
+        }
+    }
+
+    @Test
+    void conflateKeepsNewestFramePerSurveyor() throws Exception {
+        OverflowSessionDecorator session = decorate(OverflowPolicy.CONFLATE, 2, 1 << 20, 10_000);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        session.sendMessage(frame("/topic/location/SURV001", "a2"));
+        session.sendMessage(frame("/topic/location/SURV002", "b1"));
+        session.sendMessage(frame("/topic/location/SURV001", "a3"));
+        assertEquals(2, session.getQueuedFrames());
+
+        assertEquals(List.of("a1", "b1", "a3"), drain());
+        assertEquals(1, session.dropped.get());
+    }
+
+    @Test
+    void conflateDoesNotMergeSurveyorsSharingATopic() throws Exception {
+        OverflowSessionDecorator session = decorate(OverflowPolicy.CONFLATE, 3, 1 << 20, 10_000);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        // Both project frames are the only pending position of their surveyor
+        session.sendMessage(frame("/topic/project/alpha", "surveyor-A"));
+        session.sendMessage(frame("/topic/location/SURV001", "a2"));
+        session.sendMessage(frame("/topic/project/alpha", "surveyor-B"));
+        session.sendMessage(frame("/topic/location/SURV001", "a3"));
+
+        assertEquals(List.of("a1", "surveyor-A", "surveyor-B", "a3"), drain());
+    }
+
+    @Test
+    void sharedTopicsFallBackToDroppingTheOldest() throws Exception {
+        OverflowSessionDecorator session = decorate(OverflowPolicy.CONFLATE, 2, 1 << 20, 10_000);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        session.sendMessage(frame("/topic/location/all", "fleet-1"));
+        session.sendMessage(frame("/topic/location/all", "fleet-2"));
+        session.sendMessage(frame("/topic/city/Hyderabad", "city-1"));
+
+        assertEquals(List.of("a1", "fleet-2", "city-1"), drain());
+    }
+
+    @Test
+    void byteLimitDropsOldestFrames() throws Exception {
+        OverflowSessionDecorator session = decorate(OverflowPolicy.DROP_OLDEST, 100, 250, 10_000);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        session.sendMessage(frame("/topic/project/alpha", pad("p1", 100)));
+        session.sendMessage(frame("/topic/project/alpha", pad("p2", 100)));
+        session.sendMessage(frame("/topic/project/alpha", pad("p3", 100)));
+        session.sendMessage(frame("/topic/project/alpha", pad("p4", 100)));
+
+        List<String> delivered = drain();
+        assertEquals(List.of("a1", pad("p3", 100), pad("p4", 100)), delivered);
+    }
+
+    @Test
+    void frameLargerThanTheByteLimitIsStillDelivered() throws Exception {
+        OverflowSessionDecorator session = decorate(OverflowPolicy.DROP_OLDEST, 100, 100, 10_000);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        String snapshot = pad("snapshot", 1000);
+        session.sendMessage(frame("/topic/location/all", snapshot));
+        assertEquals(1, session.getQueuedFrames());
+
+        assertEquals(List.of("a1", snapshot), drain());
+        assertEquals(0, session.dropped.get());
+    }
+
+    @Test
+    void disconnectPolicyClosesTheSessionInsteadOfDropping() throws Exception {
+        WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(new SimpleMeterRegistry(), 1,
+            OverflowPolicy.DISCONNECT);
+        OverflowSessionDecorator session = (OverflowSessionDecorator) monitor.decorate(socket, 10_000, 1 << 20);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        session.sendMessage(frame("/topic/location/SURV001", "a2"));
+        session.sendMessage(frame("/topic/location/SURV001", "a3"));
+
+        verify(socket).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(0, session.getQueuedFrames());
+        assertTrue(monitor.sessionSnapshot().isEmpty());
+        assertEquals(List.of("a1"), drain());
+    }
+
+    @Test
+    void writeBlockedPastTheSendTimeLimitClosesTheSession() throws Exception {
+        OverflowSessionDecorator session = decorate(OverflowPolicy.DROP_OLDEST, 100, 1 << 20, 50);
+        blockOn(session, frame("/topic/location/SURV001", "a1"));
+
+        session.sendMessage(frame("/topic/location/SURV001", "a2"));
+        verify(socket, never()).close(any());
+        Thread.sleep(100);
+        session.sendMessage(frame("/topic/location/SURV001", "a3"));
+
+        verify(socket).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private OverflowSessionDecorator decorate(OverflowPolicy policy, int queueLimit, int bufferSizeLimit,
+                                              int sendTimeLimitMs) {
+        WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(new SimpleMeterRegistry(), queueLimit, policy);
+        return (OverflowSessionDecorator) monitor.decorate(socket, sendTimeLimitMs, bufferSizeLimit);
+    }
+
+    // Starts a write of the frame on another thread and waits until it is stuck in the socket
+    private void blockOn(OverflowSessionDecorator session, TextMessage first) throws InterruptedException {
+        writer = new Thread(() -> {
+            try {
+                session.sendMessage(first);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+    }
+
+    private List<String> drain() throws InterruptedException {
+        release.countDown();
+        writer.join(5000);
+        return written;
+    }
+
+    private static TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\ncontent-type:application/json\n"
+            + "subscription:sub-0\nmessage-id:1\n\n" + body + "\u0000");
+    }
+
+    private static String bodyOf(WebSocketMessage<?> frame) {
+        String payload = ((TextMessage) frame).getPayload();
+        return payload.substring(payload.indexOf("\n\n") + 2, payload.length() - 1);
+    }
+
+    private static String pad(String body, int length) {
+        return body + "x".repeat(length - body.length());
+    }
+}
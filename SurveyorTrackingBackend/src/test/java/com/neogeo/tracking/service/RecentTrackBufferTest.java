@@ -0,0 +1,100 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.model.LocationTrack;
+import com.neogeo.tracking.repository.LocationTrackRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecentTrackBufferTest {
+
+    private static final String SURVEYOR = "SURV001";
+    private static final Instant T0 = Instant.parse("2025-05-30T15:00:00Z");
+
+    private static RecentTrackBuffer buffer(int capacity) {
+        return new RecentTrackBuffer(mock(LocationTrackRepository.class), new SimpleMeterRegistry(), capacity, 0);
+    }
+
+    private static LocationTrack point(long id, long secondsAfterStart) {
+        LocationTrack point = new LocationTrack(SURVEYOR, 17.0 + id / 1000.0, 78.0, T0.plusSeconds(secondsAfterStart), null);
+        point.setId(id);
+        return point;
+    }
+
+    private static List<Long> ids(List<LocationTrack> points) {
+        return points.stream().map(LocationTrack::getId).toList();
+    }
+
+    @Test
+    void tailReturnsPointsAfterTheCursorPlusOne() {
+        RecentTrackBuffer buffer = buffer(16);
+        for (long id = 1; id <= 5; id++) {
+            buffer.append(point(id, id * 10));
+        }
+
+        assertEquals(List.of(3L, 4L, 5L), ids(buffer.after(SURVEYOR, T0.plusSeconds(20), 2, 5)));
+        assertEquals(List.of(3L, 4L), ids(buffer.after(SURVEYOR, T0.plusSeconds(20), 2, 1)));
+        assertEquals(List.of(), ids(buffer.after(SURVEYOR, T0.plusSeconds(50), 5, 5)));
+    }
+
+    @Test
+    void latePointIsStoredInTimestampOrder() {
+        RecentTrackBuffer buffer = buffer(16);
+        buffer.append(point(1, 10));
+        buffer.append(point(2, 30));
+        buffer.append(point(3, 20));
+
+        assertEquals(List.of(3L, 2L), ids(buffer.after(SURVEYOR, T0.plusSeconds(10), 1, 5)));
+        // A tail cursor already past it does not see the late point
+        assertEquals(List.of(), ids(buffer.after(SURVEYOR, T0.plusSeconds(30), 2, 5)));
+    }
+
+    @Test
+    void pointOlderThanTheFloorIsLeftToTheDatabase() {
+        RecentTrackBuffer buffer = buffer(16);
+        buffer.append(point(2, 20));
+        buffer.append(point(1, 10));
+
+        assertNull(buffer.after(SURVEYOR, T0.plusSeconds(10), 1, 5));
+        assertEquals(List.of(), ids(buffer.after(SURVEYOR, T0.plusSeconds(20), 2, 5)));
+    }
+
+    @Test
+    void evictionMovesTheFloorToTheOldestHeldPoint() {
+        RecentTrackBuffer buffer = buffer(3);
+        for (long id = 1; id <= 4; id++) {
+            buffer.append(point(id, id * 10));
+        }
+
+        assertNull(buffer.after(SURVEYOR, T0.plusSeconds(10), 1, 5));
+        // Other points at the floor's timestamp may exist with lower ids, so a range starting there is a miss
+        assertNull(buffer.between(SURVEYOR, T0.plusSeconds(20), null));
+        assertEquals(List.of(3L, 4L), ids(buffer.between(SURVEYOR, T0.plusSeconds(21), null)));
+        assertEquals(List.of(3L, 4L), ids(buffer.after(SURVEYOR, T0.plusSeconds(20), 2, 5)));
+    }
+
+    @Test
+    void betweenIsInclusiveAndDuplicatesAreIgnored() {
+        RecentTrackBuffer buffer = buffer(16);
+        for (long id = 1; id <= 4; id++) {
+            buffer.append(point(id, id * 10));
+        }
+        buffer.append(point(2, 20));
+
+        assertEquals(List.of(2L, 3L), ids(buffer.between(SURVEYOR, T0.plusSeconds(20), T0.plusSeconds(30))));
+    }
+
+    @Test
+    void unknownSurveyorIsAMissUntilSeeded() {
+        RecentTrackBuffer buffer = buffer(16);
+        assertNull(buffer.after("SURV999", T0, Long.MAX_VALUE, 5));
+    }
+}
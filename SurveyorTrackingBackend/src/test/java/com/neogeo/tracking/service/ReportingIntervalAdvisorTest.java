@@ -0,0 +1,122 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.dto.LiveLocationMessage;
+import com.neogeo.tracking.dto.LocationAck;
+import com.neogeo.tracking.dto.ViewportRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReportingIntervalAdvisorTest {
+
+    private static final double LAT = 17.385;
+    private static final double LON = 78.4867;
+
+    private final LatestLocationStore latest = mock(LatestLocationStore.class);
+    private final TopicSubscriptionRegistry topics = mock(TopicSubscriptionRegistry.class);
+    private final SurveyorDirectory directory = mock(SurveyorDirectory.class);
+    private final ViewportSubscriptionRegistry viewports = new ViewportSubscriptionRegistry();
+    private final AdmissionGate admissionGate = mock(AdmissionGate.class);
+    private final IngestEventBus eventBus = mock(IngestEventBus.class);
+
+    private final ReportingIntervalAdvisor advisor;
+
+    ReportingIntervalAdvisorTest() {
+        when(directory.get(anyString())).thenReturn(SurveyorDirectory.Assignment.NONE);
+        when(directory.groupTopics(anyString())).thenReturn(List.of());
+        // watched 5 s, idle 30 s, stationary 60 s below 0.5 m/s, at most 240 s; 10-100 m; overload x4
+        advisor = new ReportingIntervalAdvisor(new SimpleMeterRegistry(), latest, topics, directory, viewports,
+            admissionGate, eventBus, true, 5000, 30000, 60000, 0.5, 240000, 10, 100, 4, 0, 60);
+    }
+
+    @Test
+    void nobodyWatchingGetsTheIdleInterval() {
+        LocationAck ack = advise("SURV001");
+        assertEquals(30000L, ack.getRecommendedIntervalMs());
+        assertEquals(20.0, ack.getMinDisplacementM());
+    }
+
+    @Test
+    void fleetWideFeedsDoNotMakeEverySurveyorWatched() {
+        when(topics.hasSubscribers(FleetLocationBatcher.ALL_TOPIC)).thenReturn(true);
+        assertEquals(30000L, advise("SURV001").getRecommendedIntervalMs());
+    }
+
+    @Test
+    void ownTopicSubscriberGetsTheWatchedInterval() {
+        when(topics.hasSubscribers("/topic/location/SURV001")).thenReturn(true);
+        LocationAck ack = advise("SURV001");
+        assertEquals(5000L, ack.getRecommendedIntervalMs());
+        assertEquals(10.0, ack.getMinDisplacementM());
+        assertEquals(30000L, advise("SURV002").getRecommendedIntervalMs());
+    }
+
+    @Test
+    void projectOrCityTopicCountsAsWatched() {
+        when(directory.groupTopics("SURV001")).thenReturn(List.of("/topic/city/Hyderabad"));
+        when(topics.hasSubscribers("/topic/city/Hyderabad")).thenReturn(true);
+        assertEquals(5000L, advise("SURV001").getRecommendedIntervalMs());
+    }
+
+    @Test
+    void viewportContainingThePositionCountsAsWatched() {
+        viewports.register("session-1", new ViewportRequest(LAT - 0.1, LON - 0.1, LAT + 0.1, LON + 0.1));
+        assertEquals(5000L, advise("SURV001").getRecommendedIntervalMs());
+
+        viewports.register("session-1", new ViewportRequest(LAT + 1, LON + 1, LAT + 2, LON + 2));
+        assertEquals(30000L, advise("SURV001").getRecommendedIntervalMs());
+    }
+
+    @Test
+    void stationarySurveyorIsAskedLessOften() {
+        when(topics.hasSubscribers("/topic/location/SURV001")).thenReturn(true);
+        when(latest.get("SURV001")).thenReturn(location("SURV001", Instant.parse("2024-05-01T10:00:00Z")));
+        // Same spot ten seconds later
+        advisor.observe(location("SURV001", Instant.parse("2024-05-01T10:00:10Z")));
+
+        assertEquals(60000L, advise("SURV001").getRecommendedIntervalMs());
+    }
+
+    @Test
+    void overloadStretchesIntervalAndDisplacementUpToTheCaps() {
+        when(admissionGate.isOverloaded()).thenReturn(true);
+        LocationAck ack = advise("SURV001");
+        assertEquals(120000L, ack.getRecommendedIntervalMs());
+        assertEquals(80.0, ack.getMinDisplacementM());
+
+        when(latest.get("SURV002")).thenReturn(location("SURV002", Instant.parse("2024-05-01T10:00:00Z")));
+        advisor.observe(location("SURV002", Instant.parse("2024-05-01T10:00:10Z")));
+        // 60 s x 4 would reach the online timeout; capped at max-interval-ms
+        assertEquals(240000L, advise("SURV002").getRecommendedIntervalMs());
+    }
+
+    @Test
+    void disabledAdvisorLeavesTheAckAlone() {
+        ReportingIntervalAdvisor disabled = new ReportingIntervalAdvisor(new SimpleMeterRegistry(), latest, topics,
+            directory, viewports, admissionGate, eventBus, false, 5000, 30000, 60000, 0.5, 240000, 10, 100, 4, 0, 60);
+        LocationAck ack = new LocationAck();
+        disabled.advise(ack, location("SURV001", Instant.now()));
+        assertNull(ack.getRecommendedIntervalMs());
+        assertNull(ack.getMinDisplacementM());
+    }
+
+    private LocationAck advise(String surveyorId) {
+        LocationAck ack = new LocationAck();
+        advisor.advise(ack, location(surveyorId, Instant.now()));
+        return ack;
+    }
+
+    private static LiveLocationMessage location(String surveyorId, Instant timestamp) {
+        return new LiveLocationMessage(surveyorId, LAT, LON, timestamp);
+    }
+}
@@ -0,0 +1,112 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+import com.neogeo.tracking.service.SessionTokenService.IssuedToken;
+
+class SessionTokenServiceTest {
+
+    private static final String SECRET = "test-secret-0123456789abcdef";
+
+    private static SessionTokenService service(long ttlMinutes) {
+        return new SessionTokenService(SECRET, ttlMinutes, false);
+    }
+
+    @Test
+    void issuedTokenVerifiesToItsSurveyor() {
+        SessionTokenService service = service(60);
+        IssuedToken issued = service.issue("SURV001");
+
+        assertEquals("SURV001", service.verify(issued.getToken()));
+        assertEquals(issued.getExpiresAt(), service.verifyToken(issued.getToken()).getExpiresAt());
+    }
+
+    @Test
+    void tamperedMalformedAndForeignTokensAreRejected() {
+        SessionTokenService service = service(60);
+        String token = service.issue("SURV001").getToken();
+        int dot = token.indexOf('.');
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString("SURV002|1|9999999999|abc".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(service.verify(forgedPayload + token.substring(dot)));
+        assertNull(service.verify(null));
+        assertNull(service.verify("not-a-token"));
+        assertNull(service.verify(token.substring(0, dot + 1)));
+        assertNull(service.verify("%%%." + token.substring(dot + 1)));
+        assertNull(new SessionTokenService("another-secret", 60, false).verify(token));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        SessionTokenService service = service(0);
+        assertNull(service.verify(service.issue("SURV001").getToken()));
+    }
+
+    @Test
+    void revokedTokenIsRejectedButOthersStillVerify() {
+        SessionTokenService service = service(60);
+        String revoked = service.issue("SURV001").getToken();
+        String kept = service.issue("SURV001").getToken();
+
+        assertTrue(service.revoke(revoked));
+        assertNull(service.verify(revoked));
+        assertEquals("SURV001", service.verify(kept));
+        assertFalse(service.revoke(revoked));
+    }
+
+    @Test
+    void revokeAllRejectsEarlierTokensButNotOnesIssuedRightAfter() {
+        SessionTokenService service = service(60);
+        String before = service.issue("SURV001").getToken();
+        String other = service.issue("SURV002").getToken();
+        service.revokeAll("SURV001");
+        // Same millisecond as the revocation: the stamp must still order it after
+        String after = service.issue("SURV001").getToken();
+
+        assertNull(service.verify(before));
+        assertEquals("SURV002", service.verify(other));
+        assertEquals("SURV001", service.verify(after));
+    }
+
+    @Test
+    void refreshRevokesTheOldToken() {
+        SessionTokenService service = service(60);
+        String old = service.issue("SURV001").getToken();
+        IssuedToken fresh = service.refresh(old);
+
+        assertNotNull(fresh);
+        assertNull(service.verify(old));
+        assertEquals("SURV001", service.verify(fresh.getToken()));
+        assertNull(service.refresh(old));
+    }
+
+    @Test
+    void purgeKeepsRevocationsUntilTheTokensWouldExpire() {
+        SessionTokenService service = service(60);
+        String token = service.issue("SURV001").getToken();
+        service.revoke(token);
+        service.revokeAll("SURV002");
+        service.purgeExpired();
+
+        assertEquals(2, service.getRevokedCount());
+        assertNull(service.verify(token));
+    }
+
+    @Test
+    void blankSecretFailsStartupUnlessRandomIsAllowed() {
+        assertThrows(IllegalStateException.class, () -> new SessionTokenService("", 60, false));
+        SessionTokenService random = new SessionTokenService("", 60, true);
+        assertEquals("SURV001", random.verify(random.issue("SURV001").getToken()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.neogeo.tracking.service;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+
+class StatementTimeoutsTest {
+
+    @Test
+    void cancelledStatementBecomesQueryTimeout() {
+        SQLException cancelled = new SQLException("ERROR: canceling statement due to statement timeout", "57014");
+        // What spring-jdbc's SQLState fallback makes of it
+        DataAccessException translated = new SQLStateSQLExceptionTranslator().translate("search", "SELECT 1", cancelled);
+
+        DataAccessException result = StatementTimeouts.translate(translated);
+
+        assertTrue(result instanceof QueryTimeoutException, "was " + result);
+        assertSame(cancelled, result.getMostSpecificCause());
+    }
+
+    @Test
+    void otherFailuresAreLeftAlone() {
+        DataAccessException connectionLost = new DataAccessResourceFailureException("connection lost",
+            new SQLException("I/O error", "08006"));
+        assertSame(connectionLost, StatementTimeouts.translate(connectionLost));
+    }
+}
@@ -64,6 +64,19 @@ echo -e "\n${GREEN}Creating startup script...${NC}"
 cat > deploy/start.sh << 'EOL'
 #!/bin/bash
 
+# Session-token signing key (required by the backend): TRACKING_TOKEN_SECRET if set, otherwise a key
+# generated on first start and kept outside the deploy directory, so restarts and redeploys keep tokens valid
+if [ -z "$TRACKING_TOKEN_SECRET" ]; then
+    SECRET_FILE="${TRACKING_TOKEN_SECRET_FILE:-$HOME/.surveyor-tracking/token-secret}"
+    if [ ! -s "$SECRET_FILE" ]; then
+        mkdir -p "$(dirname "$SECRET_FILE")"
+        (umask 077 && head -c 32 /dev/urandom | base64 > "$SECRET_FILE")
+        echo "Generated session token secret in $SECRET_FILE"
+    fi
+    TRACKING_TOKEN_SECRET="$(cat "$SECRET_FILE")"
+fi
+export TRACKING_TOKEN_SECRET
+
 # Start Backend
 echo "Starting Spring Boot Backend..."
 nohup java -jar surveyor-tracking-backend.jar > backend.log 2>&1 &
@@ -0,0 +1,83 @@
+// Client for the binary live-location protocol served on /ws/location-binary
+// (enabled with tracking.websocket.binary.enabled=true on the backend).
+//
+// Text frames carry the surveyor dictionary: {"type":"dictionary","entries":{"SURV001":0}}
+// Binary frames are big-endian:
+//   uint8 type (1 = positions), uint8 version (1), uint16 record count,
+//   then per record: int32 surveyor index, int32 lat micro-degrees,
+//   int32 lon micro-degrees, int64 epoch millis (20 bytes)
+// A slow client can lose dictionary frames; on an unknown index it sends
+// {"type":"resync"} and the server answers with the full dictionary.
+
+const FRAME_POSITIONS = 1;
+const HEADER_BYTES = 4;
+const RECORD_BYTES = 20;
+const TWO_POW_32 = 4294967296;
+
+/**
+ * Decodes a position frame into [{ surveyorId, lat, lon, timestamp }].
+ * Records whose index is not in the dictionary have surveyorId undefined.
+ * @param {ArrayBuffer} buffer binary frame payload
+ * @param {string[]} surveyorIds dictionary indexed by surveyor index
+ */
+export const decodeLocationFrame = (buffer, surveyorIds) => {
+  const view = new DataView(buffer);
+  if (view.byteLength < HEADER_BYTES || view.getUint8(0) !== FRAME_POSITIONS) {
+    return [];
+  }
+
+  const count = view.getUint16(2);
+  const locations = new Array(count);
+  let offset = HEADER_BYTES;
+  for (let i = 0; i < count; i++, offset += RECORD_BYTES) {
+    const index = view.getInt32(offset);
+    // Epoch millis fit in 53 bits, so two 32-bit halves are exact as a Number
+    const millis = view.getInt32(offset + 12) * TWO_POW_32 + view.getUint32(offset + 16);
+    locations[i] = {
+      surveyorId: surveyorIds[index],
+      lat: view.getInt32(offset + 4) / 1e6,
+      lon: view.getInt32(offset + 8) / 1e6,
+      timestamp: millis,
+    };
+  }
+  return locations;
+};
+
+/**
+ * Opens the binary location socket and calls onLocations with each decoded batch.
+ * Returns a function that closes the connection.
+ */
+export const connectBinaryLocations = (url, onLocations, onError) => {
+  const surveyorIds = [];
+  let resyncRequested = false;
+  const socket = new WebSocket(url);
+  socket.binaryType = 'arraybuffer';
+
+  socket.onmessage = (event) => {
+    if (typeof event.data === 'string') {
+      const frame = JSON.parse(event.data);
+      if (frame.type === 'dictionary') {
+        Object.entries(frame.entries).forEach(([surveyorId, index]) => {
+          surveyorIds[index] = surveyorId;
+        });
+        resyncRequested = false;
+      }
+      return;
+    }
+    const decoded = decodeLocationFrame(event.data, surveyorIds);
+    const locations = decoded.filter(location => location.surveyorId !== undefined);
+    // One request until the next dictionary arrives
+    if (locations.length < decoded.length && !resyncRequested) {
+      resyncRequested = true;
+      socket.send(JSON.stringify({ type: 'resync' }));
+    }
+    if (locations.length > 0) onLocations(locations);
+  };
+
+  socket.onerror = (event) => {
+    console.error('Binary location socket error:', event);
+    if (onError) onError(event);
+  };
+
+  return () => socket.close();
+};
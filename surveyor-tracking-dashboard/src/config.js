@@ -29,6 +29,9 @@ const config = {
   
   // WebSocket related URLs - SockJS expects HTTP/HTTPS, not ws://
   webSocketUrl: `http://localhost:${PORTS.BACKEND_API}/ws/location`,
+  // Plain WebSocket with compact position frames (backend: tracking.websocket.binary.enabled=true)
+  binaryLocationsUrl: `ws://localhost:${PORTS.BACKEND_API}/ws/location-binary`,
+  binaryLocations: process.env.REACT_APP_BINARY_LOCATIONS === 'true',
   
   // Export ports for direct access when needed
   ports: PORTS,
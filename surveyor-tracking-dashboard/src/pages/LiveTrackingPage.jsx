@@ -7,6 +7,7 @@ import DatePicker from 'react-datepicker';
 import 'react-datepicker/dist/react-datepicker.css';
 import SurveyorTrackMap from '../SurveyorTrackMap';
 import config from '../config';
+import { connectBinaryLocations } from '../binaryLocationDecoder';
 
 // Icons
 import HistoryIcon from '@mui/icons-material/History';
@@ -145,10 +146,15 @@ const LiveTrackingPage = ({ surveyors }) => {
   
   // State for a single surveyor's live data
   const [liveData, setLiveData] = useState(null);
+  const [liveTrail, setLiveTrail] = useState([]);
   
   // NEW: State for all surveyors' latest locations
   const [allSurveyorsData, setAllSurveyorsData] = useState([]);
 
+  // Latest position per surveyor from the SSE stream, and whether it is connected
+  const [streamLocations, setStreamLocations] = useState({});
+  const [streamConnected, setStreamConnected] = useState(false);
+
   const apiCall = useCallback(async (endpoint, options = {}) => {
     try {
       const url = `${config.backendHost}${endpoint}`;
@@ -174,30 +180,83 @@ const LiveTrackingPage = ({ surveyors }) => {
       .catch(err => console.error('Failed to load status:', err));
   }, [apiCall]);
 
+  // Load statuses once, then keep polling only while the live stream is down
   useEffect(() => {
     loadStatus();
+    if (streamConnected) return undefined;
     const interval = setInterval(loadStatus, 15000); // Refresh status every 15s
     return () => clearInterval(interval);
-  }, [loadStatus]);
+  }, [loadStatus, streamConnected]);
 
-  // NEW: Effect to fetch all surveyors' latest locations
+  // Server-Sent Events feed: one snapshot, then only changed positions and statuses.
+  // EventSource reconnects with Last-Event-ID by itself; polling covers the gap.
+  useEffect(() => {
+    if (typeof EventSource === 'undefined') return undefined;
+    const source = new EventSource(`${config.backendHost}/api/location/stream`);
+
+    const applyFrame = (frame, replace) => {
+      setStreamLocations(prev => {
+        const next = replace ? {} : { ...prev };
+        (frame.locations || []).forEach(loc => { next[loc.surveyorId] = loc; });
+        return next;
+      });
+      if (frame.statuses) setStatusMap(prev => ({ ...prev, ...frame.statuses }));
+    };
+
+    source.onopen = () => setStreamConnected(true);
+    source.addEventListener('snapshot', e => applyFrame(JSON.parse(e.data), true));
+    source.addEventListener('delta', e => applyFrame(JSON.parse(e.data), false));
+    source.onerror = () => setStreamConnected(source.readyState === EventSource.OPEN);
+
+    return () => {
+      source.close();
+      setStreamConnected(false);
+    };
+  }, []);
+
+  // Opt-in binary feed: positions only, merged over the SSE positions; statuses still come from SSE
+  useEffect(() => {
+    if (!config.binaryLocations) return undefined;
+    return connectBinaryLocations(config.binaryLocationsUrl, locations => {
+      setStreamLocations(prev => {
+        const next = { ...prev };
+        locations.forEach(loc => {
+          next[loc.surveyorId] = {
+            ...next[loc.surveyorId],
+            surveyorId: loc.surveyorId,
+            latitude: loc.lat,
+            longitude: loc.lon,
+            timestamp: loc.timestamp,
+          };
+        });
+        return next;
+      });
+    });
+  }, []);
+
+  // Add surveyor name to each location object for the popup
+  const enrichLocations = useCallback((locations) => locations.map(loc => {
+    const surveyorDetails = surveyors.find(s => s.id === loc.surveyorId);
+    return {
+      ...loc,
+      name: surveyorDetails ? surveyorDetails.name : loc.surveyorId,
+      lat: loc.latitude,
+      lon: loc.longitude,
+    };
+  }), [surveyors]);
+
+  useEffect(() => {
+    if (streamConnected && viewMode === 'live' && surveyorId === 'ALL' && surveyors.length > 0) {
+      setAllSurveyorsData(enrichLocations(Object.values(streamLocations)));
+    }
+  }, [streamConnected, streamLocations, viewMode, surveyorId, surveyors, enrichLocations]);
+
+  // Fallback: poll all surveyors' latest locations while the stream is unavailable
   useEffect(() => {
     const fetchAllLatestLocations = async () => {
       try {
         const data = await apiCall('/api/location/latest/all');
-        
-        // Add surveyor name to each location object for the popup
-        const enrichedData = data.map(loc => {
-            const surveyorDetails = surveyors.find(s => s.id === loc.surveyorId);
-            return {
-                ...loc,
-                name: surveyorDetails ? surveyorDetails.name : loc.surveyorId,
-                lat: loc.latitude,
-                lon: loc.longitude,
-            };
-        });
-
-        setAllSurveyorsData(enrichedData);
+        setAllSurveyorsData(enrichLocations(data));
       } catch (err) {
         console.error("Could not fetch all latest locations", err);
         setError("Could not fetch latest locations for all surveyors.");
@@ -205,7 +264,7 @@ const LiveTrackingPage = ({ surveyors }) => {
     };
     
     let interval;
-    if (viewMode === 'live' && surveyorId === 'ALL' && surveyors.length > 0) {
+    if (!streamConnected && viewMode === 'live' && surveyorId === 'ALL' && surveyors.length > 0) {
       fetchAllLatestLocations();
       interval = setInterval(fetchAllLatestLocations, 20000); // Refresh every 20s
     }
@@ -214,28 +273,48 @@ const LiveTrackingPage = ({ surveyors }) => {
         if (interval) clearInterval(interval);
         setAllSurveyorsData([]); // Clear data when not in this mode
     };
-  }, [viewMode, surveyorId, apiCall, surveyors]);
+  }, [streamConnected, viewMode, surveyorId, apiCall, surveyors, enrichLocations]);
 
 
-  // Effect for a SINGLE surveyor's live data (mocked for now)
+  // Effect for a SINGLE surveyor's live trail: only points after the last cursor are fetched
   useEffect(() => {
     let intervalId = null;
-    const fetchLiveData = () => {
-      setLiveData({
-        lat: 34.0522 + (Math.random() - 0.5) * 0.01,
-        lon: -118.2437 + (Math.random() - 0.5) * 0.01,
-        timestamp: new Date().toISOString(),
-      });
+    let cancelled = false;
+    const cursor = { after: new Date(new Date().setHours(0, 0, 0, 0)).toISOString(), afterId: null };
+
+    const fetchLiveData = async () => {
+      try {
+        let hasMore = true;
+        while (hasMore && !cancelled) {
+          const params = new URLSearchParams({ after: cursor.after });
+          if (cursor.afterId != null) params.append('afterId', cursor.afterId);
+          const tail = await apiCall(`/api/location/${encodeURIComponent(surveyorId)}/tail?${params}`);
+          if (cancelled || !tail.points.length) return;
+
+          cursor.after = tail.cursorTimestamp;
+          cursor.afterId = tail.cursorId;
+          hasMore = tail.hasMore;
+
+          const points = tail.points.map(p => ({ lat: p.latitude, lon: p.longitude, timestamp: p.timestamp }));
+          setLiveTrail(prev => [...prev, ...points]);
+          setLiveData(points[points.length - 1]);
+        }
+      } catch (err) {
+        console.error('Failed to fetch live trail:', err);
+      }
     };
+
     if (viewMode === 'live' && surveyorId && surveyorId !== 'ALL') {
       fetchLiveData();
       intervalId = setInterval(fetchLiveData, 5000);
     }
     return () => {
+      cancelled = true;
       if (intervalId) clearInterval(intervalId);
       setLiveData(null);
+      setLiveTrail([]);
     };
-  }, [surveyorId, viewMode]);
+  }, [surveyorId, viewMode, apiCall]);
 
   const handleSurveyorChange = (event) => {
     const newId = event.target.value;
@@ -356,7 +435,7 @@ const LiveTrackingPage = ({ surveyors }) => {
             // Pass live data for a single surveyor
             liveSurveyorData={viewMode === 'live' && surveyorId !== 'ALL' ? liveData : null}
             // Pass historical route data if that mode is active
-            historicalRouteData={viewMode === 'historical' ? historicalRoute : []}
+            historicalRouteData={viewMode === 'historical' ? historicalRoute : liveTrail}
           />
       </Paper>
 